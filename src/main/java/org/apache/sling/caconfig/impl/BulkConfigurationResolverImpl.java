@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.caconfig.ConfigurationResolveException;
+import org.apache.sling.caconfig.impl.resolver.BulkConfigurationResolver;
+import org.apache.sling.caconfig.impl.resolver.PreparedConfiguration;
+import org.apache.sling.caconfig.resource.impl.util.ResolveScope;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves configurations for content subtrees on a work-stealing pool. Each task resolves a resource and traverses
+ * its descendants depth-first within a {@link ResolveScope}, so context resources found for ancestors are reused.
+ * Child subtrees are split off into new tasks only while other workers may run out of work.
+ */
+@Component(service = BulkConfigurationResolver.class)
+@Designate(ocd = BulkConfigurationResolverImpl.Config.class)
+public class BulkConfigurationResolverImpl implements BulkConfigurationResolver {
+
+    @ObjectClassDefinition(
+            name = "Apache Sling Context-Aware Configuration Bulk Resolver",
+            description = "Resolves configurations for content subtrees in parallel for offline jobs.")
+    static @interface Config {
+
+        @AttributeDefinition(
+                name = "Parallelism",
+                description = "Number of worker threads. Each worker uses its own clone of the resource resolver.")
+        int parallelism() default 4;
+    }
+
+    /**
+     * Split off child subtrees as long as the own task queue has less surplus tasks than this.
+     */
+    private static final int MAX_SURPLUS_QUEUED_TASKS = 3;
+
+    private ForkJoinPool pool;
+
+    private static final Logger log = LoggerFactory.getLogger(BulkConfigurationResolverImpl.class);
+
+    @Activate
+    private void activate(Config config) {
+        pool = new ForkJoinPool(
+                Math.max(1, config.parallelism()),
+                forkJoinPool -> {
+                    ForkJoinWorkerThread thread =
+                            ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                    thread.setName("Sling CA Config Bulk Resolver " + thread.getPoolIndex());
+                    return thread;
+                },
+                null,
+                false);
+    }
+
+    @Deactivate
+    private void deactivate() {
+        pool.shutdownNow();
+    }
+
+    @Override
+    public <T> void resolveTree(
+            @NotNull Resource root,
+            @NotNull PreparedConfiguration<T> configuration,
+            @NotNull Predicate<Resource> filter,
+            @NotNull BiConsumer<Resource, T> consumer) {
+        Job<T> job = new Job<>(root.getResourceResolver(), configuration, filter, consumer);
+        try {
+            pool.invoke(new SubtreeTask<>(job, root.getPath()));
+        } finally {
+            job.close();
+        }
+    }
+
+    /**
+     * State shared by all tasks of one bulk resolution.
+     */
+    private static final class Job<T> {
+
+        private final ResourceResolver resourceResolver;
+        private final PreparedConfiguration<T> configuration;
+        private final Predicate<Resource> filter;
+        private final BiConsumer<Resource, T> consumer;
+        private final Map<Thread, ResourceResolver> workerResourceResolvers = new ConcurrentHashMap<>();
+        private volatile boolean failed;
+
+        Job(
+                ResourceResolver resourceResolver,
+                PreparedConfiguration<T> configuration,
+                Predicate<Resource> filter,
+                BiConsumer<Resource, T> consumer) {
+            this.resourceResolver = resourceResolver;
+            this.configuration = configuration;
+            this.filter = filter;
+            this.consumer = consumer;
+        }
+
+        /**
+         * @return Clone of the resource resolver exclusively used by the current worker thread
+         */
+        ResourceResolver getWorkerResourceResolver() {
+            return workerResourceResolvers.computeIfAbsent(Thread.currentThread(), thread -> {
+                try {
+                    synchronized (resourceResolver) {
+                        return resourceResolver.clone(null);
+                    }
+                } catch (LoginException ex) {
+                    throw new ConfigurationResolveException("Unable to clone resource resolver.", ex);
+                }
+            });
+        }
+
+        void close() {
+            for (ResourceResolver workerResourceResolver : workerResourceResolvers.values()) {
+                workerResourceResolver.close();
+            }
+            workerResourceResolvers.clear();
+        }
+    }
+
+    private static final class SubtreeTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Job<T> job;
+        private final String path;
+
+        SubtreeTask(Job<T> job, String path) {
+            this.job = job;
+            this.path = path;
+        }
+
+        @Override
+        protected void compute() {
+            List<SubtreeTask<T>> forkedTasks = new ArrayList<>();
+            try {
+                Resource resource = job.getWorkerResourceResolver().getResource(path);
+                if (resource != null && job.filter.test(resource)) {
+                    try (ResolveScope scope = ResolveScope.open()) {
+                        traverse(resource, forkedTasks);
+                    }
+                }
+            } catch (RuntimeException ex) {
+                job.failed = true;
+                throw ex;
+            } finally {
+                // wait for all forked tasks before the job may close their resource resolvers
+                RuntimeException forkedTaskException = null;
+                for (SubtreeTask<T> forkedTask : forkedTasks) {
+                    try {
+                        forkedTask.join();
+                    } catch (RuntimeException ex) {
+                        if (forkedTaskException == null) {
+                            forkedTaskException = ex;
+                        }
+                    }
+                }
+                if (forkedTaskException != null) {
+                    throw forkedTaskException;
+                }
+            }
+        }
+
+        private void traverse(Resource resource, List<SubtreeTask<T>> forkedTasks) {
+            if (job.failed) {
+                return;
+            }
+            job.consumer.accept(resource, job.configuration.get(resource));
+            for (Resource child : resource.getChildren()) {
+                if (getSurplusQueuedTaskCount() < MAX_SURPLUS_QUEUED_TASKS) {
+                    log.trace("Fork task for subtree {}", child.getPath());
+                    SubtreeTask<T> task = new SubtreeTask<>(job, child.getPath());
+                    task.fork();
+                    forkedTasks.add(task);
+                } else if (job.filter.test(child)) {
+                    traverse(child, forkedTasks);
+                }
+            }
+        }
+    }
+}
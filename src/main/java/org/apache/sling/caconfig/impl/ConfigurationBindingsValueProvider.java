@@ -32,7 +32,7 @@ import org.apache.sling.api.scripting.SlingBindings;
 import org.apache.sling.caconfig.ConfigurationBuilder;
 import org.apache.sling.caconfig.management.multiplexer.ConfigurationInjectResourceDetectionStrategyMultiplexer;
 import org.apache.sling.caconfig.management.multiplexer.ConfigurationMetadataProviderMultiplexer;
-import org.apache.sling.caconfig.spi.ConfigurationMetadataProvider;
+import org.apache.sling.caconfig.management.multiplexer.ConfigurationMetadataSnapshot;
 import org.apache.sling.caconfig.spi.metadata.ConfigurationMetadata;
 import org.apache.sling.scripting.api.BindingsValuesProvider;
 import org.osgi.service.component.annotations.Activate;
@@ -127,20 +127,27 @@ public class ConfigurationBindingsValueProvider implements BindingsValuesProvide
     private static class ConfigMap implements Map<String, Object> {
 
         private final Resource resource;
-        private final ConfigurationMetadataProvider configMetadataProvider;
-        private Set<String> configNamesCache;
+        private final ConfigurationMetadataProviderMultiplexer configMetadataProvider;
+        private ConfigurationMetadataSnapshot configMetadataSnapshot;
         private Map<String, Object> valuesCache = new HashMap<>();
 
-        ConfigMap(Resource resource, ConfigurationMetadataProvider configMetadataProvider) {
+        ConfigMap(Resource resource, ConfigurationMetadataProviderMultiplexer configMetadataProvider) {
             this.resource = resource;
             this.configMetadataProvider = configMetadataProvider;
         }
 
-        private Set<String> getConfigNames() {
-            if (configNamesCache == null) {
-                configNamesCache = configMetadataProvider.getConfigurationNames();
+        /**
+         * @return Snapshot of configuration names and metadata, shared by all bindings until metadata changes
+         */
+        private ConfigurationMetadataSnapshot getConfigMetadataSnapshot() {
+            if (configMetadataSnapshot == null) {
+                configMetadataSnapshot = configMetadataProvider.getSnapshot();
             }
-            return configNamesCache;
+            return configMetadataSnapshot;
+        }
+
+        private Set<String> getConfigNames() {
+            return getConfigMetadataSnapshot().getConfigurationNames();
         }
 
         @Override
@@ -182,7 +189,7 @@ public class ConfigurationBindingsValueProvider implements BindingsValuesProvide
         }
 
         private boolean isCollection(String configName) {
-            ConfigurationMetadata configMetadata = configMetadataProvider.getConfigurationMetadata(configName);
+            ConfigurationMetadata configMetadata = getConfigMetadataSnapshot().getConfigurationMetadata(configName);
             if (configMetadata != null) {
                 return configMetadata.isCollection();
             } else {
@@ -18,34 +18,42 @@
  */
 package org.apache.sling.caconfig.impl;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
 import org.apache.commons.collections4.IteratorUtils;
-import org.apache.commons.collections4.ResettableListIterator;
 import org.apache.commons.collections4.Transformer;
-import org.apache.commons.collections4.iterators.ListIteratorWrapper;
+import org.apache.commons.collections4.iterators.IteratorChain;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceUtil;
 import org.apache.sling.api.resource.ValueMap;
-import org.apache.sling.api.wrappers.ValueMapDecorator;
 import org.apache.sling.caconfig.ConfigurationBuilder;
 import org.apache.sling.caconfig.ConfigurationResolveException;
 import org.apache.sling.caconfig.ConfigurationResolver;
 import org.apache.sling.caconfig.impl.ConfigurationProxy.ChildResolver;
+import org.apache.sling.caconfig.impl.ConfigurationResolutionCache.CachedConfiguration;
+import org.apache.sling.caconfig.impl.metadata.AnnotationClassMethodTableCache;
 import org.apache.sling.caconfig.impl.metadata.AnnotationClassParser;
+import org.apache.sling.caconfig.impl.resolver.BatchConfigurationBuilder;
 import org.apache.sling.caconfig.management.multiplexer.ConfigurationOverrideMultiplexer;
 import org.apache.sling.caconfig.management.multiplexer.ConfigurationPersistenceStrategyMultiplexer;
+import org.apache.sling.caconfig.management.multiplexer.ConfigurationResourceResolvingStrategyMultiplexer;
 import org.apache.sling.caconfig.resource.impl.util.ConfigNameUtil;
+import org.apache.sling.caconfig.resource.impl.util.LayeredValueMap;
 import org.apache.sling.caconfig.resource.impl.util.MapUtil;
-import org.apache.sling.caconfig.resource.spi.ConfigurationResourceResolvingStrategy;
+import org.apache.sling.caconfig.resource.impl.util.ResolveScope;
 import org.apache.sling.caconfig.spi.ConfigurationInheritanceStrategy;
 import org.apache.sling.caconfig.spi.ConfigurationMetadataProvider;
 import org.apache.sling.caconfig.spi.metadata.ConfigurationMetadata;
@@ -54,29 +62,35 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-class ConfigurationBuilderImpl implements ConfigurationBuilder {
+class ConfigurationBuilderImpl implements ConfigurationBuilder, BatchConfigurationBuilder {
 
     private final Resource contentResource;
     private final ConfigurationResolver configurationResolver;
-    private final ConfigurationResourceResolvingStrategy configurationResourceResolvingStrategy;
+    private final ConfigurationResourceResolvingStrategyMultiplexer configurationResourceResolvingStrategy;
     private final ConfigurationPersistenceStrategyMultiplexer configurationPersistenceStrategy;
     private final ConfigurationInheritanceStrategy configurationInheritanceStrategy;
     private final ConfigurationOverrideMultiplexer configurationOverrideMultiplexer;
     private final ConfigurationMetadataProvider configurationMetadataProvider;
     private final Collection<String> configBucketNames;
+    private final ConfigurationResolutionCache configurationResolutionCache;
     private final String configName;
+    private final PreparedConfigurationLookups preparedLookups;
+    private final AnnotationClassMethodTableCache methodTables;
+    private final boolean eagerProxies;
+    private final boolean resolverMemo;
 
     private static final Logger log = LoggerFactory.getLogger(ConfigurationBuilderImpl.class);
 
     public ConfigurationBuilderImpl(
             final Resource resource,
             final ConfigurationResolver configurationResolver,
-            final ConfigurationResourceResolvingStrategy configurationResourceResolvingStrategy,
+            final ConfigurationResourceResolvingStrategyMultiplexer configurationResourceResolvingStrategy,
             final ConfigurationPersistenceStrategyMultiplexer configurationPersistenceStrategy,
             final ConfigurationInheritanceStrategy configurationInheritanceStrategy,
             final ConfigurationOverrideMultiplexer configurationOverrideMultiplexer,
             final ConfigurationMetadataProvider configurationMetadataProvider,
-            final Collection<String> configBucketNames) {
+            final Collection<String> configBucketNames,
+            final ConfigurationResolutionCache configurationResolutionCache) {
         this(
                 resource,
                 configurationResolver,
@@ -86,19 +100,29 @@ class ConfigurationBuilderImpl implements ConfigurationBuilder {
                 configurationOverrideMultiplexer,
                 configurationMetadataProvider,
                 configBucketNames,
-                null);
+                configurationResolutionCache,
+                null,
+                null,
+                new AnnotationClassMethodTableCache(),
+                false,
+                false);
     }
 
-    private ConfigurationBuilderImpl(
+    ConfigurationBuilderImpl(
             final Resource resource,
             final ConfigurationResolver configurationResolver,
-            final ConfigurationResourceResolvingStrategy configurationResourceResolvingStrategy,
+            final ConfigurationResourceResolvingStrategyMultiplexer configurationResourceResolvingStrategy,
             final ConfigurationPersistenceStrategyMultiplexer configurationPersistenceStrategy,
             final ConfigurationInheritanceStrategy configurationInheritanceStrategy,
             final ConfigurationOverrideMultiplexer configurationOverrideMultiplexer,
             final ConfigurationMetadataProvider configurationMetadataProvider,
             final Collection<String> configBucketNames,
-            final String configName) {
+            final ConfigurationResolutionCache configurationResolutionCache,
+            final String configName,
+            final PreparedConfigurationLookups preparedLookups,
+            final AnnotationClassMethodTableCache methodTables,
+            final boolean eagerProxies,
+            final boolean resolverMemo) {
         this.contentResource = resource;
         this.configurationResolver = configurationResolver;
         this.configurationResourceResolvingStrategy = configurationResourceResolvingStrategy;
@@ -107,7 +131,12 @@ class ConfigurationBuilderImpl implements ConfigurationBuilder {
         this.configurationOverrideMultiplexer = configurationOverrideMultiplexer;
         this.configurationMetadataProvider = configurationMetadataProvider;
         this.configBucketNames = configBucketNames;
+        this.configurationResolutionCache = configurationResolutionCache;
         this.configName = configName;
+        this.preparedLookups = preparedLookups;
+        this.methodTables = methodTables;
+        this.eagerProxies = eagerProxies;
+        this.resolverMemo = resolverMemo;
     }
 
     @Override
@@ -122,7 +151,12 @@ class ConfigurationBuilderImpl implements ConfigurationBuilder {
                 configurationOverrideMultiplexer,
                 configurationMetadataProvider,
                 configBucketNames,
-                configName);
+                configurationResolutionCache,
+                configName,
+                null,
+                methodTables,
+                eagerProxies,
+                resolverMemo);
     }
 
     /**
@@ -141,6 +175,14 @@ class ConfigurationBuilderImpl implements ConfigurationBuilder {
      */
     private interface Converter<T> {
         T convert(Resource resource, Class<T> clazz, String configName, boolean isCollection);
+
+        /**
+         * @return true if the converter only needs path and properties of the configuration resource,
+         *     and can thus be fed from the {@link ConfigurationResolutionCache}.
+         */
+        default boolean isCacheable() {
+            return true;
+        }
     }
 
     /**
@@ -151,9 +193,44 @@ class ConfigurationBuilderImpl implements ConfigurationBuilder {
      * @return Converted singleton configuration
      */
     private <T> T getConfigResource(String configName, Class<T> clazz, Converter<T> converter) {
+        if (resolverMemo && this.contentResource != null && converter.isCacheable()) {
+            validateConfigurationName(configName);
+            T result = ResolutionMemo.get(this.contentResource.getResourceResolver())
+                    .get(
+                            List.of(false, this.contentResource.getPath(), configName, clazz),
+                            () -> resolveConfigResource(configName, clazz, converter));
+            return detachMemoized(result);
+        }
+        return resolveConfigResource(configName, clazz, converter);
+    }
+
+    /**
+     * Memoized configurations are shared by all callers using the same resource resolver. Value maps may be
+     * modified by callers, so each caller gets its own layered view on the memoized value map.
+     * Annotation class proxies are immutable and returned as they are.
+     * @param memoized Memoized configuration
+     * @return Configuration for the caller
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T detachMemoized(T memoized) {
+        if (memoized instanceof ValueMap) {
+            return (T) LayeredValueMap.of(List.of((ValueMap) memoized));
+        }
+        return memoized;
+    }
+
+    private <T> T resolveConfigResource(String configName, Class<T> clazz, Converter<T> converter) {
         Iterator<Resource> resourceInheritanceChain = null;
         if (this.contentResource != null) {
             validateConfigurationName(configName);
+            final ConfigurationResolutionCache cache = this.configurationResolutionCache;
+            // config-root chains are computed by the default strategy, other strategies cannot share cached entries
+            if (cache != null
+                    && cache.isEnabled()
+                    && converter.isCacheable()
+                    && configurationResourceResolvingStrategy.isDefaultStrategyEffective()) {
+                return convertCached(cache, clazz, converter, configName);
+            }
             resourceInheritanceChain = this.configurationResourceResolvingStrategy.getResourceInheritanceChain(
                     this.contentResource, configBucketNames, configName);
         }
@@ -168,12 +245,29 @@ class ConfigurationBuilderImpl implements ConfigurationBuilder {
      * @return Converted configuration collection
      */
     private <T> Collection<T> getConfigResourceCollection(String configName, Class<T> clazz, Converter<T> converter) {
+        if (resolverMemo && this.contentResource != null && converter.isCacheable()) {
+            validateConfigurationName(configName);
+            Collection<T> result = ResolutionMemo.get(this.contentResource.getResourceResolver())
+                    .get(
+                            List.of(true, this.contentResource.getPath(), configName, clazz),
+                            () -> resolveConfigResourceCollection(configName, clazz, converter));
+            // return a copy as callers may modify the collection
+            Collection<T> copy = new ArrayList<>(result.size());
+            for (T item : result) {
+                copy.add(detachMemoized(item));
+            }
+            return copy;
+        }
+        return resolveConfigResourceCollection(configName, clazz, converter);
+    }
+
+    private <T> Collection<T> resolveConfigResourceCollection(
+            String configName, Class<T> clazz, Converter<T> converter) {
         if (this.contentResource != null) {
             validateConfigurationName(configName);
 
             // get all possible colection parent config names
-            Collection<String> collectionParentConfigNames =
-                    configurationPersistenceStrategy.getAllCollectionParentConfigNames(configName);
+            Collection<String> collectionParentConfigNames = getAllCollectionParentConfigNames(configName);
             List<Iterator<Resource>> resourceInheritanceChains = new ArrayList<>();
             for (String collectionParentConfigName : collectionParentConfigNames) {
                 Collection<Iterator<Resource>> result =
@@ -197,7 +291,21 @@ class ConfigurationBuilderImpl implements ConfigurationBuilder {
         }
     }
 
-    @SuppressWarnings("unchecked")
+    private Collection<String> getAllCollectionParentConfigNames(String configName) {
+        if (isPrepared(configName)) {
+            return preparedLookups.getCollectionParentConfigNames();
+        }
+        return configurationPersistenceStrategy.getAllCollectionParentConfigNames(configName);
+    }
+
+    /**
+     * @param configName Configuration name
+     * @return true if resource-independent lookups for the configuration name were done by a prepared configuration
+     */
+    private boolean isPrepared(String configName) {
+        return preparedLookups != null && preparedLookups.getConfigName().equals(configName);
+    }
+
     private <T> T convert(
             final Iterator<Resource> resourceInhertianceChain,
             final Class<T> clazz,
@@ -207,37 +315,33 @@ class ConfigurationBuilderImpl implements ConfigurationBuilder {
         Resource configResource = null;
         String conversionName = name;
         if (resourceInhertianceChain != null) {
-            ResettableListIterator resettableResourceInhertianceChain =
-                    new ListIteratorWrapper(resourceInhertianceChain);
-            // apply persistence transformation
-            Iterator<Resource> transformedResources =
-                    IteratorUtils.transformedIterator(resettableResourceInhertianceChain, new Transformer() {
-                        @Override
-                        public Object transform(Object input) {
-                            if (isCollection) {
-                                return configurationPersistenceStrategy.getCollectionItemResource((Resource) input);
-                            } else {
-                                return configurationPersistenceStrategy.getResource((Resource) input);
-                            }
-                        }
-                    });
-            // apply resource inheritance
-            configResource = configurationInheritanceStrategy.getResource(transformedResources);
-            // apply overrides
-            configResource = configurationOverrideMultiplexer.overrideProperties(
-                    contentResource.getPath(), name, configResource, contentResource.getResourceResolver());
-            // build name
             if (isCollection) {
-                // get untransformed resource for getting collection item name
-                resettableResourceInhertianceChain.reset();
-                Resource untransformedConfigResource =
-                        configurationInheritanceStrategy.getResource(resettableResourceInhertianceChain);
-                if (untransformedConfigResource != null && configResource != null) {
-                    conversionName = configurationPersistenceStrategy.getCollectionParentConfigName(
-                                    conversionName, configResource.getPath())
-                            + "/" + untransformedConfigResource.getName();
+                // apply persistence transformation and resource inheritance
+                CollectionItemTransformer transformer = new CollectionItemTransformer();
+                configResource = configurationInheritanceStrategy.getResource(
+                        IteratorUtils.transformedIterator(resourceInhertianceChain, transformer));
+                // build name from untransformed resource
+                if (configResource != null) {
+                    Resource untransformedConfigResource = transformer.getUntransformedResource(configResource);
+                    if (untransformedConfigResource == null) {
+                        // inheritance strategy returned a resource that is not part of the chain
+                        untransformedConfigResource = configurationInheritanceStrategy.getResource(
+                                transformer.getUntransformedResources(resourceInhertianceChain));
+                    }
+                    if (untransformedConfigResource != null) {
+                        conversionName = configurationPersistenceStrategy.getCollectionParentConfigName(
+                                        conversionName, configResource.getPath())
+                                + "/" + untransformedConfigResource.getName();
+                    }
                 }
+            } else {
+                // apply persistence transformation and resource inheritance
+                configResource =
+                        configurationInheritanceStrategy.getResource(applyPersistence(resourceInhertianceChain, false));
             }
+            // apply overrides
+            configResource = configurationOverrideMultiplexer.overrideProperties(
+                    contentResource.getPath(), name, configResource, contentResource.getResourceResolver());
         }
         if (log.isTraceEnabled() && configResource != null) {
             log.trace("+ Found config resource for context path " + contentResource.getPath() + ": "
@@ -253,6 +357,115 @@ class ConfigurationBuilderImpl implements ConfigurationBuilder {
         return converter.convert(configResource, clazz, conversionName, isCollection);
     }
 
+    /**
+     * Get singleton configuration via the resolution cache and convert it to the desired target class.
+     * The merged configuration is looked up by the config-root chain of the content resource, overrides
+     * are applied on top of it for the current content path.
+     */
+    private <T> T convertCached(
+            final ConfigurationResolutionCache cache,
+            final Class<T> clazz,
+            final Converter<T> converter,
+            final String name) {
+        final String contentPath = contentResource.getPath();
+        List<String> configRootChain = cache.getConfigRootChain(contentPath, configBucketNames);
+        CachedConfiguration cachedConfig = null;
+        if (configRootChain != null) {
+            cachedConfig = cache.getConfiguration(configRootChain, configBucketNames, name);
+        }
+        if (cachedConfig == null) {
+            Iterator<Resource> resourceInheritanceChain =
+                    configurationResourceResolvingStrategy.getResourceInheritanceChain(
+                            contentResource, configBucketNames, name);
+            // config-root chain is known after resolving, if the resolving strategy takes part in caching
+            if (configRootChain == null) {
+                configRootChain = cache.getConfigRootChain(contentPath, configBucketNames);
+                if (configRootChain != null) {
+                    cachedConfig = cache.getConfiguration(configRootChain, configBucketNames, name);
+                }
+            }
+            if (cachedConfig == null) {
+                Resource configResource = null;
+                if (resourceInheritanceChain != null) {
+                    configResource = configurationInheritanceStrategy.getResource(
+                            applyPersistence(resourceInheritanceChain, false));
+                }
+                cachedConfig = CachedConfiguration.of(configResource);
+                if (configRootChain != null) {
+                    cache.putConfiguration(configRootChain, configBucketNames, name, cachedConfig);
+                }
+            }
+        }
+
+        // apply overrides
+        Resource configResource = configurationOverrideMultiplexer.overrideProperties(
+                contentPath,
+                name,
+                cachedConfig.toResource(contentResource.getResourceResolver()),
+                contentResource.getResourceResolver());
+        if (log.isTraceEnabled() && configResource != null) {
+            log.trace("+ Found cached config resource for context path " + contentPath + ": " + configResource.getPath()
+                    + " " + MapUtil.traceOutput(configResource.getValueMap()));
+        }
+        return converter.convert(configResource, clazz, name, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Iterator<Resource> applyPersistence(
+            final Iterator<Resource> resourceInhertianceChain, final boolean isCollection) {
+        return IteratorUtils.transformedIterator(resourceInhertianceChain, new Transformer() {
+            @Override
+            public Object transform(Object input) {
+                if (isCollection) {
+                    return configurationPersistenceStrategy.getCollectionItemResource((Resource) input);
+                } else {
+                    return configurationPersistenceStrategy.getResource((Resource) input);
+                }
+            }
+        });
+    }
+
+    /**
+     * Applies the persistence transformation for collection items and remembers the untransformed resource
+     * for each transformed resource. This allows to get the collection item name from the untransformed resource
+     * without evaluating the inheritance chain a second time.
+     */
+    private class CollectionItemTransformer implements Transformer<Resource, Resource> {
+
+        private final List<Resource> untransformedResources = new ArrayList<>();
+        private final List<Resource> transformedResources = new ArrayList<>();
+
+        @Override
+        public Resource transform(Resource input) {
+            Resource transformed = configurationPersistenceStrategy.getCollectionItemResource(input);
+            untransformedResources.add(input);
+            transformedResources.add(transformed);
+            return transformed;
+        }
+
+        /**
+         * @param configResource Resource returned by the inheritance strategy
+         * @return Untransformed resource the given resource was transformed from, or null if not found
+         */
+        Resource getUntransformedResource(Resource configResource) {
+            for (int i = 0; i < transformedResources.size(); i++) {
+                Resource transformed = transformedResources.get(i);
+                if (transformed != null && Objects.equals(transformed.getPath(), configResource.getPath())) {
+                    return untransformedResources.get(i);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @param remaining Iterator with the remaining resources of the inheritance chain
+         * @return Iterator over the complete untransformed inheritance chain
+         */
+        Iterator<Resource> getUntransformedResources(Iterator<Resource> remaining) {
+            return new IteratorChain<>(new ArrayList<>(untransformedResources).iterator(), remaining);
+        }
+    }
+
     /**
      * Apply default values from configuration metadata (where no real data is present).
      * @param resource Resource
@@ -263,43 +476,101 @@ class ConfigurationBuilderImpl implements ConfigurationBuilder {
         if (resource == null) {
             return null;
         }
-        Map<String, Object> updatedMap = applyDefaultValues(resource.getValueMap(), configName);
+        ValueMap updatedMap = applyDefaultValues(resource.getValueMap(), configName);
         if (updatedMap == null) {
             return resource;
         }
-        return new ConfigurationResourceWrapper(resource, new ValueMapDecorator(updatedMap));
+        return new ConfigurationResourceWrapper(resource, updatedMap);
     }
 
     /**
      * Apply default values from configuration metadata (where no real data is present).
      * @param props Properties
      * @param configName Configuration name
-     * @return null if no default values found, or a new map with added default properties.
+     * @return null if no default values found, or a value map with default properties layered below the given properties.
      */
-    private Map<String, Object> applyDefaultValues(Map<String, Object> props, String configName) {
+    private ValueMap applyDefaultValues(Map<String, Object> props, String configName) {
+        Map<String, Object> defaultValues = getDefaultValues(configName);
+        if (defaultValues == null) {
+            return null;
+        }
+        return LayeredValueMap.of(List.of(props, defaultValues));
+    }
+
+    /**
+     * Get default values from configuration metadata.
+     * @param configName Configuration name
+     * @return Default values or null if no default values found
+     */
+    private Map<String, Object> getDefaultValues(String configName) {
+        if (isPrepared(configName)) {
+            return preparedLookups.getDefaultValues();
+        }
         ConfigurationMetadata metadata = configurationMetadataProvider.getConfigurationMetadata(configName);
         if (metadata == null) {
             // probably a configuration list - remove item name from end
             if (Strings.CS.contains(configName, "/")) {
                 String partialConfigName = StringUtils.substringBeforeLast(configName, "/");
+                if (preparedLookups != null) {
+                    Optional<Map<String, Object>> itemDefaultValues =
+                            preparedLookups.getCollectionItemDefaultValues(partialConfigName);
+                    if (itemDefaultValues != null) {
+                        return itemDefaultValues.orElse(null);
+                    }
+                }
                 metadata = configurationMetadataProvider.getConfigurationMetadata(partialConfigName);
             }
             if (metadata == null) {
                 return null;
             }
         }
-        Map<String, Object> updatedMap = new HashMap<>();
-        for (PropertyMetadata<?> propertyMetadata :
-                metadata.getPropertyMetadata().values()) {
-            if (propertyMetadata.getDefaultValue() != null) {
-                updatedMap.put(propertyMetadata.getName(), propertyMetadata.getDefaultValue());
+        if (!DefaultValues.hasDefaultValues(metadata)) {
+            return null;
+        }
+        return new DefaultValues(metadata);
+    }
+
+    /**
+     * Read-only view on the default values of the configuration metadata properties.
+     */
+    private static final class DefaultValues extends AbstractMap<String, Object> {
+
+        private final Map<String, PropertyMetadata<?>> propertyMetadata;
+
+        DefaultValues(ConfigurationMetadata metadata) {
+            this.propertyMetadata = metadata.getPropertyMetadata();
+        }
+
+        static boolean hasDefaultValues(ConfigurationMetadata metadata) {
+            for (PropertyMetadata<?> item : metadata.getPropertyMetadata().values()) {
+                if (item.getDefaultValue() != null) {
+                    return true;
+                }
             }
+            return false;
         }
-        if (updatedMap.isEmpty()) {
-            return null;
+
+        @Override
+        public Object get(Object key) {
+            PropertyMetadata<?> item = propertyMetadata.get(key);
+            return item != null ? item.getDefaultValue() : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            Map<String, Object> defaultValues = new HashMap<>();
+            for (PropertyMetadata<?> item : propertyMetadata.values()) {
+                if (item.getDefaultValue() != null) {
+                    defaultValues.put(item.getName(), item.getDefaultValue());
+                }
+            }
+            return Collections.unmodifiableMap(defaultValues).entrySet();
         }
-        updatedMap.putAll(props);
-        return updatedMap;
     }
 
     // --- Annotation class support ---
@@ -344,31 +615,37 @@ class ConfigurationBuilderImpl implements ConfigurationBuilder {
         @Override
         public T convert(
                 final Resource resource, final Class<T> clazz, final String configName, final boolean isCollection) {
-            return ConfigurationProxy.get(resource, clazz, new ChildResolver() {
-                private ConfigurationBuilder getConfiguration(String nestedConfigName) {
-                    String childName;
-                    String relatedConfigPath = resource != null ? resource.getPath() : null;
-                    if (isCollection) {
-                        childName = configurationPersistenceStrategy.getCollectionItemConfigName(
-                                        configName, relatedConfigPath)
-                                + "/" + nestedConfigName;
-                    } else {
-                        childName = configurationPersistenceStrategy.getConfigName(configName, relatedConfigPath) + "/"
-                                + nestedConfigName;
-                    }
-                    return configurationResolver.get(contentResource).name(childName);
-                }
+            return ConfigurationProxy.get(
+                    resource,
+                    clazz,
+                    new ChildResolver() {
+                        private ConfigurationBuilder getConfiguration(String nestedConfigName) {
+                            String childName;
+                            String relatedConfigPath = resource != null ? resource.getPath() : null;
+                            if (isCollection) {
+                                childName = configurationPersistenceStrategy.getCollectionItemConfigName(
+                                                configName, relatedConfigPath)
+                                        + "/" + nestedConfigName;
+                            } else {
+                                childName =
+                                        configurationPersistenceStrategy.getConfigName(configName, relatedConfigPath)
+                                                + "/" + nestedConfigName;
+                            }
+                            return configurationResolver.get(contentResource).name(childName);
+                        }
 
-                @Override
-                public <C> C getChild(String configName, Class<C> clazz) {
-                    return getConfiguration(configName).as(clazz);
-                }
+                        @Override
+                        public <C> C getChild(String configName, Class<C> clazz) {
+                            return getConfiguration(configName).as(clazz);
+                        }
 
-                @Override
-                public <C> Collection<C> getChildren(String configName, Class<C> clazz) {
-                    return getConfiguration(configName).asCollection(clazz);
-                }
-            });
+                        @Override
+                        public <C> Collection<C> getChildren(String configName, Class<C> clazz) {
+                            return getConfiguration(configName).asCollection(clazz);
+                        }
+                    },
+                    eagerProxies,
+                    methodTables);
         }
     }
 
@@ -397,9 +674,9 @@ class ConfigurationBuilderImpl implements ConfigurationBuilder {
         @Override
         public ValueMap convert(Resource resource, Class<ValueMap> clazz, String configName, boolean isCollection) {
             ValueMap props = ResourceUtil.getValueMap(resource);
-            Map<String, Object> updatedMap = applyDefaultValues(props, configName);
+            ValueMap updatedMap = applyDefaultValues(props, configName);
             if (updatedMap != null) {
-                return new ValueMapDecorator(updatedMap);
+                return updatedMap;
             } else {
                 return props;
             }
@@ -441,6 +718,54 @@ class ConfigurationBuilderImpl implements ConfigurationBuilder {
             }
             return applyDefaultValues(resource, configName).adaptTo(clazz);
         }
+
+        @Override
+        public boolean isCacheable() {
+            // adapting may require the real resource
+            return false;
+        }
+    }
+
+    // --- Batch support ---
+
+    @Override
+    public @NotNull Map<Class<?>, Object> asAll(@NotNull Collection<? extends Class<?>> classes) {
+        Map<Class<?>, Object> result = new LinkedHashMap<>();
+        try (ResolveScope scope = ResolveScope.open()) {
+            for (Class<?> clazz : classes) {
+                result.put(clazz, getAnnotationConfigResource(clazz));
+            }
+        }
+        return result;
+    }
+
+    private <T> T getAnnotationConfigResource(Class<T> clazz) {
+        final String name = AnnotationClassParser.getConfigurationName(clazz);
+        if (log.isDebugEnabled()) {
+            log.debug(
+                    "Get configuration for context path {}, name '{}', class {}",
+                    contentResource.getPath(),
+                    name,
+                    clazz.getName());
+        }
+        return getConfigResource(name, clazz, new AnnotationConverter<T>());
+    }
+
+    @Override
+    public @NotNull Map<String, ValueMap> asValueMaps(@NotNull Collection<String> configNames) {
+        for (String name : configNames) {
+            ConfigNameUtil.ensureValidConfigName(name);
+        }
+        Map<String, ValueMap> result = new LinkedHashMap<>();
+        try (ResolveScope scope = ResolveScope.open()) {
+            for (String name : configNames) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Get ValueMap for context path {}, name '{}'", contentResource.getPath(), name);
+                }
+                result.put(name, getConfigResource(name, ValueMap.class, new ValueMapConverter()));
+            }
+        }
+        return result;
     }
 
     // --- Config Node Existence Check Support ---
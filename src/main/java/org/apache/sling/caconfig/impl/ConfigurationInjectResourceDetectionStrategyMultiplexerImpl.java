@@ -18,7 +18,9 @@
  */
 package org.apache.sling.caconfig.impl;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
@@ -28,11 +30,15 @@ import org.apache.sling.commons.osgi.Order;
 import org.apache.sling.commons.osgi.RankedServices;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 
 /**
  * Detects all {@link ConfigurationInjectResourceDetectionStrategy} implementations in the container
@@ -50,12 +56,33 @@ import org.osgi.service.component.annotations.ReferencePolicyOption;
                     policy = ReferencePolicy.DYNAMIC,
                     policyOption = ReferencePolicyOption.GREEDY)
         })
+@Designate(ocd = ConfigurationInjectResourceDetectionStrategyMultiplexerImpl.Config.class)
 public class ConfigurationInjectResourceDetectionStrategyMultiplexerImpl
         implements ConfigurationInjectResourceDetectionStrategyMultiplexer {
 
+    @ObjectClassDefinition(
+            name = "Apache Sling Context-Aware Configuration Inject Resource Detection Strategy Multiplexer",
+            description = "Detects the context resource for injecting configurations into scripts and models.")
+    static @interface Config {
+
+        @AttributeDefinition(
+                name = "Resource resolver memo",
+                description = "Remember the detected resource for the lifetime of the resource resolver of the "
+                        + "request, keyed by the path of the request resource. Only enable this if all detection "
+                        + "strategies depend on the request resource only.")
+        boolean resolverMemo() default false;
+    }
+
     private RankedServices<ConfigurationInjectResourceDetectionStrategy> resourceDetectionStrategies =
             new RankedServices<>(Order.DESCENDING);
 
+    private boolean resolverMemo;
+
+    @Activate
+    private void activate(Config config) {
+        resolverMemo = config.resolverMemo();
+    }
+
     protected void bindConfigurationInjectResourceDetectionStrategy(
             ConfigurationInjectResourceDetectionStrategy item, Map<String, Object> props) {
         resourceDetectionStrategies.bind(item, props);
@@ -71,6 +98,18 @@ public class ConfigurationInjectResourceDetectionStrategyMultiplexerImpl
      */
     @Override
     public @Nullable Resource detectResource(@NotNull SlingHttpServletRequest request) {
+        Resource requestResource = request.getResource();
+        if (resolverMemo && requestResource != null) {
+            return ResolutionMemo.get(request.getResourceResolver())
+                    .get(
+                            List.of(SlingHttpServletRequest.class, requestResource.getPath()),
+                            () -> Optional.ofNullable(detectResourceFromStrategies(request)))
+                    .orElse(null);
+        }
+        return detectResourceFromStrategies(request);
+    }
+
+    private Resource detectResourceFromStrategies(SlingHttpServletRequest request) {
         for (ConfigurationInjectResourceDetectionStrategy resourceDetectionStrategy : resourceDetectionStrategies) {
             Resource resource = resourceDetectionStrategy.detectResource(request);
             if (resource != null) {
@@ -23,15 +23,16 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceUtil;
-import org.apache.sling.api.resource.ValueMap;
 import org.apache.sling.caconfig.ConfigurationResolveException;
-import org.apache.sling.caconfig.impl.metadata.AnnotationClassParser;
-import org.apache.sling.caconfig.spi.metadata.PropertyMetadata;
+import org.apache.sling.caconfig.impl.metadata.AnnotationClassMethodTable;
+import org.apache.sling.caconfig.impl.metadata.AnnotationClassMethodTableCache;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -51,11 +52,34 @@ final class ConfigurationProxy {
      * @param resource Resource
      * @param clazz Annotation class
      * @param childResolver This is used to resolve nested configuration objects relative to the current configuration resource
+     * @param methodTables Method table cache
+     * @return Dynamic proxy object
+     */
+    public @NotNull static <T> T get(
+            @Nullable Resource resource,
+            @NotNull Class<T> clazz,
+            ChildResolver childResolver,
+            @NotNull AnnotationClassMethodTableCache methodTables) {
+        return get(resource, clazz, childResolver, false, methodTables);
+    }
+
+    /**
+     * Get dynamic proxy for given resources's properties mapped to given annotation class.
+     * @param resource Resource
+     * @param clazz Annotation class
+     * @param childResolver This is used to resolve nested configuration objects relative to the current configuration resource
+     * @param eager If true, all property values are read once when the proxy is created.
+     *          Nested configurations are still resolved on first access.
+     * @param methodTables Method table cache
      * @return Dynamic proxy object
      */
     @SuppressWarnings("unchecked")
     public @NotNull static <T> T get(
-            @Nullable Resource resource, @NotNull Class<T> clazz, ChildResolver childResolver) {
+            @Nullable Resource resource,
+            @NotNull Class<T> clazz,
+            ChildResolver childResolver,
+            boolean eager,
+            @NotNull AnnotationClassMethodTableCache methodTables) {
 
         // only annotation interface classes are supported
         if (!clazz.isAnnotation()) {
@@ -65,10 +89,14 @@ final class ConfigurationProxy {
         // create dynamic proxy for annotation class accessing underlying resource properties
         // wrap in caching invocation handler so client code can call all methods multiple times
         // without having to worry about performance
-        return (T) Proxy.newProxyInstance(
-                clazz.getClassLoader(),
-                new Class[] {clazz},
-                new CachingInvocationHandler(new DynamicProxyInvocationHandler(resource, childResolver)));
+        AnnotationClassMethodTable methodTable = methodTables.get(clazz);
+        CachingInvocationHandler handler = new CachingInvocationHandler(
+                new DynamicProxyInvocationHandler(resource, childResolver, methodTable), methodTable);
+        T proxy = (T) Proxy.newProxyInstance(clazz.getClassLoader(), new Class[] {clazz}, handler);
+        if (eager) {
+            handler.materialize(proxy);
+        }
+        return proxy;
     }
 
     /**
@@ -87,94 +115,101 @@ final class ConfigurationProxy {
 
         private final Resource resource;
         private final ChildResolver childResolver;
+        private final AnnotationClassMethodTable methodTable;
 
-        private DynamicProxyInvocationHandler(Resource resource, ChildResolver childResolver) {
+        private DynamicProxyInvocationHandler(
+                Resource resource, ChildResolver childResolver, AnnotationClassMethodTable methodTable) {
             this.resource = resource;
             this.childResolver = childResolver;
+            this.methodTable = methodTable;
         }
 
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) {
-            String propName = AnnotationClassParser.getPropertyName(method.getName());
+            return invoke(methodTable.getOrCreateEntry(method));
+        }
+
+        /**
+         * Resolve value for the given method table entry.
+         * @param entry Method table entry
+         * @return Property value or nested configuration
+         */
+        Object invoke(AnnotationClassMethodTable.Entry entry) {
 
             // check for nested configuration classes
-            Class<?> targetType = method.getReturnType();
-            Class<?> componentType = method.getReturnType();
-            boolean isArray = targetType.isArray();
-            if (isArray) {
-                componentType = targetType.getComponentType();
-            }
-            if (componentType.isAnnotation()) {
-                if (isArray) {
-                    Collection<?> listItems = childResolver.getChildren(propName, componentType);
+            if (entry.isNested()) {
+                Class<?> componentType = entry.getComponentType();
+                if (entry.isArray()) {
+                    Collection<?> listItems = childResolver.getChildren(entry.getPropertyName(), componentType);
                     return listItems.toArray((Object[]) Array.newInstance(componentType, listItems.size()));
                 } else {
-                    return childResolver.getChild(propName, componentType);
-                }
-            }
-
-            // validate type
-            if (!isValidType(componentType)) {
-                throw new ConfigurationResolveException("Unsupported type " + componentType.getName() + " in "
-                        + method.getDeclaringClass() + "#" + method.getName());
-            }
-
-            // detect default value
-            Object defaultValue = method.getDefaultValue();
-            if (defaultValue == null) {
-                if (isArray) {
-                    defaultValue = Array.newInstance(componentType, 0);
-                } else if (targetType.isPrimitive()) {
-                    // get default value for primitive data type (use hack via array)
-                    defaultValue = Array.get(Array.newInstance(targetType, 1), 0);
+                    return childResolver.getChild(entry.getPropertyName(), componentType);
                 }
             }
 
             // get value from valuemap with given type/default value
-            ValueMap props = ResourceUtil.getValueMap(resource);
-            Object value;
-            if (defaultValue != null) {
-                value = props.get(propName, defaultValue);
-            } else {
-                value = props.get(propName, targetType);
-            }
-            return value;
-        }
-
-        /**
-         * Ensures the given type is support for reading configuration parameters.
-         * @param type Type
-         * @return true if type is supported
-         */
-        private boolean isValidType(Class<?> type) {
-            return PropertyMetadata.SUPPORTED_TYPES.contains(type);
+            return entry.read(ResourceUtil.getValueMap(resource));
         }
     }
 
     /**
-     * Invocation handler that caches all results for each method name, and returns
+     * Invocation handler that caches all results for each method, and returns
      * the result from cache on next invocation.
+     * Results for methods of the annotation class are stored in a slot per method indexed by the
+     * {@link AnnotationClassMethodTable}, so proxy instances can be shared between threads.
+     * The slot is looked up by method identity, and the method table entry is passed through to the
+     * {@link DynamicProxyInvocationHandler} without a second lookup.
+     * If multiple threads invoke a method concurrently for the first time, all get the result that was stored first.
      */
     static class CachingInvocationHandler implements InvocationHandler {
 
         private final InvocationHandler delegate;
-        private final Map<String, Object> results = new HashMap<>();
+        private final DynamicProxyInvocationHandler resolver;
+        private final AnnotationClassMethodTable methodTable;
+        private final AtomicReferenceArray<Object> slots;
+        private final Map<String, Object> otherResults = new ConcurrentHashMap<>();
         private static final Object NULL_OBJECT = new Object();
 
         public CachingInvocationHandler(InvocationHandler delegate) {
+            this(delegate, null);
+        }
+
+        CachingInvocationHandler(InvocationHandler delegate, AnnotationClassMethodTable methodTable) {
             this.delegate = delegate;
+            this.resolver =
+                    delegate instanceof DynamicProxyInvocationHandler ? (DynamicProxyInvocationHandler) delegate : null;
+            this.methodTable = methodTable;
+            this.slots = new AtomicReferenceArray<>(
+                    methodTable != null ? methodTable.getEntries().size() : 0);
         }
 
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-            String key = method.getName();
-            Object result = results.get(key);
-            if (result == null) {
-                result = delegate.invoke(proxy, method, args);
+            // methods from java.lang.Object are never part of the method table
+            AnnotationClassMethodTable.Entry entry = methodTable != null && method.getDeclaringClass() != Object.class
+                    ? methodTable.getOrCreateEntry(method)
+                    : null;
+            Object result;
+            if (entry != null && entry.getIndex() >= 0) {
+                int index = entry.getIndex();
+                result = slots.get(index);
                 if (result == null) {
-                    result = NULL_OBJECT;
+                    result = wrap(invokeDelegate(proxy, method, args, entry));
+                    if (!slots.compareAndSet(index, null, result)) {
+                        result = slots.get(index);
+                    }
+                }
+            } else {
+                // method not declared by the annotation class itself (e.g. from java.lang.Object)
+                String key = method.getName();
+                result = otherResults.get(key);
+                if (result == null) {
+                    result = wrap(invokeDelegate(proxy, method, args, entry));
+                    Object existing = otherResults.putIfAbsent(key, result);
+                    if (existing != null) {
+                        result = existing;
+                    }
                 }
-                results.put(key, result);
             }
             if (result == NULL_OBJECT) {
                 return null;
@@ -182,5 +217,43 @@ final class ConfigurationProxy {
                 return result;
             }
         }
+
+        /**
+         * Reads all property values in one pass and stores them in the cache.
+         * Nested configurations are skipped and resolved on first access.
+         * @param proxy Proxy instance
+         * @throws ConfigurationResolveException if a property value cannot be read
+         */
+        void materialize(Object proxy) {
+            if (methodTable == null) {
+                return;
+            }
+            List<AnnotationClassMethodTable.Entry> entries = methodTable.getEntries();
+            for (AnnotationClassMethodTable.Entry entry : entries) {
+                if (entry.isNested()) {
+                    continue;
+                }
+                try {
+                    invoke(proxy, entry.getMethod(), null);
+                } catch (RuntimeException ex) {
+                    throw ex;
+                } catch (Throwable ex) {
+                    throw new ConfigurationResolveException(
+                            "Unable to read property '" + entry.getPropertyName() + "'.", ex);
+                }
+            }
+        }
+
+        private Object invokeDelegate(
+                Object proxy, Method method, Object[] args, AnnotationClassMethodTable.Entry entry) throws Throwable {
+            if (resolver != null && entry != null) {
+                return resolver.invoke(entry);
+            }
+            return delegate.invoke(proxy, method, args);
+        }
+
+        private static Object wrap(Object result) {
+            return result != null ? result : NULL_OBJECT;
+        }
     }
 }
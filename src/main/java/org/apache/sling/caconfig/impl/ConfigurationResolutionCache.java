@@ -0,0 +1,514 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.SyntheticResource;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.apache.sling.caconfig.resource.impl.util.PathTrie;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * Optional cross-request cache for configuration resolution with two levels:
+ * <ul>
+ * <li>Level 1 maps a content path to the resolved config-root chain (the ordered list of configuration
+ * root paths incl. fallback paths).</li>
+ * <li>Level 2 maps a config-root chain, the bucket names and a configuration name to the merged configuration
+ * properties. All content resources sharing the same config-root chain share these entries.</li>
+ * <li>Level 3 maps the resource paths of the tail of a property inheritance chain and the names of the
+ * property inheritance flag properties to the merged properties of these resources. It is used by the default
+ * inheritance strategy, so configurations of sibling contexts only merge their own level on top of the shared
+ * tail. The entries are scoped to the user of the resource resolver that read the tail.</li>
+ * </ul>
+ * Override providers are applied on top of the cached properties on each access, as they depend on the
+ * content path and not on the config-root chain.
+ * Level 2 is only used while the default configuration resource resolving strategy is the highest ranked one,
+ * as the config-root chains are computed by it.
+ * The cache is disabled by default. It should only be enabled on instances where all configuration resources
+ * are readable by every user, because the cached entries of level 1 and 2 are shared across resource resolvers.
+ * The merged inherited properties of level 3 are only shared between resource resolvers of the same user,
+ * as they are also used for reads via the configuration manager (e.g. by configuration editors), which are
+ * not limited to the resources readable by every user. The config-root chains of level 1 are derived from the context resources
+ * and their configuration references, so all content resources defining a context have to be readable by
+ * every user as well.
+ */
+@Component(service = ConfigurationResolutionCache.class, immediate = true)
+@Designate(ocd = ConfigurationResolutionCache.Config.class)
+public class ConfigurationResolutionCache {
+
+    @ObjectClassDefinition(
+            name = "Apache Sling Context-Aware Configuration Resolution Cache",
+            description = "Caches resolved configuration root chains and configuration properties across requests.")
+    public static @interface Config {
+
+        @AttributeDefinition(
+                name = "Enabled",
+                description = "Enable the resolution cache. "
+                        + "Only use it if all configuration resources and all content resources defining "
+                        + "a context are readable by all users.")
+        boolean enabled() default false;
+
+        @AttributeDefinition(
+                name = "Max. context paths",
+                description = "Maximum number of content paths for which the resolved config-root chain is cached.")
+        int maxContextPathEntries() default 10000;
+
+        @AttributeDefinition(
+                name = "Max. configurations",
+                description = "Maximum number of merged configurations that are cached.")
+        int maxConfigEntries() default 10000;
+
+        @AttributeDefinition(
+                name = "Max. inherited properties",
+                description = "Maximum number of merged property inheritance chain tails that are cached. "
+                        + "They are only shared between resource resolvers of the same user.")
+        int maxInheritedPropertiesEntries() default 10000;
+    }
+
+    private volatile boolean enabled;
+    private volatile PathIndexedLruMap<ContextPathKey, List<String>> configRootChains =
+            new PathIndexedLruMap<>(0, ContextPathKey::getPaths);
+    private volatile PathIndexedLruMap<ConfigKey, CachedConfiguration> configurations =
+            new PathIndexedLruMap<>(0, ConfigKey::getPaths);
+    private volatile PathIndexedLruMap<InheritedPropertiesKey, Map<String, Object>> inheritedProperties =
+            new PathIndexedLruMap<>(0, InheritedPropertiesKey::getPaths);
+
+    @Activate
+    @Modified
+    private void activate(Config config) {
+        this.enabled = config.enabled();
+        this.configRootChains = new PathIndexedLruMap<>(config.maxContextPathEntries(), ContextPathKey::getPaths);
+        this.configurations = new PathIndexedLruMap<>(config.maxConfigEntries(), ConfigKey::getPaths);
+        this.inheritedProperties =
+                new PathIndexedLruMap<>(config.maxInheritedPropertiesEntries(), InheritedPropertiesKey::getPaths);
+    }
+
+    /**
+     * @return true if the cache is enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get cached config-root chain for a content path (level 1).
+     * @param contentPath Content path
+     * @param bucketNames Bucket names
+     * @return Config-root chain or null if not cached
+     */
+    public @Nullable List<String> getConfigRootChain(
+            @NotNull String contentPath, @NotNull Collection<String> bucketNames) {
+        if (!enabled) {
+            return null;
+        }
+        return configRootChains.get(new ContextPathKey(contentPath, bucketNames));
+    }
+
+    /**
+     * Put config-root chain for a content path to the cache (level 1).
+     * @param contentPath Content path
+     * @param bucketNames Bucket names
+     * @param configRootChain Config-root chain
+     */
+    public void putConfigRootChain(
+            @NotNull String contentPath,
+            @NotNull Collection<String> bucketNames,
+            @NotNull List<String> configRootChain) {
+        if (!enabled) {
+            return;
+        }
+        configRootChains.put(
+                new ContextPathKey(contentPath, bucketNames),
+                Collections.unmodifiableList(new ArrayList<>(configRootChain)));
+    }
+
+    /**
+     * Get cached merged configuration (level 2).
+     * @param configRootChain Config-root chain
+     * @param bucketNames Bucket names
+     * @param configName Configuration name
+     * @return Cached configuration or null if not cached
+     */
+    public @Nullable CachedConfiguration getConfiguration(
+            @NotNull List<String> configRootChain,
+            @NotNull Collection<String> bucketNames,
+            @NotNull String configName) {
+        if (!enabled) {
+            return null;
+        }
+        return configurations.get(new ConfigKey(configRootChain, bucketNames, configName));
+    }
+
+    /**
+     * Put merged configuration to the cache (level 2).
+     * @param configRootChain Config-root chain
+     * @param bucketNames Bucket names
+     * @param configName Configuration name
+     * @param configuration Cached configuration
+     */
+    public void putConfiguration(
+            @NotNull List<String> configRootChain,
+            @NotNull Collection<String> bucketNames,
+            @NotNull String configName,
+            @NotNull CachedConfiguration configuration) {
+        if (!enabled) {
+            return;
+        }
+        configurations.put(new ConfigKey(configRootChain, bucketNames, configName), configuration);
+    }
+
+    /**
+     * Get cached merged properties of a property inheritance chain tail (level 3).
+     * @param resourceResolver Resource resolver the resources of the tail were read with
+     * @param resourcePaths Paths of the resources in the inheritance chain tail, in order of inheritance,
+     *     up to the first one that does not inherit properties
+     * @param inheritPropertyNames Names of the properties flagging property inheritance
+     * @return Merged properties or null if not cached
+     */
+    public @Nullable Map<String, Object> getInheritedProperties(
+            @NotNull ResourceResolver resourceResolver,
+            @NotNull List<String> resourcePaths,
+            @NotNull List<String> inheritPropertyNames) {
+        if (!enabled) {
+            return null;
+        }
+        return inheritedProperties.get(
+                new InheritedPropertiesKey(resourceResolver.getUserID(), resourcePaths, inheritPropertyNames));
+    }
+
+    /**
+     * Put merged properties of a property inheritance chain tail to the cache (level 3).
+     * @param resourceResolver Resource resolver the resources of the tail were read with
+     * @param resourcePaths Paths of the resources in the inheritance chain tail, in order of inheritance,
+     *     up to the first one that does not inherit properties
+     * @param inheritPropertyNames Names of the properties flagging property inheritance
+     * @param properties Merged properties
+     * @return Cached properties (unmodifiable)
+     */
+    public @NotNull Map<String, Object> putInheritedProperties(
+            @NotNull ResourceResolver resourceResolver,
+            @NotNull List<String> resourcePaths,
+            @NotNull List<String> inheritPropertyNames,
+            @NotNull Map<String, Object> properties) {
+        Map<String, Object> cachedProperties = Collections.unmodifiableMap(properties);
+        if (enabled) {
+            inheritedProperties.put(
+                    new InheritedPropertiesKey(
+                            resourceResolver.getUserID(), List.copyOf(resourcePaths), inheritPropertyNames),
+                    cachedProperties);
+        }
+        return cachedProperties;
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear() {
+        configRootChains.clear();
+        configurations.clear();
+        inheritedProperties.clear();
+    }
+
+    /**
+     * Removes all config-root chains (level 1) for the given content path and all content paths below it.
+     * @param path Changed content path
+     */
+    public void invalidateContentPath(@NotNull String path) {
+        configRootChains.invalidateDescendantsOrSelf(path);
+    }
+
+    /**
+     * Removes all merged configurations (level 2) and inheritance chain tails (level 3) that are affected by a
+     * change of the given resource path.
+     * A configuration is affected if the changed resource is the configuration resource itself or a
+     * descendant of it, in any of the config roots of its chain and any of the bucket names.
+     * @param path Changed resource path
+     * @param structural true if resources were added or removed - then changes of ancestors of a configuration
+     *     resource affect it as well
+     */
+    public void invalidateConfigurationPath(@NotNull String path, boolean structural) {
+        configurations.invalidateAncestorsOrSelf(path);
+        inheritedProperties.invalidateAncestorsOrSelf(path);
+        if (structural) {
+            configurations.invalidateDescendantsOrSelf(path);
+            inheritedProperties.invalidateDescendantsOrSelf(path);
+        }
+    }
+
+    /**
+     * Merged configuration properties detached from any resource resolver.
+     */
+    public static final class CachedConfiguration {
+
+        private static final CachedConfiguration NOT_FOUND = new CachedConfiguration(null, null);
+
+        private final String path;
+        private final Map<String, Object> properties;
+
+        private CachedConfiguration(String path, Map<String, Object> properties) {
+            this.path = path;
+            this.properties = properties;
+        }
+
+        /**
+         * @param configResource Resolved configuration resource (with inheritance applied) or null
+         * @return Cached configuration
+         */
+        public static @NotNull CachedConfiguration of(@Nullable Resource configResource) {
+            if (configResource == null) {
+                return NOT_FOUND;
+            }
+            return new CachedConfiguration(
+                    configResource.getPath(), Collections.unmodifiableMap(new HashMap<>(configResource.getValueMap())));
+        }
+
+        /**
+         * @return Path of the configuration resource or null if no configuration resource exists
+         */
+        public @Nullable String getPath() {
+            return path;
+        }
+
+        /**
+         * @param resourceResolver Resource resolver of the current request
+         * @return Resource exposing the cached properties, or null if no configuration resource exists
+         */
+        public @Nullable Resource toResource(@NotNull ResourceResolver resourceResolver) {
+            if (path == null) {
+                return null;
+            }
+            return new ConfigurationResourceWrapper(
+                    new SyntheticResource(resourceResolver, path, null), new ValueMapDecorator(properties));
+        }
+    }
+
+    private static final class ContextPathKey {
+
+        private final String contentPath;
+        private final Collection<String> bucketNames;
+
+        ContextPathKey(String contentPath, Collection<String> bucketNames) {
+            this.contentPath = contentPath;
+            this.bucketNames = bucketNames;
+        }
+
+        Collection<String> getPaths() {
+            return List.of(contentPath);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(contentPath, bucketNames);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ContextPathKey)) {
+                return false;
+            }
+            ContextPathKey other = (ContextPathKey) obj;
+            return contentPath.equals(other.contentPath) && bucketNames.equals(other.bucketNames);
+        }
+    }
+
+    private static final class ConfigKey {
+
+        private final List<String> configRootChain;
+        private final Collection<String> bucketNames;
+        private final String configName;
+
+        ConfigKey(List<String> configRootChain, Collection<String> bucketNames, String configName) {
+            this.configRootChain = configRootChain;
+            this.bucketNames = bucketNames;
+            this.configName = configName;
+        }
+
+        /**
+         * @return Configuration resource paths in all config roots of the chain and all bucket names
+         */
+        Collection<String> getPaths() {
+            List<String> paths = new ArrayList<>(configRootChain.size() * bucketNames.size());
+            for (String configRoot : configRootChain) {
+                for (String bucketName : bucketNames) {
+                    paths.add(configRoot + "/" + bucketName + "/" + configName);
+                }
+            }
+            return paths;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(configRootChain, bucketNames, configName);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ConfigKey)) {
+                return false;
+            }
+            ConfigKey other = (ConfigKey) obj;
+            return configName.equals(other.configName)
+                    && configRootChain.equals(other.configRootChain)
+                    && bucketNames.equals(other.bucketNames);
+        }
+    }
+
+    private static final class InheritedPropertiesKey {
+
+        private final String userId;
+        private final List<String> resourcePaths;
+        private final List<String> inheritPropertyNames;
+
+        InheritedPropertiesKey(String userId, List<String> resourcePaths, List<String> inheritPropertyNames) {
+            this.userId = userId;
+            this.resourcePaths = resourcePaths;
+            this.inheritPropertyNames = inheritPropertyNames;
+        }
+
+        Collection<String> getPaths() {
+            return resourcePaths;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, resourcePaths, inheritPropertyNames);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof InheritedPropertiesKey)) {
+                return false;
+            }
+            InheritedPropertiesKey other = (InheritedPropertiesKey) obj;
+            return Objects.equals(userId, other.userId)
+                    && resourcePaths.equals(other.resourcePaths)
+                    && inheritPropertyNames.equals(other.inheritPropertyNames);
+        }
+    }
+
+    /**
+     * LRU map with an index of the resource paths each key depends on, so the entries affected by a change
+     * are found without iterating over all entries.
+     * @param <K> Key type
+     * @param <V> Value type
+     */
+    private static final class PathIndexedLruMap<K, V> {
+
+        private final Function<K, Collection<String>> keyPaths;
+        private final PathTrie<Set<K>> index = new PathTrie<>();
+        private final LinkedHashMap<K, V> entries;
+
+        PathIndexedLruMap(final int maxEntries, final Function<K, Collection<String>> keyPaths) {
+            this.keyPaths = keyPaths;
+            this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    if (size() > maxEntries) {
+                        removeFromIndex(eldest.getKey());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized V get(K key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(K key, V value) {
+            if (entries.put(key, value) == null && entries.containsKey(key)) {
+                for (String path : keyPaths.apply(key)) {
+                    Set<K> keys = index.get(path);
+                    if (keys == null) {
+                        keys = new HashSet<>();
+                        index.put(path, keys);
+                    }
+                    keys.add(key);
+                }
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            index.clear();
+        }
+
+        /**
+         * Removes all entries depending on the given path or any of its ancestors.
+         * @param path Changed path
+         */
+        synchronized void invalidateAncestorsOrSelf(String path) {
+            for (Map.Entry<String, Set<K>> item : index.getAncestorsOrSelf(path)) {
+                remove(item.getValue());
+            }
+        }
+
+        /**
+         * Removes all entries depending on the given path or any of its descendants.
+         * @param path Changed path
+         */
+        synchronized void invalidateDescendantsOrSelf(String path) {
+            for (Set<K> item : index.getDescendantsOrSelf(path)) {
+                remove(item);
+            }
+        }
+
+        private void remove(Set<K> indexedKeys) {
+            for (K key : new ArrayList<>(indexedKeys)) {
+                entries.remove(key);
+                removeFromIndex(key);
+            }
+        }
+
+        private void removeFromIndex(K key) {
+            for (String path : keyPaths.apply(key)) {
+                Set<K> keys = index.get(path);
+                if (keys != null) {
+                    keys.remove(key);
+                    if (keys.isEmpty()) {
+                        index.remove(path);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Hashtable;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChange.ChangeType;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.apache.sling.caconfig.resource.impl.def.DefaultConfigurationResourceResolvingStrategy;
+import org.apache.sling.caconfig.resource.impl.def.DefaultContextPathStrategy;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.apache.sling.caconfig.resource.impl.def.ConfigurationResourceNameConstants.PROPERTY_CONFIG_REF;
+
+/**
+ * Evicts entries from the {@link ConfigurationResolutionCache} on repository changes.
+ * <ul>
+ * <li>Changes below the configuration path and the fallback paths evict only the merged configurations
+ * whose configuration resource path (in any config root of their chain) is affected.</li>
+ * <li>Changes in the content evict the config-root chains of the changed content path and its descendants.
+ * Observation is limited to the configuration reference properties by a property names hint.</li>
+ * </ul>
+ * Shares the configuration of {@link DefaultConfigurationResourceResolvingStrategy} and
+ * {@link DefaultContextPathStrategy} to know which paths and property names to watch.
+ * The component is only active while the {@link ConfigurationResolutionCache} is enabled, so no resource
+ * change listeners are registered when the cache is not used. Enabling or disabling the cache updates its
+ * service properties and thus activates or deactivates this component.
+ */
+@Component(
+        service = {},
+        immediate = true,
+        configurationPid = {
+            "org.apache.sling.caconfig.resource.impl.def.DefaultConfigurationResourceResolvingStrategy",
+            "org.apache.sling.caconfig.resource.impl.def.DefaultContextPathStrategy"
+        })
+public class ConfigurationResolutionCacheInvalidator {
+
+    @Reference(target = "(enabled=true)")
+    private ConfigurationResolutionCache resolutionCache;
+
+    private final List<ServiceRegistration<ResourceChangeListener>> listenerRegistrations = new ArrayList<>();
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigurationResolutionCacheInvalidator.class);
+
+    @Activate
+    private void activate(
+            BundleContext bundleContext,
+            DefaultConfigurationResourceResolvingStrategy.Config resolvingStrategyConfig,
+            DefaultContextPathStrategy.Config contextPathStrategyConfig) {
+
+        // strategy configuration may have changed - all cached config-root chains may be invalid
+        resolutionCache.clear();
+
+        Set<String> configPaths = new LinkedHashSet<>();
+        configPaths.add(resolvingStrategyConfig.configPath());
+        if (!ArrayUtils.isEmpty(resolvingStrategyConfig.fallbackPaths())) {
+            configPaths.addAll(List.of(resolvingStrategyConfig.fallbackPaths()));
+        }
+        registerListener(bundleContext, new ConfigurationChangeListener(), configPaths, null);
+
+        Set<String> configRefPropertyNames = new LinkedHashSet<>();
+        configRefPropertyNames.add(PROPERTY_CONFIG_REF);
+        if (!ArrayUtils.isEmpty(contextPathStrategyConfig.configRefPropertyNames())) {
+            configRefPropertyNames.addAll(List.of(contextPathStrategyConfig.configRefPropertyNames()));
+        }
+        Set<String> configRefResourceNames = new LinkedHashSet<>();
+        if (!ArrayUtils.isEmpty(contextPathStrategyConfig.configRefResourceNames())) {
+            configRefResourceNames.addAll(List.of(contextPathStrategyConfig.configRefResourceNames()));
+        }
+        registerListener(
+                bundleContext, new ContentChangeListener(configRefResourceNames), Set.of("/"), configRefPropertyNames);
+    }
+
+    @Deactivate
+    private void deactivate() {
+        for (ServiceRegistration<ResourceChangeListener> registration : listenerRegistrations) {
+            registration.unregister();
+        }
+        listenerRegistrations.clear();
+    }
+
+    private void registerListener(
+            BundleContext bundleContext,
+            ResourceChangeListener listener,
+            Collection<String> paths,
+            Collection<String> propertyNamesHint) {
+        Hashtable<String, Object> props = new Hashtable<>();
+        props.put(ResourceChangeListener.PATHS, paths.toArray(new String[0]));
+        if (propertyNamesHint != null) {
+            props.put(ResourceChangeListener.PROPERTY_NAMES_HINT, propertyNamesHint.toArray(new String[0]));
+        }
+        listenerRegistrations.add(bundleContext.registerService(ResourceChangeListener.class, listener, props));
+    }
+
+    /**
+     * Evicts merged configurations on changes below configuration and fallback paths.
+     */
+    private class ConfigurationChangeListener implements ResourceChangeListener, ExternalResourceChangeListener {
+
+        @Override
+        public void onChange(@NotNull List<ResourceChange> changes) {
+            if (!resolutionCache.isEnabled()) {
+                return;
+            }
+            for (ResourceChange change : changes) {
+                log.trace("! Invalidate cached configurations for change: {}", change);
+                resolutionCache.invalidateConfigurationPath(change.getPath(), change.getType() != ChangeType.CHANGED);
+            }
+        }
+    }
+
+    /**
+     * Evicts config-root chains on changes of configuration references in content.
+     */
+    private class ContentChangeListener implements ResourceChangeListener, ExternalResourceChangeListener {
+
+        private final Set<String> configRefResourceNames;
+
+        ContentChangeListener(Set<String> configRefResourceNames) {
+            this.configRefResourceNames = configRefResourceNames;
+        }
+
+        @Override
+        public void onChange(@NotNull List<ResourceChange> changes) {
+            if (!resolutionCache.isEnabled()) {
+                return;
+            }
+            for (ResourceChange change : changes) {
+                String path = change.getPath();
+                log.trace("! Invalidate cached config-root chains for change: {}", change);
+                resolutionCache.invalidateContentPath(path);
+                // config reference may be stored in a child resource of the context resource
+                String parentPath = ResourceUtil.getParent(path);
+                if (parentPath != null && configRefResourceNames.contains(ResourceUtil.getName(path))) {
+                    resolutionCache.invalidateContentPath(parentPath);
+                }
+            }
+        }
+    }
+}
@@ -26,16 +26,28 @@ import org.apache.commons.lang3.ArrayUtils;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.caconfig.ConfigurationBuilder;
 import org.apache.sling.caconfig.ConfigurationResolver;
+import org.apache.sling.caconfig.impl.metadata.AnnotationClassMethodTableCache;
+import org.apache.sling.caconfig.impl.metadata.AnnotationClassParser;
+import org.apache.sling.caconfig.impl.resolver.BatchConfigurationBuilder;
+import org.apache.sling.caconfig.impl.resolver.PreparedConfiguration;
+import org.apache.sling.caconfig.impl.resolver.PreparedConfigurationResolver;
 import org.apache.sling.caconfig.management.ConfigurationResourceResolverConfig;
 import org.apache.sling.caconfig.management.multiplexer.ConfigurationInheritanceStrategyMultiplexer;
 import org.apache.sling.caconfig.management.multiplexer.ConfigurationMetadataProviderMultiplexer;
+import org.apache.sling.caconfig.management.multiplexer.ConfigurationMetadataSnapshot;
 import org.apache.sling.caconfig.management.multiplexer.ConfigurationOverrideMultiplexer;
 import org.apache.sling.caconfig.management.multiplexer.ConfigurationPersistenceStrategyMultiplexer;
 import org.apache.sling.caconfig.management.multiplexer.ConfigurationResourceResolvingStrategyMultiplexer;
+import org.apache.sling.caconfig.resource.impl.util.ConfigNameUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.Designate;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
@@ -43,10 +55,15 @@ import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import static org.apache.sling.caconfig.impl.ConfigurationNameConstants.CONFIGS_BUCKET_NAME;
 
 @Component(
-        service = {ConfigurationResolver.class, ConfigurationResourceResolverConfig.class},
+        service = {
+            ConfigurationResolver.class,
+            ConfigurationResourceResolverConfig.class,
+            PreparedConfigurationResolver.class
+        },
         immediate = true)
 @Designate(ocd = ConfigurationResolverImpl.Config.class)
-public class ConfigurationResolverImpl implements ConfigurationResolver, ConfigurationResourceResolverConfig {
+public class ConfigurationResolverImpl
+        implements ConfigurationResolver, ConfigurationResourceResolverConfig, PreparedConfigurationResolver {
 
     @Reference
     private ConfigurationResourceResolvingStrategyMultiplexer configurationResourceResolvingStrategy;
@@ -63,6 +80,12 @@ public class ConfigurationResolverImpl implements ConfigurationResolver, Configu
     @Reference
     private ConfigurationMetadataProviderMultiplexer configurationMetadataProvider;
 
+    @Reference(
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            policyOption = ReferencePolicyOption.GREEDY)
+    private volatile ConfigurationResolutionCache configurationResolutionCache;
+
     @ObjectClassDefinition(
             name = "Apache Sling Context-Aware Configuration Resolver",
             description = "Getting context-aware configurations for a given resource context.")
@@ -76,9 +99,27 @@ public class ConfigurationResolverImpl implements ConfigurationResolver, Configu
                         + "Once a bucket resource with a matching name is found, that bucket is used and the following names are skipped. "
                         + "For writeback via ConfigurationManager always " + CONFIGS_BUCKET_NAME + " is used.")
         String[] configBucketNames();
+
+        @AttributeDefinition(
+                name = "Eager configuration proxies",
+                description = "Read all property values of an annotation class configuration object "
+                        + "at once when it is created, instead of on first access of each property. "
+                        + "Nested configurations are still resolved on first access.")
+        boolean eagerProxies() default false;
+
+        @AttributeDefinition(
+                name = "Resource resolver memo",
+                description = "Remember singleton and collection configurations resolved with a resource resolver "
+                        + "for its lifetime, keyed by content resource path, configuration name and target type. "
+                        + "Changes of configuration resources may not be visible to a resource resolver after it has "
+                        + "read the configuration once. Each caller gets its own copy of a memoized value map.")
+        boolean resolverMemo() default false;
     }
 
     private Collection<String> configBucketNames;
+    private boolean eagerProxies;
+    private boolean resolverMemo;
+    private final AnnotationClassMethodTableCache methodTables = new AnnotationClassMethodTableCache();
 
     @Activate
     private void activate(Config config) {
@@ -87,10 +128,52 @@ public class ConfigurationResolverImpl implements ConfigurationResolver, Configu
         if (!ArrayUtils.isEmpty(config.configBucketNames())) {
             configBucketNames.addAll(Arrays.asList(config.configBucketNames()));
         }
+        eagerProxies = config.eagerProxies();
+        resolverMemo = config.resolverMemo();
+    }
+
+    @Deactivate
+    private void deactivate() {
+        methodTables.clear();
     }
 
     @Override
     public @NotNull ConfigurationBuilder get(@NotNull Resource resource) {
+        return newConfigurationBuilder(resource);
+    }
+
+    @Override
+    public @NotNull BatchConfigurationBuilder batch(@NotNull Resource resource) {
+        return newConfigurationBuilder(resource);
+    }
+
+    private ConfigurationBuilderImpl newConfigurationBuilder(Resource resource) {
+        return new ConfigurationBuilderImpl(
+                resource,
+                this,
+                configurationResourceResolvingStrategy,
+                configurationPersistenceStrategy,
+                configurationInheritanceStrategy,
+                configurationOverrideMultiplexer,
+                configurationMetadataProvider,
+                configBucketNames,
+                configurationResolutionCache,
+                null,
+                null,
+                methodTables,
+                eagerProxies,
+                resolverMemo);
+    }
+
+    /**
+     * Get configuration builder for a configuration name that was already validated by a prepared configuration.
+     * @param resource Content resource
+     * @param preparedLookups Lookups of the prepared configuration, see {@link #getPreparedLookups}
+     * @return Configuration builder
+     */
+    @NotNull
+    ConfigurationBuilder getPrepared(
+            @NotNull Resource resource, @NotNull PreparedConfigurationLookups preparedLookups) {
         return new ConfigurationBuilderImpl(
                 resource,
                 this,
@@ -99,7 +182,47 @@ public class ConfigurationResolverImpl implements ConfigurationResolver, Configu
                 configurationInheritanceStrategy,
                 configurationOverrideMultiplexer,
                 configurationMetadataProvider,
-                configBucketNames);
+                configBucketNames,
+                configurationResolutionCache,
+                preparedLookups.getConfigName(),
+                preparedLookups,
+                methodTables,
+                eagerProxies,
+                resolverMemo);
+    }
+
+    /**
+     * Get resource-independent lookups for a prepared configuration name.
+     * @param configName Valid configuration name
+     * @param current Lookups done before, may be null
+     * @return Given lookups if still valid for the current metadata providers and persistence strategies,
+     *     otherwise new lookups
+     */
+    @NotNull
+    PreparedConfigurationLookups getPreparedLookups(
+            @NotNull String configName, @Nullable PreparedConfigurationLookups current) {
+        ConfigurationMetadataSnapshot metadataSnapshot = configurationMetadataProvider.getSnapshot();
+        if (current != null
+                && current.isValid(
+                        metadataSnapshot.getGeneration(), configurationPersistenceStrategy.getGeneration())) {
+            return current;
+        }
+        return new PreparedConfigurationLookups(configName, metadataSnapshot, configurationPersistenceStrategy);
+    }
+
+    @Override
+    public @NotNull <T> PreparedConfiguration<T> prepare(@NotNull Class<T> clazz) {
+        String configName = AnnotationClassParser.getConfigurationName(clazz);
+        if (configName == null) {
+            throw new IllegalArgumentException("Class has no @Configuration annotation: " + clazz.getName());
+        }
+        return prepare(configName, clazz);
+    }
+
+    @Override
+    public @NotNull <T> PreparedConfiguration<T> prepare(@NotNull String configName, @NotNull Class<T> clazz) {
+        ConfigNameUtil.ensureValidConfigName(configName);
+        return new PreparedConfigurationImpl<>(this, configName, clazz);
     }
 
     @Override
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.caconfig.ConfigurationBuilder;
+import org.apache.sling.caconfig.impl.resolver.PreparedConfiguration;
+import org.apache.sling.caconfig.resource.impl.util.ResolveScope;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Prepared configuration handle. Configuration name derivation and validation and the choice of the
+ * conversion are done once on construction. Metadata default values and collection parent config names are
+ * looked up once and reused until the metadata providers or persistence strategies change. Resolving,
+ * inheritance and overrides depend on the content resource and are done per call.
+ * @param <T> Target type
+ */
+final class PreparedConfigurationImpl<T> implements PreparedConfiguration<T> {
+
+    private enum TargetType {
+        ANNOTATION,
+        VALUE_MAP,
+        ADAPTABLE
+    }
+
+    private final ConfigurationResolverImpl configurationResolver;
+    private final String configName;
+    private final Class<T> clazz;
+    private final TargetType targetType;
+    private volatile PreparedConfigurationLookups lookups;
+
+    PreparedConfigurationImpl(ConfigurationResolverImpl configurationResolver, String configName, Class<T> clazz) {
+        this.configurationResolver = configurationResolver;
+        this.configName = configName;
+        this.clazz = clazz;
+        if (clazz == ValueMap.class) {
+            this.targetType = TargetType.VALUE_MAP;
+        } else if (clazz.isAnnotation()) {
+            this.targetType = TargetType.ANNOTATION;
+        } else {
+            this.targetType = TargetType.ADAPTABLE;
+        }
+    }
+
+    @Override
+    public @NotNull String getName() {
+        return configName;
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "null"})
+    public @NotNull T get(@NotNull Resource resource) {
+        ConfigurationBuilder builder = getConfigurationBuilder(resource);
+        switch (targetType) {
+            case VALUE_MAP:
+                return (T) builder.asValueMap();
+            case ANNOTATION:
+                return builder.as(clazz);
+            default:
+                return builder.asAdaptable(clazz);
+        }
+    }
+
+    @Override
+    public void getAll(@NotNull Iterator<? extends Resource> resources, @NotNull BiConsumer<Resource, T> consumer) {
+        try (ResolveScope scope = ResolveScope.open()) {
+            while (resources.hasNext()) {
+                Resource resource = resources.next();
+                consumer.accept(resource, get(resource));
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public @NotNull Collection<T> getCollection(@NotNull Resource resource) {
+        ConfigurationBuilder builder = getConfigurationBuilder(resource);
+        switch (targetType) {
+            case VALUE_MAP:
+                return (Collection<T>) builder.asValueMapCollection();
+            case ANNOTATION:
+                return builder.asCollection(clazz);
+            default:
+                return builder.asAdaptableCollection(clazz);
+        }
+    }
+
+    @Override
+    public boolean has(@NotNull Resource resource) {
+        return getConfigurationBuilder(resource).has(configName);
+    }
+
+    private ConfigurationBuilder getConfigurationBuilder(Resource resource) {
+        PreparedConfigurationLookups current = configurationResolver.getPreparedLookups(configName, lookups);
+        lookups = current;
+        return configurationResolver.getPrepared(resource, current);
+    }
+
+    @Override
+    public String toString() {
+        return "PreparedConfiguration[" + configName + "," + clazz.getName() + "]";
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Strings;
+import org.apache.sling.caconfig.management.multiplexer.ConfigurationMetadataSnapshot;
+import org.apache.sling.caconfig.management.multiplexer.ConfigurationPersistenceStrategyMultiplexer;
+import org.apache.sling.caconfig.spi.metadata.ConfigurationMetadata;
+import org.apache.sling.caconfig.spi.metadata.PropertyMetadata;
+
+/**
+ * Lookups of a prepared configuration name that do not depend on the content resource: the collection parent
+ * configuration names of the persistence strategies and the default values of the configuration metadata.
+ * Instances are immutable and valid as long as the metadata snapshot and persistence strategy generations they
+ * were built for are current. Each configuration name is looked up only once in the metadata snapshot.
+ */
+final class PreparedConfigurationLookups {
+
+    private final String configName;
+    private final long metadataGeneration;
+    private final long persistenceGeneration;
+    private final Collection<String> collectionParentConfigNames;
+    private final Optional<Map<String, Object>> defaultValues;
+    private final Map<String, Optional<Map<String, Object>>> collectionItemDefaultValues;
+
+    PreparedConfigurationLookups(
+            String configName,
+            ConfigurationMetadataSnapshot metadataSnapshot,
+            ConfigurationPersistenceStrategyMultiplexer persistenceStrategy) {
+        this.configName = configName;
+        this.metadataGeneration = metadataSnapshot.getGeneration();
+        this.persistenceGeneration = persistenceStrategy.getGeneration();
+        this.collectionParentConfigNames =
+                List.copyOf(persistenceStrategy.getAllCollectionParentConfigNames(configName));
+
+        Map<String, ConfigurationMetadata> metadataByName = new HashMap<>();
+        ConfigurationMetadata metadata = getConfigurationMetadata(metadataSnapshot, metadataByName, configName);
+        if (metadata == null && Strings.CS.contains(configName, "/")) {
+            // probably a configuration list - remove item name from end
+            metadata = getConfigurationMetadata(
+                    metadataSnapshot, metadataByName, StringUtils.substringBeforeLast(configName, "/"));
+        }
+        this.defaultValues = Optional.ofNullable(extractDefaultValues(metadata));
+
+        // collection item names are built from the collection parent config name and the item resource name
+        Map<String, Optional<Map<String, Object>>> itemDefaultValues = new HashMap<>();
+        for (String collectionParentConfigName : collectionParentConfigNames) {
+            itemDefaultValues.put(
+                    collectionParentConfigName,
+                    Optional.ofNullable(extractDefaultValues(
+                            getConfigurationMetadata(metadataSnapshot, metadataByName, collectionParentConfigName))));
+        }
+        this.collectionItemDefaultValues = Map.copyOf(itemDefaultValues);
+    }
+
+    private static ConfigurationMetadata getConfigurationMetadata(
+            ConfigurationMetadataSnapshot metadataSnapshot,
+            Map<String, ConfigurationMetadata> metadataByName,
+            String configName) {
+        if (metadataByName.containsKey(configName)) {
+            return metadataByName.get(configName);
+        }
+        ConfigurationMetadata metadata = metadataSnapshot.getConfigurationMetadata(configName);
+        metadataByName.put(configName, metadata);
+        return metadata;
+    }
+
+    private static Map<String, Object> extractDefaultValues(ConfigurationMetadata metadata) {
+        if (metadata == null) {
+            return null;
+        }
+        Map<String, Object> result = new HashMap<>();
+        for (PropertyMetadata<?> item : metadata.getPropertyMetadata().values()) {
+            if (item.getDefaultValue() != null) {
+                result.put(item.getName(), item.getDefaultValue());
+            }
+        }
+        return result.isEmpty() ? null : Map.copyOf(result);
+    }
+
+    /**
+     * @param metadataGeneration Generation of the current metadata snapshot
+     * @param persistenceGeneration Generation of the current persistence strategies
+     * @return true if the lookups were built for the given generations
+     */
+    boolean isValid(long metadataGeneration, long persistenceGeneration) {
+        return this.metadataGeneration == metadataGeneration && this.persistenceGeneration == persistenceGeneration;
+    }
+
+    String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * @return All collection parent config names of the prepared configuration name
+     */
+    Collection<String> getCollectionParentConfigNames() {
+        return collectionParentConfigNames;
+    }
+
+    /**
+     * @return Default values of the prepared configuration name, null if there are none
+     */
+    Map<String, Object> getDefaultValues() {
+        return defaultValues.orElse(null);
+    }
+
+    /**
+     * Get default values for a collection item without metadata of its own.
+     * @param collectionParentConfigName Collection parent config name of the item
+     * @return Default values, empty if there are none, or null if the collection parent config name does not
+     *     belong to the prepared configuration name
+     */
+    Optional<Map<String, Object>> getCollectionItemDefaultValues(String collectionParentConfigName) {
+        return collectionItemDefaultValues.get(collectionParentConfigName);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.apache.sling.api.resource.ResourceResolver;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Memo of configuration lookup results stored in the property map of a resource resolver, so it lives as long as
+ * the resource resolver (usually one request) and respects its access rights. Changes of configuration resources
+ * done within the lifetime of the resource resolver may not be reflected.
+ * The memo is cleared when it reaches {@value #MAX_ENTRIES} entries.
+ */
+final class ResolutionMemo {
+
+    static final int MAX_ENTRIES = 1000;
+
+    private static final String PROPERTY_NAME = ResolutionMemo.class.getName();
+
+    private final Map<List<Object>, Object> entries = new HashMap<>();
+
+    private ResolutionMemo() {
+        // use get()
+    }
+
+    /**
+     * @param resourceResolver Resource resolver
+     * @return Memo attached to the given resource resolver
+     */
+    static @NotNull ResolutionMemo get(@NotNull ResourceResolver resourceResolver) {
+        Map<String, Object> propertyMap = resourceResolver.getPropertyMap();
+        Object memo = propertyMap.get(PROPERTY_NAME);
+        if (memo instanceof ResolutionMemo) {
+            return (ResolutionMemo) memo;
+        }
+        ResolutionMemo newMemo = new ResolutionMemo();
+        propertyMap.put(PROPERTY_NAME, newMemo);
+        return newMemo;
+    }
+
+    /**
+     * Get value for the given key, computing it if not present.
+     * @param key Key
+     * @param supplier Computes the value, may use the memo itself
+     * @param <T> Value type
+     * @return Value, not null
+     */
+    @SuppressWarnings("unchecked")
+    synchronized @NotNull <T> T get(@NotNull List<Object> key, @NotNull Supplier<T> supplier) {
+        T value = (T) entries.get(key);
+        if (value == null) {
+            value = supplier.get();
+            if (entries.size() >= MAX_ENTRIES) {
+                entries.clear();
+            }
+            entries.put(key, value);
+        }
+        return value;
+    }
+}
@@ -18,18 +18,28 @@
  */
 package org.apache.sling.caconfig.impl.def;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import org.apache.sling.api.resource.Resource;
-import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.caconfig.impl.ConfigurationResolutionCache;
 import org.apache.sling.caconfig.impl.ConfigurationResourceWrapper;
+import org.apache.sling.caconfig.resource.impl.util.LayeredValueMap;
 import org.apache.sling.caconfig.resource.impl.util.PropertyUtil;
 import org.apache.sling.caconfig.spi.ConfigurationInheritanceStrategy;
 import org.jetbrains.annotations.NotNull;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.Designate;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
@@ -58,15 +68,38 @@ public class DefaultConfigurationInheritanceStrategy implements ConfigurationInh
                                 + "always starting with " + PROPERTY_CONFIG_PROPERTY_INHERIT
                                 + ". Once a property with a value is found, that value is used and the following property names are skipped.")
         String[] configPropertyInheritancePropertyNames();
+
+        @AttributeDefinition(
+                name = "Lazy property inheritance",
+                description = "Read the inherited configuration resources only when a property is not found "
+                        + "in the configuration resources read before, instead of merging the properties "
+                        + "of the whole inheritance chain up front. The inherited resources are then read through "
+                        + "the resource resolver of the content resource when a property is accessed, so configuration "
+                        + "objects and value maps must not be used after this resource resolver is closed. "
+                        + "Disabled by default.")
+        boolean lazyPropertyInheritance() default false;
     }
 
+    @Reference(
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            policyOption = ReferencePolicyOption.GREEDY)
+    private volatile ConfigurationResolutionCache resolutionCache;
+
     private Config config;
+    private List<String> inheritPropertyNames;
 
     private static final Logger log = LoggerFactory.getLogger(DefaultConfigurationInheritanceStrategy.class);
 
     @Activate
     private void activate(final Config config) {
         this.config = config;
+        List<String> names = new ArrayList<>();
+        names.add(PROPERTY_CONFIG_PROPERTY_INHERIT);
+        if (config.configPropertyInheritancePropertyNames() != null) {
+            names.addAll(List.of(config.configPropertyInheritancePropertyNames()));
+        }
+        this.inheritPropertyNames = List.copyOf(names);
     }
 
     @Override
@@ -78,33 +111,121 @@ public class DefaultConfigurationInheritanceStrategy implements ConfigurationInh
             return null;
         }
         Resource primary = configResources.next();
-        if (!isPropertyInheritance(primary) || !configResources.hasNext()) {
+        ValueMap primaryProps = primary.getValueMap();
+        if (!isPropertyInheritance(primaryProps) || !configResources.hasNext()) {
             return primary;
         }
-        Map<String, Object> mergedProps = getInheritedProperties(primary.getValueMap(), configResources);
-        return new ConfigurationResourceWrapper(primary, new ValueMapDecorator(mergedProps));
+        if (config.lazyPropertyInheritance()) {
+            return new ConfigurationResourceWrapper(
+                    primary,
+                    LayeredValueMap.of(List.of(primaryProps), new InheritedPropertiesIterator(configResources)));
+        }
+        final ConfigurationResolutionCache cache = this.resolutionCache;
+        if (cache != null && cache.isEnabled()) {
+            return new ConfigurationResourceWrapper(
+                    primary,
+                    LayeredValueMap.of(List.of(
+                            primaryProps,
+                            getCachedInheritedProperties(cache, primary.getResourceResolver(), configResources))));
+        }
+        List<ValueMap> layers = new ArrayList<>();
+        layers.add(primaryProps);
+        addInheritedProperties(layers, configResources);
+        return new ConfigurationResourceWrapper(primary, LayeredValueMap.of(layers));
     }
 
-    private boolean isPropertyInheritance(Resource resource) {
+    private boolean isPropertyInheritance(ValueMap props) {
         return PropertyUtil.getBooleanValueAdditionalKeys(
-                resource.getValueMap(),
-                PROPERTY_CONFIG_PROPERTY_INHERIT,
-                config.configPropertyInheritancePropertyNames());
+                props, PROPERTY_CONFIG_PROPERTY_INHERIT, config.configPropertyInheritancePropertyNames());
     }
 
-    private Map<String, Object> getInheritedProperties(
-            Map<String, Object> parentProps, Iterator<Resource> inheritanceChain) {
-        if (!inheritanceChain.hasNext()) {
-            return parentProps;
+    /**
+     * Get the merged properties of all inherited resources, sharing the merged properties of each tail
+     * of the inheritance chain with other configurations via the resolution cache.
+     * The chain is walked only up to the first resource that does not inherit properties itself, and the cache
+     * is keyed by the paths of these resources, the inheritance flag property names and the user of the
+     * resource resolver, so the merged properties are only shared between resource resolvers of the same user.
+     */
+    private Map<String, Object> getCachedInheritedProperties(
+            ConfigurationResolutionCache cache,
+            ResourceResolver resourceResolver,
+            Iterator<Resource> inheritanceChain) {
+        List<ValueMap> layers = new ArrayList<>();
+        List<String> resourcePaths = new ArrayList<>();
+        while (inheritanceChain.hasNext()) {
+            Resource next = inheritanceChain.next();
+            ValueMap props = next.getValueMap();
+            layers.add(props);
+            resourcePaths.add(next.getPath());
+            if (!isPropertyInheritance(props)) {
+                break;
+            }
         }
-        Resource next = inheritanceChain.next();
-        log.trace("! Property inheritance: Merge with properties from {}", next.getPath());
-        Map<String, Object> merged = new HashMap<>(next.getValueMap());
-        merged.putAll(parentProps);
-        if (isPropertyInheritance(next)) {
-            return getInheritedProperties(merged, inheritanceChain);
-        } else {
-            return merged;
+        return getCachedInheritedProperties(cache, resourceResolver, layers, resourcePaths, 0);
+    }
+
+    private Map<String, Object> getCachedInheritedProperties(
+            ConfigurationResolutionCache cache,
+            ResourceResolver resourceResolver,
+            List<ValueMap> layers,
+            List<String> resourcePaths,
+            int index) {
+        List<String> tailPaths = resourcePaths.subList(index, resourcePaths.size());
+        Map<String, Object> cached = cache.getInheritedProperties(resourceResolver, tailPaths, inheritPropertyNames);
+        if (cached != null) {
+            log.trace("! Property inheritance: Use cached properties from {}", tailPaths);
+            return cached;
+        }
+        Map<String, Object> merged = new HashMap<>();
+        if (index + 1 < layers.size()) {
+            merged.putAll(getCachedInheritedProperties(cache, resourceResolver, layers, resourcePaths, index + 1));
+        }
+        log.trace("! Property inheritance: Merge with properties from {}", resourcePaths.get(index));
+        merged.putAll(layers.get(index));
+        return cache.putInheritedProperties(resourceResolver, tailPaths, inheritPropertyNames, merged);
+    }
+
+    private void addInheritedProperties(List<ValueMap> layers, Iterator<Resource> inheritanceChain) {
+        while (inheritanceChain.hasNext()) {
+            Resource next = inheritanceChain.next();
+            log.trace("! Property inheritance: Merge with properties from {}", next.getPath());
+            ValueMap props = next.getValueMap();
+            layers.add(props);
+            if (!isPropertyInheritance(props)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Iterates the properties of the inherited configuration resources, up to the first one
+     * that does not inherit properties itself. The next resource is fetched only on demand,
+     * through the resource resolver the configuration resources were resolved with.
+     */
+    private class InheritedPropertiesIterator implements Iterator<ValueMap> {
+
+        private final Iterator<Resource> inheritanceChain;
+        private boolean inherit = true;
+
+        InheritedPropertiesIterator(Iterator<Resource> inheritanceChain) {
+            this.inheritanceChain = inheritanceChain;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return inherit && inheritanceChain.hasNext();
+        }
+
+        @Override
+        public ValueMap next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Resource next = inheritanceChain.next();
+            log.trace("! Property inheritance: Fetch properties from {}", next.getPath());
+            ValueMap props = next.getValueMap();
+            inherit = isPropertyInheritance(props);
+            return props;
         }
     }
 }
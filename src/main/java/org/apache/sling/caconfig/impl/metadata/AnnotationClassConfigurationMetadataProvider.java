@@ -18,10 +18,20 @@
  */
 package org.apache.sling.caconfig.impl.metadata;
 
+import java.io.File;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.sling.caconfig.spi.ConfigurationMetadataProvider;
 import org.apache.sling.caconfig.spi.metadata.ConfigurationMetadata;
@@ -31,6 +41,9 @@ import org.osgi.framework.BundleContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import org.osgi.util.tracker.BundleTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,16 +52,69 @@ import org.slf4j.LoggerFactory;
  * Detects configuration annotation classes deployed by any bundle via OSGi extender pattern.
  */
 @Component(immediate = true, service = ConfigurationMetadataProvider.class)
-public class AnnotationClassConfigurationMetadataProvider implements ConfigurationMetadataProvider {
+@Designate(ocd = AnnotationClassConfigurationMetadataProvider.Config.class)
+public class AnnotationClassConfigurationMetadataProvider
+        implements ConfigurationMetadataProvider, ConfigurationMetadataChangeNotifier {
 
+    @ObjectClassDefinition(
+            name = "Apache Sling Context-Aware Configuration Annotation Class Metadata Provider",
+            description = "Detects configuration annotation classes deployed by bundles.")
+    public static @interface Config {
+
+        @AttributeDefinition(
+                name = "Background warm-up",
+                description = "Parse the configuration classes of newly detected bundles in the background, "
+                        + "instead of on first access.")
+        boolean warmUp() default false;
+
+        @AttributeDefinition(
+                name = "Warm-up parallelism",
+                description = "Maximum number of threads parsing configuration classes in the background.")
+        int warmUpParallelism() default 2;
+
+        @AttributeDefinition(
+                name = "Persist metadata",
+                description = "Store the parsed configuration metadata in the bundle data area "
+                        + "to skip parsing the configuration classes after a restart.")
+        boolean persistMetadata() default false;
+    }
+
+    private ExecutorService warmUpPool;
     private BundleTracker<BundleConfigurationMapping> bundleTracker;
     private ConcurrentSkipListMap<Bundle, BundleConfigurationMapping> bundleMappings = new ConcurrentSkipListMap<>();
+    private volatile ConfigurationNameIndex nameIndex;
+    private final AtomicLong generation = new AtomicLong();
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
 
     private static final Logger log = LoggerFactory.getLogger(AnnotationClassConfigurationMetadataProvider.class);
 
     @Activate
-    private void activate(BundleContext bundleContext) {
-        ConfigClassBundleTackerCustomizer bundlerTrackerCustomizer = new ConfigClassBundleTackerCustomizer(this);
+    private void activate(BundleContext bundleContext, Config config) {
+        ConfigurationMetadataStore metadataStore = null;
+        if (config.persistMetadata()) {
+            File directory = bundleContext.getDataFile("metadata");
+            if (directory != null) {
+                Bundle implBundle = bundleContext.getBundle();
+                metadataStore = new ConfigurationMetadataStore(
+                        directory, implBundle.getVersion() + "-" + implBundle.getLastModified());
+                metadataStore.cleanUp(bundleContext);
+            } else {
+                log.warn("No bundle data area available - configuration metadata is not persisted.");
+            }
+        }
+        if (config.warmUp()) {
+            warmUpPool = new ForkJoinPool(
+                    Math.max(1, config.warmUpParallelism()),
+                    pool -> {
+                        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                        thread.setName("Sling CA Config Metadata Warm-Up " + thread.getPoolIndex());
+                        return thread;
+                    },
+                    null,
+                    false);
+        }
+        ConfigClassBundleTackerCustomizer bundlerTrackerCustomizer =
+                new ConfigClassBundleTackerCustomizer(this, metadataStore);
         bundleTracker =
                 new BundleTracker<BundleConfigurationMapping>(bundleContext, Bundle.ACTIVE, bundlerTrackerCustomizer);
         bundleTracker.open();
@@ -56,17 +122,27 @@ public class AnnotationClassConfigurationMetadataProvider implements Configurati
 
     @Deactivate
     private void deactivate() {
+        if (warmUpPool != null) {
+            warmUpPool.shutdownNow();
+            warmUpPool = null;
+        }
         bundleTracker.close();
         bundleTracker = null;
     }
 
     @Override
     public @NotNull SortedSet<String> getConfigurationNames() {
-        SortedSet<String> allConfigNames = new TreeSet<String>();
-        for (BundleConfigurationMapping bundleMapping : bundleMappings.values()) {
-            allConfigNames.addAll(bundleMapping.getConfigurationNames());
-        }
-        return Collections.unmodifiableSortedSet(allConfigNames);
+        return getNameIndex().configNames;
+    }
+
+    @Override
+    public void addChangeListener(@NotNull Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    @Override
+    public void removeChangeListener(@NotNull Runnable listener) {
+        changeListeners.remove(listener);
     }
 
     @Override
@@ -81,45 +157,125 @@ public class AnnotationClassConfigurationMetadataProvider implements Configurati
 
     /**
      * Get configuration mapping for given config name.
+     * @param configName Configuration name
+     * @return Configuration mapping or null if none found
+     */
+    ConfigurationMapping getConfigurationMapping(String configName) {
+        return getNameIndex().configMappings.get(configName);
+    }
+
+    /**
+     * Get index of all configuration names. The index is rebuilt on first access after bundle mappings
+     * were added or removed.
+     * @return Configuration name index
+     */
+    private ConfigurationNameIndex getNameIndex() {
+        ConfigurationNameIndex index = nameIndex;
+        if (index == null) {
+            index = buildNameIndex();
+        }
+        return index;
+    }
+
+    /**
+     * Builds the configuration name index from all bundle mappings.
      * On the way check for config name mapping conflicts accross bundles and log a warning if found.
      * Is difficult to do this beforehand due to the lazy initialization of the bundle config mappings and the
      * dynamic behavior of coming and going bundles with configuration classes.
-     * @param configName Configuration name
-     * @return Configuration mapping or null if none found
+     * @return Configuration name index
      */
     @SuppressWarnings("null")
-    ConfigurationMapping getConfigurationMapping(String configName) {
-        ConfigurationMapping matchingConfigMapping = null;
-        BundleConfigurationMapping matchingBundleMapping = null;
+    private synchronized ConfigurationNameIndex buildNameIndex() {
+        ConfigurationNameIndex index = nameIndex;
+        if (index != null) {
+            return index;
+        }
+        long currentGeneration = generation.get();
+        Map<String, ConfigurationMapping> configMappings = new HashMap<>();
+        Map<String, BundleConfigurationMapping> configBundleMappings = new HashMap<>();
         for (BundleConfigurationMapping bundleMapping : bundleMappings.values()) {
-            ConfigurationMapping configMapping = bundleMapping.getConfigurationMapping(configName);
-            if (configMapping != null) {
+            for (String configName : bundleMapping.getConfigurationNames()) {
+                ConfigurationMapping configMapping = bundleMapping.getConfigurationMapping(configName);
+                ConfigurationMapping matchingConfigMapping = configMappings.get(configName);
                 if (matchingConfigMapping == null) {
-                    matchingConfigMapping = configMapping;
-                    matchingBundleMapping = bundleMapping;
+                    configMappings.put(configName, configMapping);
+                    configBundleMappings.put(configName, bundleMapping);
                 } else {
                     // conflict in name mapping across bundles found
                     log.warn(
                             "Configuration name conflict: Both configuration classes {} (Bundle {}) "
                                     + "and {} (Bundle {}) define the configuration name '{}', ignoring the latter.",
-                            matchingConfigMapping.getConfigClass().getName(),
-                            matchingBundleMapping.getBundle().getSymbolicName(),
-                            configMapping.getConfigClass().getName(),
+                            matchingConfigMapping.getConfigClassName(),
+                            configBundleMappings.get(configName).getBundle().getSymbolicName(),
+                            configMapping.getConfigClassName(),
                             bundleMapping.getBundle().getSymbolicName(),
                             configName);
                 }
             }
         }
-        return matchingConfigMapping;
+        index = new ConfigurationNameIndex(configMappings);
+        // do not store index if bundle mappings changed in the meantime
+        synchronized (generation) {
+            if (generation.get() == currentGeneration) {
+                nameIndex = index;
+            }
+        }
+        return index;
     }
 
     void addBundeMapping(BundleConfigurationMapping bundleMapping) {
         log.debug("Add bundle mapping: {}", bundleMapping);
         bundleMappings.put(bundleMapping.getBundle(), bundleMapping);
+        invalidateNameIndex();
+        scheduleWarmUp(bundleMapping);
+    }
+
+    private void scheduleWarmUp(BundleConfigurationMapping bundleMapping) {
+        ExecutorService pool = warmUpPool;
+        if (pool == null) {
+            return;
+        }
+        try {
+            pool.execute(() -> {
+                try {
+                    bundleMapping.warmUp();
+                } catch (RuntimeException ex) {
+                    // bundle may have been stopped in the meantime - parse again on first access
+                    log.debug("Unable to warm up configuration metadata: {}", bundleMapping, ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            log.debug("Skip warm up of configuration metadata, provider is deactivated: {}", bundleMapping);
+        }
     }
 
     void removeBundleMapping(BundleConfigurationMapping bundleMapping) {
         log.debug("Remove bundle mapping: {}", bundleMapping);
         bundleMappings.remove(bundleMapping.getBundle());
+        invalidateNameIndex();
+    }
+
+    private void invalidateNameIndex() {
+        synchronized (generation) {
+            generation.incrementAndGet();
+            nameIndex = null;
+        }
+        for (Runnable changeListener : changeListeners) {
+            changeListener.run();
+        }
+    }
+
+    /**
+     * Immutable index of configuration names to the configuration mappings of all bundles.
+     */
+    private static final class ConfigurationNameIndex {
+
+        private final Map<String, ConfigurationMapping> configMappings;
+        private final SortedSet<String> configNames;
+
+        ConfigurationNameIndex(Map<String, ConfigurationMapping> configMappings) {
+            this.configMappings = configMappings;
+            this.configNames = Collections.unmodifiableSortedSet(new TreeSet<>(configMappings.keySet()));
+        }
     }
 }
@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl.metadata;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.caconfig.ConfigurationResolveException;
+import org.apache.sling.caconfig.spi.metadata.PropertyMetadata;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Table of the methods of an annotation class with all information derived from the method signature:
+ * property name, return type, component type, nested configuration flag and default value.
+ * Each entry also acts as compiled property accessor: type validation and the default value applied when reading
+ * are computed once, so reading a configuration property via the proxy only needs a value map access.
+ * Configuration proxies get the tables from an {@link AnnotationClassMethodTableCache},
+ * metadata parsing builds a table only for the time of parsing.
+ */
+public final class AnnotationClassMethodTable {
+
+    private final Class<?> clazz;
+    private final List<Entry> entries;
+    private final Map<String, Entry> entriesByMethodName;
+    private final int maxEntriesByMethod;
+
+    // copy-on-write identity map of method instances seen so far, e.g. the ones passed to proxy invocation handlers
+    private volatile Map<Method, Entry> entriesByMethod;
+
+    /**
+     * @param clazz Annotation class
+     */
+    AnnotationClassMethodTable(@NotNull Class<?> clazz) {
+        Method[] methods = clazz.getDeclaredMethods();
+        List<Entry> entryList = new ArrayList<>(methods.length);
+        Map<String, Entry> entryMap = new HashMap<>(methods.length * 2);
+        for (Method method : methods) {
+            Entry entry = new Entry(method, entryList.size());
+            entryList.add(entry);
+            entryMap.put(method.getName(), entry);
+        }
+        this.clazz = clazz;
+        this.entries = Collections.unmodifiableList(entryList);
+        this.entriesByMethodName = entryMap;
+        Map<Method, Entry> methodMap = new IdentityHashMap<>(methods.length * 2);
+        for (Entry entry : entryList) {
+            methodMap.put(entry.getMethod(), entry);
+        }
+        this.entriesByMethod = methodMap;
+        // bounds the map if callers pass a new method instance on each call
+        this.maxEntriesByMethod = methods.length * 4 + 16;
+    }
+
+    /**
+     * @return Entries for all methods declared by the annotation class
+     */
+    public @NotNull List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @param methodName Method name
+     * @return Entry for the method declared with this name, or null if not declared by the annotation class
+     */
+    public @Nullable Entry getEntry(@NotNull String methodName) {
+        return entriesByMethodName.get(methodName);
+    }
+
+    /**
+     * Get entry for the given method. Method instances are looked up by identity, so repeated calls with the
+     * same instance (e.g. the method instances a proxy class passes to its invocation handler) need no name lookup.
+     * @param method Method
+     * @return Entry for the method if declared by the annotation class, or an entry for other methods
+     *         (e.g. from java.lang.Object) with index -1
+     */
+    public @NotNull Entry getOrCreateEntry(@NotNull Method method) {
+        Entry entry = entriesByMethod.get(method);
+        if (entry == null) {
+            entry = method.getDeclaringClass() == clazz ? entriesByMethodName.get(method.getName()) : null;
+            if (entry == null) {
+                entry = new Entry(method, -1);
+            }
+            addEntryByMethod(method, entry);
+        }
+        return entry;
+    }
+
+    private synchronized void addEntryByMethod(Method method, Entry entry) {
+        Map<Method, Entry> current = entriesByMethod;
+        if (current.size() < maxEntriesByMethod && !current.containsKey(method)) {
+            Map<Method, Entry> copy = new IdentityHashMap<>(current);
+            copy.put(method, entry);
+            entriesByMethod = copy;
+        }
+    }
+
+    /**
+     * Information derived from a single annotation class method, and accessor for the property mapped to it.
+     */
+    public static final class Entry {
+
+        private final Method method;
+        private final int index;
+        private final String propertyName;
+        private final Class<?> returnType;
+        private final Class<?> componentType;
+        private final boolean array;
+        private final boolean nested;
+        private final Object defaultValue;
+        private final boolean validType;
+        private final Object readDefaultValue;
+
+        Entry(Method method, int index) {
+            this.method = method;
+            this.index = index;
+            this.propertyName = AnnotationClassParser.getPropertyName(method.getName());
+            this.returnType = method.getReturnType();
+            this.array = returnType.isArray();
+            this.componentType = array ? returnType.getComponentType() : returnType;
+            this.nested = componentType.isAnnotation();
+            this.defaultValue = method.getDefaultValue();
+            this.validType = nested || PropertyMetadata.SUPPORTED_TYPES.contains(componentType);
+            this.readDefaultValue = validType && !nested ? buildReadDefaultValue() : null;
+        }
+
+        private Object buildReadDefaultValue() {
+            if (defaultValue == null) {
+                if (array) {
+                    return Array.newInstance(componentType, 0);
+                } else if (returnType.isPrimitive()) {
+                    // get default value for primitive data type (use hack via array)
+                    return Array.get(Array.newInstance(returnType, 1), 0);
+                }
+                return null;
+            } else if (array) {
+                // keep a private copy of the default array shared via metadata
+                return cloneArray(defaultValue);
+            }
+            return defaultValue;
+        }
+
+        /**
+         * @return Method
+         */
+        public @NotNull Method getMethod() {
+            return method;
+        }
+
+        /**
+         * @return Position of the entry in {@link AnnotationClassMethodTable#getEntries()},
+         *         or -1 if the method is not declared by the annotation class
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return Property name mapped from method name
+         */
+        public @NotNull String getPropertyName() {
+            return propertyName;
+        }
+
+        /**
+         * @return Return type of method
+         */
+        public @NotNull Class<?> getReturnType() {
+            return returnType;
+        }
+
+        /**
+         * @return Return type, or component type for arrays
+         */
+        public @NotNull Class<?> getComponentType() {
+            return componentType;
+        }
+
+        /**
+         * @return true if the return type is an array
+         */
+        public boolean isArray() {
+            return array;
+        }
+
+        /**
+         * @return true if the method returns a nested configuration (single or array)
+         */
+        public boolean isNested() {
+            return nested;
+        }
+
+        /**
+         * @return Default value declared for the method, or null. Array values are shared and must not be modified.
+         */
+        public @Nullable Object getDefaultValue() {
+            return defaultValue;
+        }
+
+        /**
+         * Read property value from the given value map, applying the default value.
+         * @param props Value map
+         * @return Property value
+         * @throws ConfigurationResolveException if the property type is not supported
+         */
+        public Object read(@NotNull ValueMap props) {
+            if (!validType) {
+                throw new ConfigurationResolveException("Unsupported type " + componentType.getName() + " in "
+                        + method.getDeclaringClass() + "#" + method.getName());
+            }
+            if (readDefaultValue == null) {
+                return props.get(propertyName, returnType);
+            }
+            if (array && Array.getLength(readDefaultValue) > 0) {
+                // do not hand out the shared default array instance
+                Object value = props.get(propertyName, returnType);
+                return value != null ? value : cloneArray(readDefaultValue);
+            }
+            return props.get(propertyName, readDefaultValue);
+        }
+
+        private static Object cloneArray(Object array) {
+            int length = Array.getLength(array);
+            Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+            System.arraycopy(array, 0, copy, 0, length);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl.metadata;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Cache of {@link AnnotationClassMethodTable} instances, owned by the component using it and cleared when
+ * the component is deactivated.
+ * Annotation classes are referenced weakly and the tables softly, so the cache does not keep the classes
+ * (and the class loaders of the bundles providing them) alive. Lookups are lock-free.
+ */
+public final class AnnotationClassMethodTableCache {
+
+    private final ConcurrentMap<ClassKey, SoftReference<AnnotationClassMethodTable>> tables = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Class<?>> staleKeys = new ReferenceQueue<>();
+
+    /**
+     * Get method table for the given annotation class, building it on first access.
+     * @param clazz Annotation class
+     * @return Method table
+     */
+    public @NotNull AnnotationClassMethodTable get(@NotNull Class<?> clazz) {
+        SoftReference<AnnotationClassMethodTable> ref = tables.get(new ClassKey(clazz, null));
+        AnnotationClassMethodTable table = ref != null ? ref.get() : null;
+        if (table == null) {
+            expungeStaleKeys();
+            // concurrent callers may build the table twice, the last one is kept
+            table = new AnnotationClassMethodTable(clazz);
+            tables.put(new ClassKey(clazz, staleKeys), new SoftReference<>(table));
+        }
+        return table;
+    }
+
+    /**
+     * Remove all method tables.
+     */
+    public void clear() {
+        tables.clear();
+        expungeStaleKeys();
+    }
+
+    private void expungeStaleKeys() {
+        Reference<? extends Class<?>> key;
+        while ((key = staleKeys.poll()) != null) {
+            tables.remove(key);
+        }
+    }
+
+    /**
+     * Weak reference to a class, compared by identity of the referenced class.
+     */
+    private static final class ClassKey extends WeakReference<Class<?>> {
+
+        private final int hash;
+
+        ClassKey(Class<?> clazz, ReferenceQueue<Class<?>> queue) {
+            super(clazz, queue);
+            this.hash = System.identityHashCode(clazz);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ClassKey)) {
+                return false;
+            }
+            Class<?> clazz = get();
+            return clazz != null && clazz == ((ClassKey) obj).get();
+        }
+    }
+}
@@ -162,32 +162,31 @@ public final class AnnotationClassParser {
                 return compare;
             }
         });
-        Method[] propertyMethods = clazz.getDeclaredMethods();
-        for (Method propertyMethod : propertyMethods) {
-            PropertyMetadata<?> propertyMetadata =
-                    buildPropertyMetadata(propertyMethod, propertyMethod.getReturnType());
+        for (AnnotationClassMethodTable.Entry entry : new AnnotationClassMethodTable(clazz).getEntries()) {
+            PropertyMetadata<?> propertyMetadata = buildPropertyMetadata(entry, entry.getReturnType());
             propertyMetadataSet.add(propertyMetadata);
         }
         return propertyMetadataSet;
     }
 
     @SuppressWarnings({"unchecked", "unused"})
-    private static <T> PropertyMetadata<T> buildPropertyMetadata(Method propertyMethod, Class<T> type) {
-        String propertyName = getPropertyName(propertyMethod.getName());
+    private static <T> PropertyMetadata<T> buildPropertyMetadata(
+            AnnotationClassMethodTable.Entry entry, Class<T> type) {
+        String propertyName = entry.getPropertyName();
+        Method propertyMethod = entry.getMethod();
 
         PropertyMetadata<?> propertyMetadata;
-        if (type.isArray() && type.getComponentType().isAnnotation()) {
+        if (entry.isArray() && entry.isNested()) {
             ConfigurationMetadata nestedConfigMetadata =
-                    buildConfigurationMetadata_Nested(type.getComponentType(), propertyName, true);
+                    buildConfigurationMetadata_Nested(entry.getComponentType(), propertyName, true);
             propertyMetadata = new PropertyMetadata<>(propertyName, ConfigurationMetadata[].class)
                     .configurationMetadata(nestedConfigMetadata);
-        } else if (type.isAnnotation()) {
+        } else if (entry.isNested()) {
             ConfigurationMetadata nestedConfigMetadata = buildConfigurationMetadata_Nested(type, propertyName, false);
             propertyMetadata = new PropertyMetadata<>(propertyName, ConfigurationMetadata.class)
                     .configurationMetadata(nestedConfigMetadata);
         } else {
-            propertyMetadata =
-                    new PropertyMetadata<>(propertyName, type).defaultValue((T) propertyMethod.getDefaultValue());
+            propertyMetadata = new PropertyMetadata<>(propertyName, type).defaultValue((T) entry.getDefaultValue());
         }
 
         Property propertyAnnotation = propertyMethod.getAnnotation(Property.class);
@@ -21,28 +21,36 @@ package org.apache.sling.caconfig.impl.metadata;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.Nullable;
 import org.osgi.framework.Bundle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Contains metadata of all configuration classes that where declared via the bundle header for a bundle.
- * The configuration class metadata is not parsed on initialization, but lazily on first access.
+ * The configuration class metadata is not parsed on initialization, but lazily on first access - or restored
+ * from the {@link ConfigurationMetadataStore} if one is given.
  */
 class BundleConfigurationMapping {
 
     private final Bundle bundle;
     private final String classNamesList;
-    private final AtomicReference<Map<String, ConfigurationMapping>> configMappingsRef = new AtomicReference<>(null);
+    private final ConfigurationMetadataStore metadataStore;
+    private volatile Map<String, ConfigurationMapping> configMappings;
 
     private static final Logger log = LoggerFactory.getLogger(BundleConfigurationMapping.class);
 
     public BundleConfigurationMapping(Bundle bundle, String classNamesList) {
+        this(bundle, classNamesList, null);
+    }
+
+    BundleConfigurationMapping(
+            Bundle bundle, String classNamesList, @Nullable ConfigurationMetadataStore metadataStore) {
         this.bundle = bundle;
         this.classNamesList = classNamesList;
+        this.metadataStore = metadataStore;
     }
 
     public Bundle getBundle() {
@@ -50,21 +58,47 @@ class BundleConfigurationMapping {
     }
 
     /**
-     * Thread-safe lazy initialization of configuration mappings.
+     * Thread-safe lazy initialization of configuration mappings. Concurrent callers wait for the first one
+     * to finish parsing instead of parsing the classes again.
      * @return Configuration mappings
      */
     private Map<String, ConfigurationMapping> getConfigMappings() {
-        Map<String, ConfigurationMapping> configMappings = configMappingsRef.get();
-        if (configMappings == null) {
-            configMappings = initializeConfigMappings();
-            if (configMappingsRef.compareAndSet(null, configMappings)) {
-                return configMappings;
-            } else {
-                return configMappingsRef.get();
+        Map<String, ConfigurationMapping> result = configMappings;
+        if (result == null) {
+            synchronized (this) {
+                result = configMappings;
+                if (result == null) {
+                    result = loadConfigMappings();
+                    configMappings = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Restore configuration mappings from metadata store, or parse the annotation classes and store the result.
+     * @return Configuration mappings
+     */
+    private Map<String, ConfigurationMapping> loadConfigMappings() {
+        Map<String, ConfigurationMapping> result = null;
+        if (metadataStore != null) {
+            result = metadataStore.load(bundle, classNamesList);
+        }
+        if (result == null) {
+            result = initializeConfigMappings();
+            if (metadataStore != null) {
+                metadataStore.store(bundle, classNamesList, result.values());
             }
-        } else {
-            return configMappings;
         }
+        return result;
+    }
+
+    /**
+     * Parse and cache the configuration classes in the background.
+     */
+    void warmUp() {
+        getConfigMappings();
     }
 
     /**
@@ -103,8 +137,8 @@ class BundleConfigurationMapping {
             log.warn(
                     "Configuration name conflict in bundle {}: Both configuration classes {} and {} define the configuration name '{}', ignoring the latter.",
                     bundle.getSymbolicName(),
-                    conflictingConfigMapping.getConfigClass().getName(),
-                    newConfigMapping.getConfigClass().getName(),
+                    conflictingConfigMapping.getConfigClassName(),
+                    newConfigMapping.getConfigClassName(),
                     newConfigMapping.getConfigName());
             return true;
         } else {
@@ -20,6 +20,7 @@ package org.apache.sling.caconfig.impl.metadata;
 
 import java.util.Dictionary;
 
+import org.jetbrains.annotations.Nullable;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleEvent;
 import org.osgi.util.tracker.BundleTrackerCustomizer;
@@ -32,9 +33,17 @@ import static org.apache.sling.caconfig.impl.ConfigurationNameConstants.CONFIGUR
 class ConfigClassBundleTackerCustomizer implements BundleTrackerCustomizer<BundleConfigurationMapping> {
 
     private final AnnotationClassConfigurationMetadataProvider metadataProvider;
+    private final ConfigurationMetadataStore metadataStore;
 
     public ConfigClassBundleTackerCustomizer(AnnotationClassConfigurationMetadataProvider metadataProvider) {
+        this(metadataProvider, null);
+    }
+
+    ConfigClassBundleTackerCustomizer(
+            AnnotationClassConfigurationMetadataProvider metadataProvider,
+            @Nullable ConfigurationMetadataStore metadataStore) {
         this.metadataProvider = metadataProvider;
+        this.metadataStore = metadataStore;
     }
 
     @Override
@@ -44,7 +53,8 @@ class ConfigClassBundleTackerCustomizer implements BundleTrackerCustomizer<Bundl
         if (classeNamesList == null) {
             return null;
         }
-        BundleConfigurationMapping bundleMapping = new BundleConfigurationMapping(bundle, classeNamesList);
+        BundleConfigurationMapping bundleMapping =
+                new BundleConfigurationMapping(bundle, classeNamesList, metadataStore);
         metadataProvider.addBundeMapping(bundleMapping);
         return bundleMapping;
     }
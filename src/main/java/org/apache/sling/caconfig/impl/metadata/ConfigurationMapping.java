@@ -25,16 +25,26 @@ import org.apache.sling.caconfig.spi.metadata.ConfigurationMetadata;
  */
 class ConfigurationMapping {
 
-    private final Class<?> configClass;
+    private final String configClassName;
     private final ConfigurationMetadata configMetadata;
 
     public ConfigurationMapping(Class<?> configClass) {
-        this.configClass = configClass;
+        this.configClassName = configClass.getName();
         this.configMetadata = AnnotationClassParser.buildConfigurationMetadata(configClass);
     }
 
-    public Class<?> getConfigClass() {
-        return configClass;
+    /**
+     * Mapping with metadata restored from the {@link ConfigurationMetadataStore}.
+     * @param configClassName Configuration class name
+     * @param configMetadata Configuration metadata
+     */
+    ConfigurationMapping(String configClassName, ConfigurationMetadata configMetadata) {
+        this.configClassName = configClassName;
+        this.configMetadata = configMetadata;
+    }
+
+    public String getConfigClassName() {
+        return configClassName;
     }
 
     public String getConfigName() {
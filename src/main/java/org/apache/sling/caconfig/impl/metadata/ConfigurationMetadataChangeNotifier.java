@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl.metadata;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Implemented by configuration metadata providers of this bundle that notify about changes of their configuration
+ * names and metadata, so the {@link ConfigurationMetadataProviderMultiplexerImpl} does not need to compare their
+ * configuration names on each snapshot access, and the snapshot may remember their configuration metadata.
+ */
+interface ConfigurationMetadataChangeNotifier {
+
+    /**
+     * @param listener Called after the configuration names or metadata of the provider have changed
+     */
+    void addChangeListener(@NotNull Runnable listener);
+
+    /**
+     * @param listener Listener registered before
+     */
+    void removeChangeListener(@NotNull Runnable listener);
+}
@@ -20,9 +20,10 @@ package org.apache.sling.caconfig.impl.metadata;
 
 import java.util.Map;
 import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.sling.caconfig.management.multiplexer.ConfigurationMetadataProviderMultiplexer;
+import org.apache.sling.caconfig.management.multiplexer.ConfigurationMetadataSnapshot;
 import org.apache.sling.caconfig.spi.ConfigurationMetadataProvider;
 import org.apache.sling.caconfig.spi.metadata.ConfigurationMetadata;
 import org.apache.sling.commons.osgi.Order;
@@ -53,15 +54,31 @@ import org.osgi.service.component.annotations.ReferencePolicyOption;
 public class ConfigurationMetadataProviderMultiplexerImpl implements ConfigurationMetadataProviderMultiplexer {
 
     private RankedServices<ConfigurationMetadataProvider> items = new RankedServices<>(Order.DESCENDING);
+    private volatile ConfigurationMetadataSnapshotImpl snapshot;
+    private long generation;
+
+    // incremented when providers are bound or unbound, or notify about changed configuration names
+    private final AtomicLong changeCount = new AtomicLong();
+    private final Runnable providerChangeListener = changeCount::incrementAndGet;
 
     protected void bindConfigurationMetadataProvider(
             ConfigurationMetadataProvider configurationMetadataProvider, Map<String, Object> props) {
         items.bind(configurationMetadataProvider, props);
+        if (configurationMetadataProvider instanceof ConfigurationMetadataChangeNotifier) {
+            ((ConfigurationMetadataChangeNotifier) configurationMetadataProvider)
+                    .addChangeListener(providerChangeListener);
+        }
+        changeCount.incrementAndGet();
     }
 
     protected void unbindConfigurationMetadataProvider(
             ConfigurationMetadataProvider configurationMetadataProvider, Map<String, Object> props) {
+        if (configurationMetadataProvider instanceof ConfigurationMetadataChangeNotifier) {
+            ((ConfigurationMetadataChangeNotifier) configurationMetadataProvider)
+                    .removeChangeListener(providerChangeListener);
+        }
         items.unbind(configurationMetadataProvider, props);
+        changeCount.incrementAndGet();
     }
 
     /**
@@ -69,11 +86,34 @@ public class ConfigurationMetadataProviderMultiplexerImpl implements Configurati
      */
     @Override
     public @NotNull SortedSet<String> getConfigurationNames() {
-        SortedSet<String> configNames = new TreeSet<>();
-        for (ConfigurationMetadataProvider item : items) {
-            configNames.addAll(item.getConfigurationNames());
+        return getSnapshot().getConfigurationNames();
+    }
+
+    /**
+     * Get snapshot of merged configuration names from all providers. A new snapshot is built if providers
+     * were bound or unbound since, a provider notified about changed configuration names, or a provider without
+     * change notification returns different configuration names.
+     */
+    @Override
+    public @NotNull ConfigurationMetadataSnapshot getSnapshot() {
+        long currentChangeCount = changeCount.get();
+        ConfigurationMetadataSnapshotImpl current = snapshot;
+        if (current != null && current.isUpToDate(currentChangeCount)) {
+            return current;
+        }
+        return buildSnapshot(current, currentChangeCount);
+    }
+
+    private synchronized ConfigurationMetadataSnapshotImpl buildSnapshot(
+            ConfigurationMetadataSnapshotImpl outdated, long currentChangeCount) {
+        ConfigurationMetadataSnapshotImpl current = snapshot;
+        if (current != outdated && current.getChangeCount() == currentChangeCount) {
+            // built by another thread in the meantime
+            return current;
         }
-        return configNames;
+        current = new ConfigurationMetadataSnapshotImpl(++generation, currentChangeCount, items.getList());
+        snapshot = current;
+        return current;
     }
 
     /**
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl.metadata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.sling.caconfig.management.multiplexer.ConfigurationMetadataSnapshot;
+import org.apache.sling.caconfig.spi.ConfigurationMetadataProvider;
+import org.apache.sling.caconfig.spi.metadata.ConfigurationMetadata;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Snapshot of the configuration names of a list of providers, stamped with the change count of the multiplexer
+ * it was built for. Providers implementing {@link ConfigurationMetadataChangeNotifier} update the change count
+ * themselves, for all other providers the configuration names are remembered and compared by equality to detect
+ * changes.
+ * The configuration metadata is remembered for the lifetime of the snapshot only if all providers consulted for it
+ * implement {@link ConfigurationMetadataChangeNotifier}, as other providers may change their metadata without
+ * changing their configuration names.
+ */
+final class ConfigurationMetadataSnapshotImpl implements ConfigurationMetadataSnapshot {
+
+    private final long generation;
+    private final long changeCount;
+    private final List<ConfigurationMetadataProvider> providers;
+    private final List<SortedSet<String>> providerConfigNames;
+    private final SortedSet<String> configNames;
+    private final Map<String, Optional<ConfigurationMetadata>> configMetadata = new ConcurrentHashMap<>();
+
+    ConfigurationMetadataSnapshotImpl(
+            long generation, long changeCount, List<ConfigurationMetadataProvider> providers) {
+        this.generation = generation;
+        this.changeCount = changeCount;
+        this.providers = providers;
+        this.providerConfigNames = new ArrayList<>(providers.size());
+        SortedSet<String> allConfigNames = new TreeSet<>();
+        for (ConfigurationMetadataProvider provider : providers) {
+            SortedSet<String> names = provider.getConfigurationNames();
+            // names of providers notifying about changes need not be compared
+            providerConfigNames.add(provider instanceof ConfigurationMetadataChangeNotifier ? null : names);
+            allConfigNames.addAll(names);
+        }
+        this.configNames = Collections.unmodifiableSortedSet(allConfigNames);
+    }
+
+    /**
+     * @param currentChangeCount Current change count of the multiplexer
+     * @return true if no provider was bound, unbound or notified about changes since this snapshot was built,
+     *         and all providers without change notification return equal configuration names
+     */
+    boolean isUpToDate(long currentChangeCount) {
+        if (changeCount != currentChangeCount) {
+            return false;
+        }
+        for (int i = 0; i < providers.size(); i++) {
+            SortedSet<String> names = providerConfigNames.get(i);
+            if (names != null && !names.equals(providers.get(i).getConfigurationNames())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long getChangeCount() {
+        return changeCount;
+    }
+
+    @Override
+    public long getGeneration() {
+        return generation;
+    }
+
+    @Override
+    public @NotNull SortedSet<String> getConfigurationNames() {
+        return configNames;
+    }
+
+    @Override
+    public ConfigurationMetadata getConfigurationMetadata(@NotNull String configName) {
+        Optional<ConfigurationMetadata> memoized = configMetadata.get(configName);
+        if (memoized != null) {
+            return memoized.orElse(null);
+        }
+        boolean memoize = configNames.contains(configName);
+        ConfigurationMetadata metadata = null;
+        for (ConfigurationMetadataProvider provider : providers) {
+            memoize &= provider instanceof ConfigurationMetadataChangeNotifier;
+            metadata = provider.getConfigurationMetadata(configName);
+            if (metadata != null) {
+                break;
+            }
+        }
+        if (memoize) {
+            configMetadata.putIfAbsent(configName, Optional.ofNullable(metadata));
+        }
+        return metadata;
+    }
+}
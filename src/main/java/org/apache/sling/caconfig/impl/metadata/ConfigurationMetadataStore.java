@@ -0,0 +1,358 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl.metadata;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.sling.caconfig.spi.metadata.ConfigurationMetadata;
+import org.apache.sling.caconfig.spi.metadata.PropertyMetadata;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists the configuration metadata parsed from the configuration classes of a bundle to a file per bundle
+ * in the bundle data area, to skip loading and parsing the configuration classes after a restart.
+ * A stored entry is only used if bundle ID, symbolic name, last modified timestamp and configuration classes
+ * header of the bundle and the revision of this implementation bundle still match.
+ */
+final class ConfigurationMetadataStore {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String FILE_EXTENSION = ".metadata";
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+    private static final Map<String, Class<?>> SUPPORTED_TYPES = new HashMap<>();
+
+    static {
+        for (Class<?> type : PropertyMetadata.SUPPORTED_TYPES) {
+            SUPPORTED_TYPES.put(type.getName(), type);
+            Class<?> arrayType = Array.newInstance(type, 0).getClass();
+            SUPPORTED_TYPES.put(arrayType.getName(), arrayType);
+        }
+        // nested configurations
+        SUPPORTED_TYPES.put(ConfigurationMetadata.class.getName(), ConfigurationMetadata.class);
+        SUPPORTED_TYPES.put(ConfigurationMetadata[].class.getName(), ConfigurationMetadata[].class);
+    }
+
+    private final File directory;
+    private final String implRevision;
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigurationMetadataStore.class);
+
+    /**
+     * @param directory Directory to store the files in
+     * @param implRevision Revision of this implementation bundle - entries stored by other revisions are ignored
+     */
+    ConfigurationMetadataStore(@NotNull File directory, @NotNull String implRevision) {
+        this.directory = directory;
+        this.implRevision = implRevision;
+    }
+
+    /**
+     * Load configuration mappings of the given bundle.
+     * @param bundle Bundle
+     * @param classNamesList Configuration classes header
+     * @return Configuration mappings or null if nothing valid is stored for this bundle
+     */
+    @Nullable
+    Map<String, ConfigurationMapping> load(@NotNull Bundle bundle, @NotNull String classNamesList) {
+        File file = getFile(bundle.getBundleId());
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != FORMAT_VERSION
+                    || !Objects.equals(implRevision, readString(in))
+                    || !Objects.equals(bundle.getSymbolicName(), readString(in))
+                    || in.readLong() != bundle.getLastModified()
+                    || !Objects.equals(classNamesList, readString(in))) {
+                log.debug("{}: Ignore outdated stored configuration metadata.", bundle.getSymbolicName());
+                return null;
+            }
+            Map<String, ConfigurationMapping> configMappings = new HashMap<>();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String configClassName = readString(in);
+                ConfigurationMetadata configMetadata = readConfigurationMetadata(in);
+                configMappings.put(configMetadata.getName(), new ConfigurationMapping(configClassName, configMetadata));
+            }
+            log.debug(
+                    "{}: Loaded stored configuration metadata for {}",
+                    bundle.getSymbolicName(),
+                    configMappings.keySet());
+            return configMappings;
+        } catch (IOException | RuntimeException ex) {
+            log.warn("{}: Unable to load stored configuration metadata from {}", bundle.getSymbolicName(), file, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Store configuration mappings of the given bundle.
+     * @param bundle Bundle
+     * @param classNamesList Configuration classes header
+     * @param configMappings Configuration mappings
+     */
+    void store(
+            @NotNull Bundle bundle,
+            @NotNull String classNamesList,
+            @NotNull Collection<ConfigurationMapping> configMappings) {
+        File file = getFile(bundle.getBundleId());
+        Path tempFile = null;
+        try {
+            Files.createDirectories(directory.toPath());
+            tempFile = Files.createTempFile(directory.toPath(), "store", TEMP_FILE_EXTENSION);
+            try (DataOutputStream out =
+                    new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, implRevision);
+                writeString(out, bundle.getSymbolicName());
+                out.writeLong(bundle.getLastModified());
+                writeString(out, classNamesList);
+                out.writeInt(configMappings.size());
+                for (ConfigurationMapping configMapping : configMappings) {
+                    writeString(out, configMapping.getConfigClassName());
+                    writeConfigurationMetadata(out, configMapping.getConfigMetadata());
+                }
+            }
+            Files.move(tempFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("{}: Unable to store configuration metadata to {}", bundle.getSymbolicName(), file, ex);
+            if (tempFile != null) {
+                tempFile.toFile().delete();
+            }
+        }
+    }
+
+    /**
+     * Removes stored entries of bundles that are no longer installed, and leftovers of interrupted writes.
+     * @param bundleContext Bundle context
+     */
+    void cleanUp(@NotNull BundleContext bundleContext) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!file.getName().endsWith(FILE_EXTENSION)) {
+                if (file.getName().endsWith(TEMP_FILE_EXTENSION)) {
+                    file.delete();
+                }
+                continue;
+            }
+            String bundleId = file.getName().substring(0, file.getName().length() - FILE_EXTENSION.length());
+            try {
+                if (bundleContext.getBundle(Long.parseLong(bundleId)) == null) {
+                    file.delete();
+                }
+            } catch (NumberFormatException ex) {
+                file.delete();
+            }
+        }
+    }
+
+    private File getFile(long bundleId) {
+        return new File(directory, bundleId + FILE_EXTENSION);
+    }
+
+    private static void writeConfigurationMetadata(DataOutputStream out, ConfigurationMetadata metadata)
+            throws IOException {
+        writeString(out, metadata.getName());
+        out.writeBoolean(metadata.isCollection());
+        writeString(out, metadata.getLabel());
+        writeString(out, metadata.getDescription());
+        writeProperties(out, metadata.getProperties());
+        Collection<PropertyMetadata<?>> propertyMetadata =
+                metadata.getPropertyMetadata().values();
+        out.writeInt(propertyMetadata.size());
+        for (PropertyMetadata<?> property : propertyMetadata) {
+            writeString(out, property.getName());
+            writeString(out, property.getType().getName());
+            writeString(out, property.getLabel());
+            writeString(out, property.getDescription());
+            writeProperties(out, property.getProperties());
+            out.writeInt(property.getOrder());
+            writeValue(out, property.getType(), property.getDefaultValue());
+            out.writeBoolean(property.getConfigurationMetadata() != null);
+            if (property.getConfigurationMetadata() != null) {
+                writeConfigurationMetadata(out, property.getConfigurationMetadata());
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ConfigurationMetadata readConfigurationMetadata(DataInputStream in) throws IOException {
+        String name = readString(in);
+        boolean collection = in.readBoolean();
+        String label = readString(in);
+        String description = readString(in);
+        Map<String, String> properties = readProperties(in);
+        int count = in.readInt();
+        List<PropertyMetadata<?>> propertyMetadata = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String propertyName = readString(in);
+            Class type = SUPPORTED_TYPES.get(readString(in));
+            if (type == null) {
+                throw new IOException("Unsupported property type for " + propertyName);
+            }
+            PropertyMetadata property = new PropertyMetadata(propertyName, type);
+            property.label(readString(in));
+            property.description(readString(in));
+            property.properties(readProperties(in));
+            property.order(in.readInt());
+            property.defaultValue(readValue(in, type));
+            if (in.readBoolean()) {
+                property.configurationMetadata(readConfigurationMetadata(in));
+            }
+            propertyMetadata.add(property);
+        }
+        return new ConfigurationMetadata(name, propertyMetadata, collection)
+                .label(label)
+                .description(description)
+                .properties(properties);
+    }
+
+    private static void writeProperties(DataOutputStream out, Map<String, String> properties) throws IOException {
+        if (properties == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(properties.size());
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readProperties(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            return null;
+        }
+        Map<String, String> properties = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            properties.put(readString(in), readString(in));
+        }
+        return properties;
+    }
+
+    private static void writeValue(DataOutputStream out, Class<?> type, Object value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value == null) {
+            return;
+        }
+        if (type.isArray()) {
+            int length = Array.getLength(value);
+            out.writeInt(length);
+            for (int i = 0; i < length; i++) {
+                writeScalarValue(out, type.getComponentType(), Array.get(value, i));
+            }
+        } else {
+            writeScalarValue(out, type, value);
+        }
+    }
+
+    private static Object readValue(DataInputStream in, Class<?> type) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        if (type.isArray()) {
+            int length = in.readInt();
+            Object value = Array.newInstance(type.getComponentType(), length);
+            for (int i = 0; i < length; i++) {
+                Array.set(value, i, readScalarValue(in, type.getComponentType()));
+            }
+            return value;
+        } else {
+            return readScalarValue(in, type);
+        }
+    }
+
+    private static void writeScalarValue(DataOutputStream out, Class<?> type, Object value) throws IOException {
+        if (type == String.class) {
+            writeString(out, (String) value);
+        } else if (type == int.class || type == Integer.class) {
+            out.writeInt((Integer) value);
+        } else if (type == long.class || type == Long.class) {
+            out.writeLong((Long) value);
+        } else if (type == double.class || type == Double.class) {
+            out.writeDouble((Double) value);
+        } else if (type == boolean.class || type == Boolean.class) {
+            out.writeBoolean((Boolean) value);
+        } else {
+            throw new IOException("Unsupported value type: " + type.getName());
+        }
+    }
+
+    private static Object readScalarValue(DataInputStream in, Class<?> type) throws IOException {
+        if (type == String.class) {
+            return readString(in);
+        } else if (type == int.class || type == Integer.class) {
+            return in.readInt();
+        } else if (type == long.class || type == Long.class) {
+            return in.readLong();
+        } else if (type == double.class || type == Double.class) {
+            return in.readDouble();
+        } else if (type == boolean.class || type == Boolean.class) {
+            return in.readBoolean();
+        } else {
+            throw new IOException("Unsupported value type: " + type.getName());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
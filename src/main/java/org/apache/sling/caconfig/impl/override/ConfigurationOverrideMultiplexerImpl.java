@@ -20,13 +20,11 @@ package org.apache.sling.caconfig.impl.override;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.Strings;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.SyntheticResource;
@@ -34,6 +32,7 @@ import org.apache.sling.api.resource.ValueMap;
 import org.apache.sling.api.wrappers.ValueMapDecorator;
 import org.apache.sling.caconfig.impl.ConfigurationResourceWrapper;
 import org.apache.sling.caconfig.management.multiplexer.ConfigurationOverrideMultiplexer;
+import org.apache.sling.caconfig.resource.impl.util.LayeredValueMap;
 import org.apache.sling.caconfig.resource.impl.util.MapUtil;
 import org.apache.sling.caconfig.spi.ConfigurationOverrideProvider;
 import org.apache.sling.commons.osgi.Order;
@@ -61,6 +60,7 @@ import org.slf4j.LoggerFactory;
                     service = ConfigurationOverrideProvider.class,
                     bind = "bindConfigurationOverrideProvider",
                     unbind = "unbindConfigurationOverrideProvider",
+                    updated = "updatedConfigurationOverrideProvider",
                     cardinality = ReferenceCardinality.MULTIPLE,
                     policy = ReferencePolicy.DYNAMIC,
                     policyOption = ReferencePolicyOption.GREEDY)
@@ -68,7 +68,8 @@ import org.slf4j.LoggerFactory;
 public class ConfigurationOverrideMultiplexerImpl implements ConfigurationOverrideMultiplexer, ChangeListener {
 
     private RankedServices<ConfigurationOverrideProvider> items = new RankedServices<>(Order.DESCENDING, this);
-    private volatile Collection<OverrideItem> allOverrides = Collections.emptyList();
+    private volatile OverrideIndex overrideIndex = OverrideIndex.EMPTY;
+    private final Map<ConfigurationOverrideProvider, ParsedOverrides> parsedOverrides = new IdentityHashMap<>();
 
     private static final Logger log = LoggerFactory.getLogger(ConfigurationOverrideMultiplexerImpl.class);
 
@@ -80,42 +81,35 @@ public class ConfigurationOverrideMultiplexerImpl implements ConfigurationOverri
         items.unbind(item, props);
     }
 
+    /**
+     * Service properties of a provider changed, e.g. because it reloaded its override strings.
+     * Changes of the service ranking are not reflected before the provider is bound again.
+     */
+    protected void updatedConfigurationOverrideProvider(ConfigurationOverrideProvider item, Map<String, Object> props) {
+        changed();
+    }
+
     @Override
     public boolean isAllOverridden(@NotNull String contextPath, @NotNull String configName) {
-        for (OverrideItem override : allOverrides) {
-            if (Strings.CS.equals(configName, override.getConfigName()) && override.matchesPath(contextPath)) {
-                if (override.isAllProperties()) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        OverrideIndex.Overrides overrides = overrideIndex.getOverrides(contextPath, configName);
+        return overrides != null && overrides.isAllProperties();
     }
 
     @Override
     public Map<String, Object> overrideProperties(
             @NotNull String contextPath, @NotNull String configName, @NotNull Map<String, Object> properties) {
-        if (allOverrides.size() == 0) {
+        OverrideIndex.Overrides overrides = overrideIndex.getOverrides(contextPath, configName);
+        if (overrides == null) {
             return null;
         }
-        boolean anyMatch = false;
-        Map<String, Object> overrideProperties = new HashMap<>(properties);
-
-        for (OverrideItem override : allOverrides) {
-            if (Strings.CS.equals(configName, override.getConfigName()) && override.matchesPath(contextPath)) {
-                if (override.isAllProperties()) {
-                    overrideProperties.clear();
-                }
-                overrideProperties.putAll(override.getProperties());
-                anyMatch = true;
-            }
-        }
-
-        if (anyMatch) {
-            return overrideProperties;
-        } else {
-            return null;
+        if (overrides.isAllProperties()) {
+            return LayeredValueMap.of(overrides.getLayers());
         }
+        // layers ordered from highest to lowest priority - overrides over configuration properties
+        List<Map<String, Object>> layers = new ArrayList<>(overrides.getLayers().size() + 1);
+        layers.addAll(overrides.getLayers());
+        layers.add(properties);
+        return LayeredValueMap.of(layers);
     }
 
     @Override
@@ -149,23 +143,64 @@ public class ConfigurationOverrideMultiplexerImpl implements ConfigurationOverri
                     + (configResource != null ? MapUtil.traceOutput(configResource.getValueMap()) : "empty") + " -> "
                     + MapUtil.traceOutput(overrideProperties));
         }
-        return new ConfigurationResourceWrapper(configResourceToUse, new ValueMapDecorator(overrideProperties));
+        return new ConfigurationResourceWrapper(
+                configResourceToUse,
+                overrideProperties instanceof ValueMap
+                        ? (ValueMap) overrideProperties
+                        : new ValueMapDecorator(overrideProperties));
     }
 
     /**
-     * If a provider is added or removed parse and collect all overrides again (to ensure correct overall order is preserved).
+     * If a provider is added or removed collect all overrides again (to ensure correct overall order is preserved).
+     * The parsed override items are cached per provider instance and its override strings, only providers
+     * that are new or return different override strings are parsed again. Providers implementing
+     * {@link OverrideItemProvider} supply their parsed override items themselves.
      */
     @Override
-    public void changed() {
+    public synchronized void changed() {
+        Map<ConfigurationOverrideProvider, ParsedOverrides> previous = new IdentityHashMap<>(parsedOverrides);
+        parsedOverrides.clear();
         List<OverrideItem> overrides = new ArrayList<>();
         for (ConfigurationOverrideProvider item : items) {
-            Collection<OverrideItem> itemOverrides = OverrideStringParser.parse(item.getOverrideStrings());
-            if (log.isDebugEnabled() && !itemOverrides.isEmpty()) {
-                log.debug("Override items from " + item.getClass().getName() + ":\n"
-                        + StringUtils.join(itemOverrides, "\n"));
+            ParsedOverrides parsed = previous.get(item);
+            if (item instanceof OverrideItemProvider) {
+                // provider parses its override strings itself, e.g. per file
+                List<OverrideItem> overrideItems = ((OverrideItemProvider) item).getOverrideItems();
+                if (parsed == null || parsed.items != overrideItems) {
+                    parsed = new ParsedOverrides(null, overrideItems);
+                    logOverrideItems(item, parsed);
+                }
+            } else {
+                List<String> overrideStrings = new ArrayList<>(item.getOverrideStrings());
+                if (parsed == null || !overrideStrings.equals(parsed.overrideStrings)) {
+                    parsed = new ParsedOverrides(overrideStrings, OverrideStringParser.parse(overrideStrings));
+                    logOverrideItems(item, parsed);
+                }
             }
-            overrides.addAll(itemOverrides);
+            parsedOverrides.put(item, parsed);
+            overrides.addAll(parsed.items);
+        }
+        overrideIndex = new OverrideIndex(overrides);
+    }
+
+    private static void logOverrideItems(ConfigurationOverrideProvider item, ParsedOverrides parsed) {
+        if (log.isDebugEnabled() && !parsed.items.isEmpty()) {
+            log.debug(
+                    "Override items from " + item.getClass().getName() + ":\n" + StringUtils.join(parsed.items, "\n"));
+        }
+    }
+
+    /**
+     * Override items parsed from the override strings of a provider.
+     */
+    private static class ParsedOverrides {
+
+        private final List<String> overrideStrings;
+        private final Collection<OverrideItem> items;
+
+        ParsedOverrides(List<String> overrideStrings, Collection<OverrideItem> items) {
+            this.overrideStrings = overrideStrings;
+            this.items = items;
         }
-        allOverrides = overrides;
     }
 }
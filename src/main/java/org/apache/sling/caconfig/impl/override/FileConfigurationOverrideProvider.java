@@ -0,0 +1,395 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl.override;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.caconfig.spi.ConfigurationOverrideProvider;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Provides parameter override map from override strings in a file or in all files of a directory in the
+ * local file system, one override string per line.
+ * <p>
+ * The files are watched for changes and reloaded after the configured delay has passed without further changes,
+ * or at the latest after {@value #MAX_RELOAD_DELAYS} times the delay if the files change continuously.
+ * Only files that were modified are read and parsed again, the override strings and parsed override items of all
+ * files are swapped at once.
+ * If the path is a symbolic link to a file, any change in the directory containing the link triggers a check,
+ * as the link target may be swapped by replacing another link in that directory (e.g. the {@code ..data} link
+ * of a Kubernetes ConfigMap volume). Files are compared by their real path, modification time and size.
+ * The service is registered by the component itself, on each reload the service property
+ * {@link #PROPERTY_REVISION} is incremented to notify the {@link ConfigurationOverrideMultiplexerImpl}.
+ * </p>
+ */
+@Component(
+        service = {},
+        immediate = true)
+@Designate(ocd = FileConfigurationOverrideProvider.Config.class, factory = true)
+public final class FileConfigurationOverrideProvider implements ConfigurationOverrideProvider, OverrideItemProvider {
+
+    /**
+     * Service property that is incremented each time the override strings are reloaded.
+     */
+    public static final String PROPERTY_REVISION = "sling.caconfig.override.revision";
+
+    /**
+     * Maximum time to wait for the files to settle before reloading, as multiple of the reload delay.
+     */
+    static final int MAX_RELOAD_DELAYS = 10;
+
+    @ObjectClassDefinition(
+            name = "Apache Sling Context-Aware Configuration Override Provider: File",
+            description = "Allows to override configuration property values from a file or a directory of files "
+                    + "in the local file system. Changes of the files are applied automatically.")
+    public static @interface Config {
+
+        @AttributeDefinition(
+                name = "Description",
+                description = "This description is used for display in the web console.")
+        String description();
+
+        @AttributeDefinition(
+                name = "Path",
+                description = "Path of a file or directory in the local file system. "
+                        + "Each line contains an override string - examples:\n"
+                        + "{configName}/{propertyName}={propertyJsonValue}\n"
+                        + "{configName}={propertyJsonObject}\n"
+                        + "[{contextPath}]{configName}/{propertyName}={propertyJsonValue}\n"
+                        + "[{contextPath}]{configName}={propertyJsonObject}\n"
+                        + "Empty lines and lines starting with # are ignored. Files of a directory are read "
+                        + "in order of their names, subdirectories and hidden files are ignored. "
+                        + "A symbolic link to a file is supported, changes of the link target "
+                        + "(e.g. Kubernetes ConfigMap volumes) are detected.")
+        String path();
+
+        @AttributeDefinition(
+                name = "Reload delay",
+                description = "Time in milliseconds without further file changes after which the overrides "
+                        + "are reloaded. If the files change continuously, they are reloaded at the latest after "
+                        + MAX_RELOAD_DELAYS + " times this delay.")
+        long reloadDelay() default 1000;
+
+        @AttributeDefinition(name = "Enabled", description = "Enable this override provider.")
+        boolean enabled() default false;
+
+        @AttributeDefinition(
+                name = "Service Ranking",
+                description = "Priority of configuration override providers (higher = higher priority).")
+        int service_ranking() default 150;
+
+        String webconsole_configurationFactory_nameHint() default "{description}, path={path}, enabled={enabled}";
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(FileConfigurationOverrideProvider.class);
+
+    private volatile List<String> overrideStrings = Collections.emptyList();
+    private volatile List<OverrideItem> overrideItems = Collections.emptyList();
+    private final Map<Path, FileContent> fileContents = new HashMap<>();
+    private Path path;
+    private long reloadDelay;
+    private int serviceRanking;
+    private long revision;
+    private ServiceRegistration<ConfigurationOverrideProvider> serviceRegistration;
+    private WatchService watchService;
+    private ExecutorService watcherExecutor;
+
+    @Activate
+    void activate(BundleContext bundleContext, Config config) {
+        if (!config.enabled() || StringUtils.isBlank(config.path())) {
+            return;
+        }
+        path = Paths.get(config.path()).toAbsolutePath().normalize();
+        reloadDelay = Math.max(0, config.reloadDelay());
+        serviceRanking = config.service_ranking();
+
+        // start watching before the initial load to not miss any change
+        startWatcher();
+        reload();
+
+        synchronized (this) {
+            serviceRegistration =
+                    bundleContext.registerService(ConfigurationOverrideProvider.class, this, getServiceProperties());
+        }
+    }
+
+    @Deactivate
+    void deactivate() {
+        stopWatcher();
+        synchronized (this) {
+            if (serviceRegistration != null) {
+                serviceRegistration.unregister();
+                serviceRegistration = null;
+            }
+            fileContents.clear();
+        }
+    }
+
+    @Override
+    public @NotNull Collection<String> getOverrideStrings() {
+        return overrideStrings;
+    }
+
+    @Override
+    public @NotNull List<OverrideItem> getOverrideItems() {
+        return overrideItems;
+    }
+
+    private Hashtable<String, Object> getServiceProperties() {
+        Hashtable<String, Object> props = new Hashtable<>();
+        props.put(Constants.SERVICE_RANKING, serviceRanking);
+        props.put(PROPERTY_REVISION, revision);
+        return props;
+    }
+
+    /**
+     * Reads the override strings from the files, and publishes them if they have changed.
+     */
+    synchronized void reload() {
+        List<FileContent> contents = readFileContents();
+        List<String> newOverrideStrings = new ArrayList<>();
+        List<OverrideItem> newOverrideItems = new ArrayList<>();
+        for (FileContent content : contents) {
+            newOverrideStrings.addAll(content.lines);
+            newOverrideItems.addAll(content.items);
+        }
+        if (newOverrideStrings.equals(overrideStrings)) {
+            return;
+        }
+        overrideItems = Collections.unmodifiableList(newOverrideItems);
+        overrideStrings = Collections.unmodifiableList(newOverrideStrings);
+        log.debug("Loaded {} override strings from {}", newOverrideStrings.size(), path);
+        if (serviceRegistration != null) {
+            revision++;
+            serviceRegistration.setProperties(getServiceProperties());
+        }
+    }
+
+    private List<FileContent> readFileContents() {
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(path)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+                for (Path file : stream) {
+                    if (Files.isRegularFile(file)
+                            && !file.getFileName().toString().startsWith(".")) {
+                        files.add(file);
+                    }
+                }
+            } catch (IOException ex) {
+                log.warn("Unable to list override files in {}", path, ex);
+                return new ArrayList<>(fileContents.values());
+            }
+            Collections.sort(files);
+        } else if (Files.isRegularFile(path)) {
+            files.add(path);
+        } else {
+            log.debug("Override file {} does not exist.", path);
+        }
+
+        fileContents.keySet().retainAll(files);
+        List<FileContent> result = new ArrayList<>();
+        for (Path file : files) {
+            FileContent content = fileContents.get(file);
+            try {
+                Path realPath = file.toRealPath();
+                BasicFileAttributes attributes = Files.readAttributes(realPath, BasicFileAttributes.class);
+                if (content == null || !content.isUpToDate(realPath, attributes)) {
+                    List<String> lines = readLines(realPath);
+                    content = new FileContent(
+                            realPath, attributes, lines, List.copyOf(OverrideStringParser.parse(lines)));
+                    fileContents.put(file, content);
+                }
+            } catch (IOException ex) {
+                // keep previous content of this file if it cannot be read
+                log.warn("Unable to read override file {}", file, ex);
+                if (content == null) {
+                    continue;
+                }
+            }
+            result.add(content);
+        }
+        return result;
+    }
+
+    private static List<String> readLines(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private void startWatcher() {
+        Path directory = Files.isDirectory(path) ? path : path.getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            log.warn("Unable to watch override path {} - directory does not exist.", path);
+            return;
+        }
+        // a symbolic link may be swapped by replacing another link in the directory - check on all changes then
+        Path fileName = directory.equals(path) || Files.isSymbolicLink(path) ? null : path.getFileName();
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(
+                    watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException ex) {
+            log.warn("Unable to watch override path {} - changes are not detected.", path, ex);
+            closeWatchService();
+            return;
+        }
+        String threadName = "Sling CA Config Override Watcher " + path;
+        watcherExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        WatchService watcher = watchService;
+        watcherExecutor.execute(() -> watch(watcher, fileName));
+    }
+
+    private void stopWatcher() {
+        closeWatchService();
+        if (watcherExecutor != null) {
+            watcherExecutor.shutdownNow();
+            try {
+                watcherExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            watcherExecutor = null;
+        }
+    }
+
+    private void closeWatchService() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ex) {
+                log.debug("Unable to close watch service for {}", path, ex);
+            }
+            watchService = null;
+        }
+    }
+
+    private void watch(WatchService watcher, Path fileName) {
+        try {
+            while (true) {
+                boolean changed = isChanged(watcher.take(), fileName);
+                // debounce: wait until no further changes arrive within the reload delay, but not forever
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(reloadDelay * MAX_RELOAD_DELAYS);
+                long delay = TimeUnit.MILLISECONDS.toNanos(reloadDelay);
+                long remaining;
+                WatchKey key;
+                while ((remaining = deadline - System.nanoTime()) > 0
+                        && (key = watcher.poll(Math.min(delay, remaining), TimeUnit.NANOSECONDS)) != null) {
+                    changed |= isChanged(key, fileName);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            // provider is deactivated
+        }
+    }
+
+    private static boolean isChanged(WatchKey key, Path fileName) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || fileName == null
+                    || fileName.equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Override strings read from a file, and the override items parsed from them.
+     */
+    private static class FileContent {
+
+        private final Path realPath;
+        private final FileTime lastModifiedTime;
+        private final long size;
+        private final List<String> lines;
+        private final List<OverrideItem> items;
+
+        FileContent(Path realPath, BasicFileAttributes attributes, List<String> lines, List<OverrideItem> items) {
+            this.realPath = realPath;
+            this.lastModifiedTime = attributes.lastModifiedTime();
+            this.size = attributes.size();
+            this.lines = lines;
+            this.items = items;
+        }
+
+        boolean isUpToDate(Path currentRealPath, BasicFileAttributes attributes) {
+            return realPath.equals(currentRealPath)
+                    && lastModifiedTime.equals(attributes.lastModifiedTime())
+                    && size == attributes.size();
+        }
+    }
+}
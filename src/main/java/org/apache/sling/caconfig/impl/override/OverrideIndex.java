@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl.override;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.sling.caconfig.resource.impl.util.PathTrie;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Immutable index of override items, built once when the override providers change.
+ * Override items are grouped by configuration name. For each override path the matching override items
+ * (items for the path itself, its ancestors, and items without path) are folded into a single list of
+ * property layers respecting the order of the override items - so looking up the overrides for a context path
+ * only requires walking down a path trie to the deepest override path matching the context path.
+ */
+final class OverrideIndex {
+
+    static final OverrideIndex EMPTY = new OverrideIndex(Collections.emptyList());
+
+    private final Map<String, ConfigNameOverrides> configNameOverrides;
+
+    /**
+     * @param overrides Override items in order of precedence (items later in the list win)
+     */
+    OverrideIndex(@NotNull List<OverrideItem> overrides) {
+        Map<String, List<OverrideItem>> itemsByConfigName = new LinkedHashMap<>();
+        for (OverrideItem item : overrides) {
+            itemsByConfigName
+                    .computeIfAbsent(item.getConfigName(), key -> new ArrayList<>())
+                    .add(item);
+        }
+        Map<String, ConfigNameOverrides> map = new HashMap<>();
+        for (Map.Entry<String, List<OverrideItem>> entry : itemsByConfigName.entrySet()) {
+            map.put(entry.getKey(), new ConfigNameOverrides(entry.getValue()));
+        }
+        this.configNameOverrides = map;
+    }
+
+    /**
+     * Get overrides for the given context path and configuration name.
+     * @param contextPath Context path
+     * @param configName Configuration name
+     * @return Overrides or null if no override item matches
+     */
+    @Nullable
+    Overrides getOverrides(@NotNull String contextPath, @NotNull String configName) {
+        ConfigNameOverrides overrides = configNameOverrides.get(configName);
+        if (overrides == null) {
+            return null;
+        }
+        return overrides.getOverrides(contextPath);
+    }
+
+    /**
+     * Override property layers for a context path and configuration name.
+     */
+    static final class Overrides {
+
+        private final List<Map<String, Object>> layers;
+        private final boolean allProperties;
+
+        Overrides(List<Map<String, Object>> layers, boolean allProperties) {
+            this.layers = layers;
+            this.allProperties = allProperties;
+        }
+
+        /**
+         * Folds the given matching override items into property layers.
+         * @param items Matching override items in order of precedence
+         * @return Overrides or null if no items given
+         */
+        static Overrides of(List<OverrideItem> items) {
+            if (items.isEmpty()) {
+                return null;
+            }
+            // items before an item replacing all properties have no effect
+            int start = 0;
+            for (int i = items.size() - 1; i >= 0; i--) {
+                if (items.get(i).isAllProperties()) {
+                    start = i;
+                    break;
+                }
+            }
+            List<Map<String, Object>> layers = new ArrayList<>(items.size() - start);
+            for (int i = items.size() - 1; i >= start; i--) {
+                layers.add(items.get(i).getProperties());
+            }
+            return new Overrides(
+                    Collections.unmodifiableList(layers), items.get(start).isAllProperties());
+        }
+
+        /**
+         * @return Override properties ordered from highest to lowest priority
+         */
+        List<Map<String, Object>> getLayers() {
+            return layers;
+        }
+
+        /**
+         * @return If true, the configuration properties are replaced by the override properties,
+         *     otherwise the override properties are layered over the configuration properties.
+         */
+        boolean isAllProperties() {
+            return allProperties;
+        }
+    }
+
+    /**
+     * Overrides for a single configuration name.
+     */
+    private static final class ConfigNameOverrides {
+
+        private final Overrides globalOverrides;
+        private final PathTrie<Overrides> pathOverrides;
+        // only used if a path cannot be mapped to the path trie
+        private final List<OverrideItem> items;
+
+        ConfigNameOverrides(List<OverrideItem> items) {
+            Set<String> paths = new LinkedHashSet<>();
+            List<OverrideItem> globalItems = new ArrayList<>();
+            boolean allPathsIndexable = true;
+            for (OverrideItem item : items) {
+                String path = item.getMatchPath();
+                if (path == null) {
+                    globalItems.add(item);
+                } else if (isIndexable(path)) {
+                    paths.add(path);
+                } else {
+                    allPathsIndexable = false;
+                }
+            }
+            if (allPathsIndexable) {
+                this.globalOverrides = Overrides.of(globalItems);
+                this.pathOverrides = new PathTrie<>();
+                for (String path : paths) {
+                    pathOverrides.put(path, Overrides.of(getMatchingItems(items, path)));
+                }
+                this.items = null;
+            } else {
+                this.globalOverrides = null;
+                this.pathOverrides = null;
+                this.items = items;
+            }
+        }
+
+        /**
+         * Paths like "/" or with trailing or duplicate slashes match only paths with an empty path segment
+         * and thus cannot be mapped to the path trie.
+         */
+        private static boolean isIndexable(String path) {
+            return path.length() > 1 && !path.endsWith("/") && !path.contains("//");
+        }
+
+        private static List<OverrideItem> getMatchingItems(Collection<OverrideItem> items, String contextPath) {
+            List<OverrideItem> result = new ArrayList<>();
+            for (OverrideItem item : items) {
+                if (item.matchesPath(contextPath)) {
+                    result.add(item);
+                }
+            }
+            return result;
+        }
+
+        Overrides getOverrides(String contextPath) {
+            if (items != null) {
+                return Overrides.of(getMatchingItems(items, contextPath));
+            }
+            // deepest match contains all overrides for ancestor paths and global overrides
+            Overrides overrides = pathOverrides.getClosestAncestorOrSelf(contextPath);
+            return overrides != null ? overrides : globalOverrides;
+        }
+    }
+}
@@ -19,7 +19,6 @@
 package org.apache.sling.caconfig.impl.override;
 
 import java.util.Map;
-import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.ToStringBuilder;
@@ -31,26 +30,19 @@ import org.apache.commons.lang3.builder.ToStringStyle;
 class OverrideItem {
 
     private final String path;
-    private final Pattern pathPattern;
+    private final String matchPath;
     private final String configName;
     private final Map<String, Object> properties;
     private final boolean allProperties;
 
     public OverrideItem(String path, String configName, Map<String, Object> properties, boolean allProperties) {
         this.path = path;
-        this.pathPattern = toPathPattern(path);
+        this.matchPath = StringUtils.isBlank(path) ? null : StringUtils.trim(path);
         this.configName = configName;
         this.properties = properties;
         this.allProperties = allProperties;
     }
 
-    private static Pattern toPathPattern(String path) {
-        if (StringUtils.isBlank(path)) {
-            return null;
-        }
-        return Pattern.compile("^" + Pattern.quote(StringUtils.trim(path)) + "(/.*)?$");
-    }
-
     /**
      * @return Path (incl. subtree) to match - or null for all paths
      */
@@ -63,13 +55,21 @@ class OverrideItem {
      * @return true if path matches
      */
     public boolean matchesPath(String path) {
-        if (pathPattern == null) {
+        if (matchPath == null) {
             return true;
         } else {
-            return pathPattern.matcher(path).matches();
+            return path.startsWith(matchPath)
+                    && (path.length() == matchPath.length() || path.charAt(matchPath.length()) == '/');
         }
     }
 
+    /**
+     * @return Trimmed path (incl. subtree) to match - or null for all paths
+     */
+    String getMatchPath() {
+        return matchPath;
+    }
+
     /**
      * @return Configuration name (may contain a relative hierarchy with "/")
      */
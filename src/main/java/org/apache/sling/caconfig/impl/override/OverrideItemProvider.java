@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl.override;
+
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Implemented by override providers of this bundle that parse their override strings themselves, e.g. per file,
+ * so the {@link ConfigurationOverrideMultiplexerImpl} does not need to parse all override strings again
+ * when only a part of them has changed.
+ */
+interface OverrideItemProvider {
+
+    /**
+     * @return Parsed override items. The same instance is returned as long as the override strings are unchanged.
+     */
+    @NotNull
+    List<OverrideItem> getOverrideItems();
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl.resolver;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * Resolves several configurations for the same content resource in one pass. The context resources and
+ * config-root chain of the content resource are computed only once for all configurations.
+ * Get an instance via {@link PreparedConfigurationResolver#batch(org.apache.sling.api.resource.Resource)}.
+ */
+@ProviderType
+public interface BatchConfigurationBuilder {
+
+    /**
+     * Get singleton configurations for the given configuration annotation classes. The configuration names
+     * are derived from the annotation classes.
+     * @param classes Configuration annotation classes
+     * @return Configuration objects by annotation class, in the order of the given classes
+     * @throws org.apache.sling.caconfig.ConfigurationResolveException if a class is not a configuration annotation class
+     */
+    @NotNull
+    Map<Class<?>, Object> asAll(@NotNull Collection<? extends Class<?>> classes);
+
+    /**
+     * Get singleton configurations as value maps for the given configuration names.
+     * @param configNames Configuration names
+     * @return Value maps by configuration name, in the order of the given names
+     * @throws IllegalArgumentException if a configuration name is not valid
+     */
+    @NotNull
+    Map<String, ValueMap> asValueMaps(@NotNull Collection<String> configNames);
+}
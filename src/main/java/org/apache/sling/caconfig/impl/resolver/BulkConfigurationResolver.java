@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl.resolver;
+
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+import org.apache.sling.api.resource.Resource;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * Resolves a configuration for all resources of a content subtree in parallel, intended for offline jobs
+ * like exports or index builds. The subtree is traversed by a pool of worker threads, each using its own clone
+ * of the resource resolver of the root resource.
+ */
+@ProviderType
+public interface BulkConfigurationResolver {
+
+    /**
+     * Resolve configuration for the given root resource and all its descendants accepted by the filter.
+     * The method returns when all resources are processed.
+     * <p>
+     * The consumer is called on the worker threads and has to be thread-safe. Workers wait for the consumer, so
+     * a slow consumer slows down the traversal. The resources passed to the consumer belong to the cloned
+     * resource resolver of the worker and are only valid within the call. This applies to the configuration
+     * objects as well, as nested configurations and lazily inherited properties are read on access.
+     * The order of the calls is undefined.
+     * </p>
+     * @param root Root resource of the content subtree
+     * @param configuration Prepared configuration handle
+     * @param filter Filter for the resources to resolve the configuration for. Resources not accepted are
+     *     skipped together with their descendants.
+     * @param consumer Receives each resource with its configuration object
+     * @param <T> Target type
+     * @throws org.apache.sling.caconfig.ConfigurationResolveException if the resource resolver cannot be cloned
+     */
+    <T> void resolveTree(
+            @NotNull Resource root,
+            @NotNull PreparedConfiguration<T> configuration,
+            @NotNull Predicate<Resource> filter,
+            @NotNull BiConsumer<Resource, T> consumer);
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl.resolver;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+
+import org.apache.sling.api.resource.Resource;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * Handle for reading one configuration (identified by configuration name and target type) for different
+ * content resources. All work that does not depend on the content resource is done once when the handle
+ * is prepared, so a handle may be kept and reused for hot code paths.
+ * @param <T> Target type
+ */
+@ProviderType
+public interface PreparedConfiguration<T> {
+
+    /**
+     * @return Configuration name
+     */
+    @NotNull
+    String getName();
+
+    /**
+     * Get singleton configuration for the given content resource.
+     * @param resource Content resource
+     * @return Configuration object
+     */
+    @NotNull
+    T get(@NotNull Resource resource);
+
+    /**
+     * Get singleton configurations for many content resources, e.g. for all pages of a site.
+     * Context resources and config-root chains found for a resource are reused for its siblings and
+     * descendants, so the resources should be passed in tree order.
+     * @param resources Content resources
+     * @param consumer Receives each content resource with its configuration object, in the order of the resources
+     */
+    void getAll(@NotNull Iterator<? extends Resource> resources, @NotNull BiConsumer<Resource, T> consumer);
+
+    /**
+     * Get configuration collection for the given content resource.
+     * @param resource Content resource
+     * @return Collection of configuration objects. Is never null, may be empty.
+     */
+    @NotNull
+    Collection<T> getCollection(@NotNull Resource resource);
+
+    /**
+     * Checks whether a configuration resource exists for the given content resource.
+     * @param resource Content resource
+     * @return {@code true} if a configuration resource exists
+     */
+    boolean has(@NotNull Resource resource);
+}
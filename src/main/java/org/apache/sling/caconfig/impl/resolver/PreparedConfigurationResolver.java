@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl.resolver;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * Prepares {@link PreparedConfiguration} handles, as an alternative to
+ * {@link org.apache.sling.caconfig.ConfigurationResolver} for hot code paths reading the same configuration
+ * for many content resources.
+ */
+@ProviderType
+public interface PreparedConfigurationResolver {
+
+    /**
+     * Prepare handle for a configuration annotation class. The configuration name is derived from the annotation class.
+     * @param clazz Configuration annotation class
+     * @param <T> Annotation class type
+     * @return Prepared configuration handle
+     * @throws IllegalArgumentException if the class is not a configuration annotation class
+     */
+    @NotNull
+    <T> PreparedConfiguration<T> prepare(@NotNull Class<T> clazz);
+
+    /**
+     * Prepare handle for a configuration name.
+     * @param configName Configuration name
+     * @param clazz Configuration annotation class, {@link ValueMap} or any class the configuration resource
+     *     can be adapted to
+     * @param <T> Target type
+     * @return Prepared configuration handle
+     * @throws IllegalArgumentException if the configuration name is not valid
+     */
+    @NotNull
+    <T> PreparedConfiguration<T> prepare(@NotNull String configName, @NotNull Class<T> clazz);
+
+    /**
+     * Get builder resolving several configurations for the given content resource in one pass.
+     * @param resource Content resource
+     * @return Batch configuration builder
+     */
+    @NotNull
+    BatchConfigurationBuilder batch(@NotNull Resource resource);
+}
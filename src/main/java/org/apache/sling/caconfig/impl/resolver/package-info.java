@@ -0,0 +1,28 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+/**
+ * Configuration resolver extensions of the Context-Aware configuration implementation for applications
+ * reading configuration on hot code paths or for many content resources.
+ * The package is owned and exported by the implementation bundle, it is not part of the Context-Aware
+ * configuration API. All resolver extensions of the implementation are placed here, see
+ * {@link org.apache.sling.caconfig.impl.resolver.PreparedConfigurationResolver} as entry point, and
+ * {@link org.apache.sling.caconfig.impl.resolver.BulkConfigurationResolver} for whole content subtrees.
+ */
+@org.osgi.annotation.versioning.Version("1.0.0")
+package org.apache.sling.caconfig.impl.resolver;
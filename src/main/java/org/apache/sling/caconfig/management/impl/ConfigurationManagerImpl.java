@@ -24,13 +24,13 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.collections4.IteratorUtils;
-import org.apache.commons.collections4.ResettableIterator;
 import org.apache.commons.collections4.Transformer;
-import org.apache.commons.collections4.iterators.ListIteratorWrapper;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
 import org.apache.sling.api.resource.Resource;
@@ -46,6 +46,7 @@ import org.apache.sling.caconfig.management.multiplexer.ConfigurationOverrideMul
 import org.apache.sling.caconfig.management.multiplexer.ConfigurationPersistenceStrategyMultiplexer;
 import org.apache.sling.caconfig.management.multiplexer.ConfigurationResourceResolvingStrategyMultiplexer;
 import org.apache.sling.caconfig.resource.impl.util.ConfigNameUtil;
+import org.apache.sling.caconfig.resource.impl.util.IteratorBuffer;
 import org.apache.sling.caconfig.resource.impl.util.MapUtil;
 import org.apache.sling.caconfig.spi.ConfigurationCollectionPersistData;
 import org.apache.sling.caconfig.spi.ConfigurationPersistData;
@@ -84,9 +85,12 @@ public class ConfigurationManagerImpl implements ConfigurationManager {
     @Reference
     private ConfigurationManagementSettings configurationManagementSettings;
 
+    private volatile MetadataLookupIndex metadataLookupIndex;
+
+    private static final int MAX_METADATA_LOOKUP_ENTRIES = 10000;
+
     private static final Logger log = LoggerFactory.getLogger(ConfigurationManagerImpl.class);
 
-    @SuppressWarnings("unchecked")
     @Override
     public ConfigurationData getConfiguration(@NotNull Resource resource, @NotNull String configName) {
         ConfigNameUtil.ensureValidConfigName(configName);
@@ -101,14 +105,10 @@ public class ConfigurationManagerImpl implements ConfigurationManager {
                         resource, configurationResourceResolverConfig.configBucketNames(), configName);
 
         if (configResourceInheritanceChain != null) {
-            ResettableIterator resettableConfigResourceInheritanceChain =
-                    new ListIteratorWrapper(configResourceInheritanceChain);
+            // chain is evaluated by the inheritance strategy and by the configuration data independently
+            IteratorBuffer<Resource> configResources = new IteratorBuffer<>(configResourceInheritanceChain);
             configResource = applyPersistenceAndInheritance(
-                    resource.getPath(),
-                    configName,
-                    resettableConfigResourceInheritanceChain,
-                    false,
-                    resource.getResourceResolver());
+                    resource.getPath(), configName, configResources.iterator(), false, resource.getResourceResolver());
             if (configResource != null) {
                 // get writeback resource for "reverse inheritance detection"
                 Resource writebackConfigResource = null;
@@ -134,12 +134,11 @@ public class ConfigurationManagerImpl implements ConfigurationManager {
                             + MapUtil.traceOutput(configResource.getValueMap()) + ", "
                             + "writeback config resource: " + writebackConfigResourcePath);
                 }
-                resettableConfigResourceInheritanceChain.reset();
                 return new ConfigurationDataImpl(
                         configMetadata,
                         configResource,
                         writebackConfigResource,
-                        applyPersistence(resettableConfigResourceInheritanceChain, false),
+                        applyPersistence(configResources.iterator(), false),
                         resource,
                         configName,
                         this,
@@ -184,7 +183,6 @@ public class ConfigurationManagerImpl implements ConfigurationManager {
         return null;
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public @NotNull ConfigurationCollectionData getConfigurationCollection(
             @NotNull Resource resource, @NotNull String configName) {
@@ -214,16 +212,11 @@ public class ConfigurationManagerImpl implements ConfigurationManager {
 
         String writebackConfigResourceCollectionParentPath = null;
         for (Iterator<Resource> configResourceInheritanceChain : configResourceInheritanceChains) {
-            ResettableIterator resettableConfigResourceInheritanceChain =
-                    new ListIteratorWrapper(configResourceInheritanceChain);
+            // chain is evaluated by the inheritance strategy and by the configuration data independently
+            IteratorBuffer<Resource> configResources = new IteratorBuffer<>(configResourceInheritanceChain);
             Resource configResource = applyPersistenceAndInheritance(
-                    resource.getPath(),
-                    configName,
-                    resettableConfigResourceInheritanceChain,
-                    true,
-                    resource.getResourceResolver());
-            resettableConfigResourceInheritanceChain.reset();
-            Resource untransformedConfigResource = (Resource) resettableConfigResourceInheritanceChain.next();
+                    resource.getPath(), configName, configResources.iterator(), true, resource.getResourceResolver());
+            Resource untransformedConfigResource = configResources.iterator().next();
             if (configResource != null) {
                 // get writeback resource for "reverse inheritance detection"
                 Resource writebackConfigResource = null;
@@ -255,12 +248,11 @@ public class ConfigurationManagerImpl implements ConfigurationManager {
                             + MapUtil.traceOutput(configResource.getValueMap()) + ", "
                             + "writeback config resource: " + writebackConfigResourcePath);
                 }
-                resettableConfigResourceInheritanceChain.reset();
                 configData.add(new ConfigurationDataImpl(
                         configMetadata,
                         configResource,
                         writebackConfigResource,
-                        applyPersistence(resettableConfigResourceInheritanceChain, true),
+                        applyPersistence(configResources.iterator(), true),
                         resource,
                         configName,
                         this,
@@ -452,6 +444,32 @@ public class ConfigurationManagerImpl implements ConfigurationManager {
     @Override
     public ConfigurationMetadata getConfigurationMetadata(@NotNull String configName) {
         ConfigNameUtil.ensureValidConfigName(configName);
+        MetadataLookupIndex index = getMetadataLookupIndex();
+        Optional<ConfigurationMetadata> metadata = index.entries.get(configName);
+        if (metadata == null) {
+            metadata = Optional.ofNullable(lookupConfigurationMetadata(configName));
+            index.put(configName, metadata);
+        }
+        return metadata.orElse(null);
+    }
+
+    /**
+     * Get index of metadata lookup results, which is valid as long as the metadata providers and persistence
+     * strategies do not change.
+     * @return Metadata lookup index
+     */
+    private MetadataLookupIndex getMetadataLookupIndex() {
+        long metadataGeneration = configurationMetadataProvider.getSnapshot().getGeneration();
+        long persistenceGeneration = configurationPersistenceStrategy.getGeneration();
+        MetadataLookupIndex index = metadataLookupIndex;
+        if (index == null || !index.isValid(metadataGeneration, persistenceGeneration)) {
+            index = new MetadataLookupIndex(metadataGeneration, persistenceGeneration);
+            metadataLookupIndex = index;
+        }
+        return index;
+    }
+
+    private ConfigurationMetadata lookupConfigurationMetadata(String configName) {
         ConfigurationMetadata metadata = configurationMetadataProvider.getConfigurationMetadata(configName);
         if (metadata != null) {
             log.trace("+ Configuration metadata found for: {}", configName);
@@ -542,4 +560,33 @@ public class ConfigurationManagerImpl implements ConfigurationManager {
     public String getPersistenceResourcePath(@NotNull String configResourcePath) {
         return configurationPersistenceStrategy.getResourcePath(configResourcePath);
     }
+
+    /**
+     * Results of configuration metadata lookups by full (nested) configuration name, including names without
+     * metadata. Valid for the given generations of metadata providers and persistence strategies.
+     */
+    private static final class MetadataLookupIndex {
+
+        private final long metadataGeneration;
+        private final long persistenceGeneration;
+        private final Map<String, Optional<ConfigurationMetadata>> entries = new ConcurrentHashMap<>();
+
+        MetadataLookupIndex(long metadataGeneration, long persistenceGeneration) {
+            this.metadataGeneration = metadataGeneration;
+            this.persistenceGeneration = persistenceGeneration;
+        }
+
+        boolean isValid(long currentMetadataGeneration, long currentPersistenceGeneration) {
+            return metadataGeneration == currentMetadataGeneration
+                    && persistenceGeneration == currentPersistenceGeneration;
+        }
+
+        void put(String configName, Optional<ConfigurationMetadata> metadata) {
+            // start over instead of evicting single entries if the index grows too big
+            if (entries.size() >= MAX_METADATA_LOOKUP_ENTRIES) {
+                entries.clear();
+            }
+            entries.put(configName, metadata);
+        }
+    }
 }
@@ -22,6 +22,7 @@ import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
@@ -58,15 +59,23 @@ import org.osgi.service.component.annotations.ReferencePolicyOption;
 public class ConfigurationPersistenceStrategyMultiplexerImpl implements ConfigurationPersistenceStrategyMultiplexer {
 
     private RankedServices<ConfigurationPersistenceStrategy2> items = new RankedServices<>(Order.DESCENDING);
+    private final AtomicLong generation = new AtomicLong();
 
     protected void bindConfigurationPersistenceStrategy(
             ConfigurationPersistenceStrategy2 configurationPersistenceStrategy, Map<String, Object> props) {
         items.bind(configurationPersistenceStrategy, props);
+        generation.incrementAndGet();
     }
 
     protected void unbindConfigurationPersistenceStrategy(
             ConfigurationPersistenceStrategy2 configurationPersistenceStrategy, Map<String, Object> props) {
         items.unbind(configurationPersistenceStrategy, props);
+        generation.incrementAndGet();
+    }
+
+    @Override
+    public long getGeneration() {
+        return generation.get();
     }
 
     /**
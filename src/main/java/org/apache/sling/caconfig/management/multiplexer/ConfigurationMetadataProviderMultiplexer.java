@@ -19,6 +19,7 @@
 package org.apache.sling.caconfig.management.multiplexer;
 
 import org.apache.sling.caconfig.spi.ConfigurationMetadataProvider;
+import org.jetbrains.annotations.NotNull;
 import org.osgi.annotation.versioning.ProviderType;
 
 /**
@@ -30,4 +31,11 @@ public interface ConfigurationMetadataProviderMultiplexer extends ConfigurationM
 
     // inherits all methods from {@link ConfigurationMetadataProvider}
 
+    /**
+     * Get snapshot of the configuration names and metadata of all providers.
+     * The snapshot is reused as long as the providers and their configuration names do not change.
+     * @return Current snapshot
+     */
+    @NotNull
+    ConfigurationMetadataSnapshot getSnapshot();
 }
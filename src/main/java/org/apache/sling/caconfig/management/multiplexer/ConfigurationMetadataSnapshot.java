@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.management.multiplexer;
+
+import java.util.SortedSet;
+
+import org.apache.sling.caconfig.spi.metadata.ConfigurationMetadata;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * Immutable snapshot of the configuration names and metadata of all configuration metadata providers.
+ * A new snapshot with a higher generation is created when providers are added or removed, or the configuration
+ * names of a provider changed. Callers may keep derived data together with the generation and compare it to the
+ * generation of the current snapshot to detect if it is outdated.
+ */
+@ProviderType
+public interface ConfigurationMetadataSnapshot {
+
+    /**
+     * @return Generation of this snapshot. Higher generations are created later.
+     */
+    long getGeneration();
+
+    /**
+     * @return Sorted set of all configuration names. The set is immutable.
+     */
+    @NotNull
+    SortedSet<String> getConfigurationNames();
+
+    /**
+     * Get configuration metadata from first provider (ranking priority) that has an answer.
+     * Metadata of configuration names contained in this snapshot is looked up only once.
+     * @param configName Configuration name
+     * @return Configuration metadata or null if none exists for the given name
+     */
+    @Nullable
+    ConfigurationMetadata getConfigurationMetadata(@NotNull String configName);
+}
@@ -54,4 +54,12 @@ public interface ConfigurationPersistenceStrategyMultiplexer extends Configurati
      */
     @NotNull
     Collection<String> getAllCollectionItemConfigNames(@NotNull String configName);
+
+    /**
+     * Get generation of the set of configuration persistence strategies. It changes each time a persistence strategy
+     * is added or removed, callers may use it to detect that results derived from the configuration name
+     * mappings are outdated.
+     * @return Generation
+     */
+    long getGeneration();
 }
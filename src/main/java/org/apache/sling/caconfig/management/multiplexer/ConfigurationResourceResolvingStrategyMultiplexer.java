@@ -30,4 +30,10 @@ public interface ConfigurationResourceResolvingStrategyMultiplexer extends Confi
 
     // inherits all methods from {@link ConfigurationResourceResolvingStrategy}
 
+    /**
+     * Checks if the default configuration resource resolving strategy is enabled and ranked highest, so it
+     * answers all requests. Only then results may be cached by the config-root chains it computes.
+     * @return true if the default strategy is the effective one
+     */
+    boolean isDefaultStrategyEffective();
 }
@@ -24,6 +24,7 @@ import java.util.Map;
 
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.caconfig.management.multiplexer.ConfigurationResourceResolvingStrategyMultiplexer;
+import org.apache.sling.caconfig.resource.impl.def.DefaultConfigurationResourceResolvingStrategy;
 import org.apache.sling.caconfig.resource.spi.ConfigurationResourceResolvingStrategy;
 import org.apache.sling.commons.osgi.Order;
 import org.apache.sling.commons.osgi.RankedServices;
@@ -65,6 +66,17 @@ public class ConfigurationResourceResolvingStrategyMultiplexerImpl
         items.unbind(contextPathStrategy, props);
     }
 
+    @Override
+    public boolean isDefaultStrategyEffective() {
+        Iterator<ConfigurationResourceResolvingStrategy> iterator = items.iterator();
+        if (!iterator.hasNext()) {
+            return false;
+        }
+        ConfigurationResourceResolvingStrategy first = iterator.next();
+        return first instanceof DefaultConfigurationResourceResolvingStrategy
+                && ((DefaultConfigurationResourceResolvingStrategy) first).isEnabled();
+    }
+
     /**
      * Gets the configuration resource from the first implementation that has an answer.
      */
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.resource.impl.def;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChange.ChangeType;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the configuration names existing in each bucket of a config root, used by
+ * {@link DefaultConfigurationResourceResolvingStrategy} to skip repository lookups for configuration resources
+ * that do not exist. Only the first segment of the configuration name is indexed: if it does not exist, no
+ * configuration resource with this name can exist.
+ * <p>
+ * The child names of a bucket resource are listed lazily with a service resource resolver on first access and
+ * dropped when resources are added or removed below it. The index is a superset of what is visible to a user
+ * resource resolver: a positive answer still requires a lookup with the user resource resolver.
+ * </p>
+ */
+final class ConfigurationExistenceIndex implements ResourceChangeListener, ExternalResourceChangeListener {
+
+    private final ResourceResolverFactory resolverFactory;
+    private final Map<String, Set<String>> bucketChildNames = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private ServiceRegistration<ResourceChangeListener> listenerRegistration;
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigurationExistenceIndex.class);
+
+    ConfigurationExistenceIndex(ResourceResolverFactory resolverFactory) {
+        this.resolverFactory = resolverFactory;
+    }
+
+    /**
+     * Registers the change listener.
+     * @param bundleContext Bundle context
+     * @param paths Config paths and fallback paths to observe
+     * @return true if the index can be used, false if no service resource resolver is available
+     */
+    synchronized boolean start(BundleContext bundleContext, Collection<String> paths) {
+        try (ResourceResolver resolver = resolverFactory.getServiceResourceResolver(null)) {
+            // just check service resource resolver is available
+        } catch (LoginException ex) {
+            log.warn("Unable to get service resource resolver - configuration existence index is not used.", ex);
+            return false;
+        }
+        Hashtable<String, Object> props = new Hashtable<>();
+        props.put(ResourceChangeListener.PATHS, paths.toArray(new String[0]));
+        props.put(ResourceChangeListener.CHANGES, new String[] {ChangeType.ADDED.name(), ChangeType.REMOVED.name()});
+        listenerRegistration = bundleContext.registerService(ResourceChangeListener.class, this, props);
+        return true;
+    }
+
+    /**
+     * Unregisters the change listener and clears the index.
+     */
+    synchronized void stop() {
+        if (listenerRegistration != null) {
+            listenerRegistration.unregister();
+            listenerRegistration = null;
+        }
+        invalidateAll();
+    }
+
+    /**
+     * Checks if a configuration resource may exist.
+     * @param path Config root path
+     * @param bucketName Bucket name
+     * @param configName Configuration name
+     * @return false if the configuration resource does definitely not exist
+     */
+    boolean mayExist(@NotNull String path, @NotNull String bucketName, @NotNull String configName) {
+        String bucketPath = ResourceUtil.normalize(path + "/" + bucketName);
+        if (bucketPath == null) {
+            return true;
+        }
+        Set<String> childNames = bucketChildNames.get(bucketPath);
+        if (childNames == null) {
+            childNames = listChildNames(bucketPath);
+            if (childNames == null) {
+                return true;
+            }
+        }
+        int separator = configName.indexOf('/');
+        return childNames.contains(separator < 0 ? configName : configName.substring(0, separator));
+    }
+
+    private Set<String> listChildNames(String bucketPath) {
+        long currentGeneration = generation.get();
+        Set<String> childNames = new HashSet<>();
+        try (ResourceResolver resolver = resolverFactory.getServiceResourceResolver(null)) {
+            Resource bucket = resolver.getResource(bucketPath);
+            if (bucket != null) {
+                for (Resource child : bucket.getChildren()) {
+                    childNames.add(child.getName());
+                }
+            }
+        } catch (LoginException ex) {
+            log.debug("Unable to get service resource resolver to list {}", bucketPath, ex);
+            return null;
+        }
+        childNames = childNames.isEmpty() ? Collections.emptySet() : childNames;
+        log.trace("o Index configuration names in {}: {}", bucketPath, childNames);
+        // do not store listing if an invalidation took place in the meantime
+        synchronized (generation) {
+            if (generation.get() == currentGeneration) {
+                bucketChildNames.put(bucketPath, childNames);
+            }
+        }
+        return childNames;
+    }
+
+    @Override
+    public void onChange(@NotNull List<ResourceChange> changes) {
+        synchronized (generation) {
+            generation.incrementAndGet();
+            for (ResourceChange change : changes) {
+                String path = change.getPath();
+                String parentPath = ResourceUtil.getParent(path);
+                bucketChildNames
+                        .keySet()
+                        .removeIf(bucketPath -> bucketPath.equals(parentPath)
+                                || bucketPath.equals(path)
+                                || bucketPath.startsWith(path + "/"));
+            }
+        }
+    }
+
+    private void invalidateAll() {
+        synchronized (generation) {
+            generation.incrementAndGet();
+            bucketChildNames.clear();
+        }
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.resource.impl.def;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChange.ChangeType;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.apache.sling.caconfig.resource.impl.util.PathTrie;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.apache.sling.caconfig.resource.impl.def.ConfigurationResourceNameConstants.PROPERTY_CONFIG_REF;
+
+/**
+ * In-memory index of all context paths (resources carrying a configuration reference) below the configured
+ * index root paths with their configuration reference, used by {@link DefaultContextPathStrategy} in index mode.
+ * The index is bootstrapped asynchronously by a query and kept up-to-date by observation, both using a service
+ * resource resolver. Until the initial build is finished, {@link #isReady()} returns false and the strategy falls
+ * back to walking up the resource hierarchy.
+ * <p>
+ * Change events are handled without queries: only the changed resource itself, and for added resources the
+ * resource owning it as configured config ref. resource name, is checked. This relies on the resource change
+ * listener reporting an event for each added resource, which is the case for the JCR resource provider.</p>
+ */
+final class ContextPathIndex implements ResourceChangeListener, ExternalResourceChangeListener {
+
+    private static final String QUERY_LANGUAGE = "JCR-SQL2";
+
+    private final ResourceResolverFactory resolverFactory;
+    private final DefaultContextPathStrategy.Config config;
+    private final Set<String> configRefPropertyNames;
+    private final String[] rootPaths;
+    private final PathTrie<String> contextPaths = new PathTrie<>();
+    private ServiceRegistration<ResourceChangeListener> listenerRegistration;
+    private ExecutorService buildExecutor;
+    private volatile boolean ready;
+
+    // paths updated by change events while the initial build is running - the build must not overwrite them
+    private final Set<String> changedDuringBuild = new HashSet<>();
+    private final PathTrie<Boolean> removedDuringBuild = new PathTrie<>();
+
+    private static final Logger log = LoggerFactory.getLogger(ContextPathIndex.class);
+
+    ContextPathIndex(ResourceResolverFactory resolverFactory, DefaultContextPathStrategy.Config config) {
+        this.resolverFactory = resolverFactory;
+        this.config = config;
+        this.configRefPropertyNames = new LinkedHashSet<>();
+        this.configRefPropertyNames.add(PROPERTY_CONFIG_REF);
+        if (!ArrayUtils.isEmpty(config.configRefPropertyNames())) {
+            this.configRefPropertyNames.addAll(List.of(config.configRefPropertyNames()));
+        }
+        this.rootPaths = ArrayUtils.isEmpty(config.indexRootPaths()) ? new String[] {"/"} : config.indexRootPaths();
+    }
+
+    /**
+     * Registers the change listener and starts building the index on a single-thread executor,
+     * which is shut down by {@link #stop()}.
+     * @param bundleContext Bundle context
+     */
+    synchronized void start(BundleContext bundleContext) {
+        // register listener first to not miss any change while the index is built
+        Hashtable<String, Object> props = new Hashtable<>();
+        props.put(ResourceChangeListener.PATHS, rootPaths);
+        props.put(ResourceChangeListener.PROPERTY_NAMES_HINT, configRefPropertyNames.toArray(new String[0]));
+        listenerRegistration = bundleContext.registerService(ResourceChangeListener.class, this, props);
+
+        buildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Sling CA Config Context Path Index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        buildExecutor.execute(this::build);
+    }
+
+    /**
+     * Unregisters the change listener, stops a running build and clears the index.
+     */
+    void stop() {
+        ExecutorService executor;
+        synchronized (this) {
+            if (listenerRegistration != null) {
+                listenerRegistration.unregister();
+                listenerRegistration = null;
+            }
+            executor = buildExecutor;
+            buildExecutor = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            ready = false;
+            contextPaths.clear();
+            changedDuringBuild.clear();
+            removedDuringBuild.clear();
+        }
+    }
+
+    /**
+     * @return true if the initial build is finished and the index can be used
+     */
+    boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @param path Resource path
+     * @return true if the given path is one of the index root paths or a descendant of it
+     */
+    boolean isIndexed(@NotNull String path) {
+        for (String rootPath : rootPaths) {
+            if ("/".equals(rootPath) || path.equals(rootPath) || path.startsWith(rootPath + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get all context paths for the given resource path.
+     * @param path Resource path
+     * @return Context paths with their configuration reference, ordered from the root down to the given path
+     */
+    @NotNull
+    List<Map.Entry<String, String>> getContextPaths(@NotNull String path) {
+        return contextPaths.getAncestorsOrSelf(path);
+    }
+
+    /**
+     * Builds the index for all root paths by a query.
+     */
+    private void build() {
+        try (ResourceResolver resolver = resolverFactory.getServiceResourceResolver(null)) {
+            Set<String> candidates = new LinkedHashSet<>();
+            for (String rootPath : rootPaths) {
+                candidates.add(rootPath);
+                Iterator<Resource> hits = resolver.findResources(buildQuery(rootPath), QUERY_LANGUAGE);
+                while (hits.hasNext()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    String path = hits.next().getPath();
+                    if (isIndexed(path)) {
+                        candidates.addAll(getCandidateContextPaths(path));
+                    }
+                }
+            }
+            for (String contextPath : candidates) {
+                synchronized (this) {
+                    if (Thread.currentThread().isInterrupted() || listenerRegistration == null) {
+                        return;
+                    }
+                    if (!changedDuringBuild.contains(contextPath)
+                            && removedDuringBuild.getClosestAncestorOrSelf(contextPath) == null) {
+                        updateContextPath(resolver, contextPath);
+                    }
+                }
+            }
+            synchronized (this) {
+                if (listenerRegistration != null) {
+                    changedDuringBuild.clear();
+                    removedDuringBuild.clear();
+                    ready = true;
+                    log.debug("Built context path index with {} entries.", contextPaths.size());
+                }
+            }
+        } catch (LoginException ex) {
+            log.warn("Unable to get service resource resolver - context path index is not used.", ex);
+        } catch (RuntimeException ex) {
+            log.warn("Unable to build context path index - context path index is not used.", ex);
+        }
+    }
+
+    @Override
+    public synchronized void onChange(@NotNull List<ResourceChange> changes) {
+        if (listenerRegistration == null) {
+            return;
+        }
+        try (ResourceResolver resolver = resolverFactory.getServiceResourceResolver(null)) {
+            for (ResourceChange change : changes) {
+                String path = change.getPath();
+                if (!isIndexed(path)) {
+                    continue;
+                }
+                if (change.getType() == ChangeType.REMOVED) {
+                    contextPaths.removeTree(path);
+                    if (!ready) {
+                        removedDuringBuild.put(path, Boolean.TRUE);
+                    }
+                    for (String contextPath : getCandidateContextPaths(path)) {
+                        if (!contextPath.equals(path)) {
+                            updateContextPathOnChange(resolver, contextPath);
+                        }
+                    }
+                } else {
+                    for (String contextPath : getCandidateContextPaths(path)) {
+                        updateContextPathOnChange(resolver, contextPath);
+                    }
+                    if (change.getType() == ChangeType.ADDED && !ArrayUtils.isEmpty(config.configRefResourceNames())) {
+                        // the added resource may already contain a config ref. resource child
+                        updateContextPathOnChange(resolver, path);
+                    }
+                }
+            }
+        } catch (LoginException ex) {
+            log.warn("Unable to get service resource resolver - context path index may be outdated.", ex);
+        }
+    }
+
+    private String buildQuery(String rootPath) {
+        StringBuilder query = new StringBuilder("SELECT * FROM [nt:base] WHERE (");
+        boolean first = true;
+        for (String propertyName : configRefPropertyNames) {
+            if (!first) {
+                query.append(" OR ");
+            }
+            query.append('[').append(propertyName).append("] IS NOT NULL");
+            first = false;
+        }
+        query.append(')');
+        if (!"/".equals(rootPath)) {
+            query.append(" AND ISDESCENDANTNODE('")
+                    .append(rootPath.replace("'", "''"))
+                    .append("')");
+        }
+        return query.toString();
+    }
+
+    /**
+     * Get all paths that may be a context path depending on the given path,
+     * respecting the configured config ref. resource names.
+     * @param path Path of resource that carries or may carry a configuration reference
+     * @return Context path candidates
+     */
+    private List<String> getCandidateContextPaths(String path) {
+        if (ArrayUtils.isEmpty(config.configRefResourceNames())) {
+            return List.of(path);
+        }
+        List<String> result = new ArrayList<>(2);
+        String name = ResourceUtil.getName(path);
+        for (String resourceName : config.configRefResourceNames()) {
+            if (".".equals(resourceName)) {
+                result.add(path);
+            } else if (resourceName.equals(name)) {
+                String parentPath = ResourceUtil.getParent(path);
+                if (parentPath != null && isIndexed(parentPath)) {
+                    result.add(parentPath);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void updateContextPathOnChange(ResourceResolver resolver, String contextPath) {
+        if (!ready) {
+            changedDuringBuild.add(contextPath);
+        }
+        updateContextPath(resolver, contextPath);
+    }
+
+    private void updateContextPath(ResourceResolver resolver, String contextPath) {
+        Resource resource = resolver.getResource(contextPath);
+        String configRef = resource != null ? DefaultContextPathStrategy.getConfigRef(resource, config) : null;
+        if (configRef != null) {
+            log.trace("+ Index context path {}, configRef {}", contextPath, configRef);
+            contextPaths.put(contextPath, configRef);
+        } else {
+            contextPaths.remove(contextPath);
+        }
+    }
+}
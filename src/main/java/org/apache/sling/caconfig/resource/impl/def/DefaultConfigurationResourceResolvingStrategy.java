@@ -21,37 +21,44 @@ package org.apache.sling.caconfig.resource.impl.def;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.collections4.IteratorUtils;
 import org.apache.commons.collections4.Predicate;
 import org.apache.commons.collections4.PredicateUtils;
 import org.apache.commons.collections4.Transformer;
-import org.apache.commons.collections4.iterators.ArrayIterator;
 import org.apache.commons.collections4.iterators.FilterIterator;
-import org.apache.commons.collections4.iterators.IteratorChain;
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
 import org.apache.sling.api.resource.ResourceUtil;
 import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.caconfig.impl.ConfigurationResolutionCache;
 import org.apache.sling.caconfig.management.multiplexer.ContextPathStrategyMultiplexer;
 import org.apache.sling.caconfig.resource.impl.util.ConfigNameUtil;
 import org.apache.sling.caconfig.resource.impl.util.PathEliminateDuplicatesIterator;
 import org.apache.sling.caconfig.resource.impl.util.PathParentExpandIterator;
 import org.apache.sling.caconfig.resource.impl.util.PropertyUtil;
+import org.apache.sling.caconfig.resource.impl.util.ResolveScope;
 import org.apache.sling.caconfig.resource.spi.CollectionInheritanceDecider;
 import org.apache.sling.caconfig.resource.spi.ConfigurationResourceResolvingStrategy;
 import org.apache.sling.caconfig.resource.spi.ContextResource;
 import org.apache.sling.caconfig.resource.spi.InheritanceDecision;
 import org.jetbrains.annotations.NotNull;
+import org.osgi.framework.BundleContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
@@ -59,6 +66,7 @@ import org.osgi.service.component.annotations.FieldOption;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.Designate;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
@@ -98,10 +106,19 @@ public class DefaultConfigurationResourceResolvingStrategy implements Configurat
                                 + "always starting with " + PROPERTY_CONFIG_COLLECTION_INHERIT
                                 + ". Once a property with a value is found, that value is used and the following property names are skipped.")
         String[] configCollectionInheritancePropertyNames();
+
+        @AttributeDefinition(
+                name = "Existence index enabled",
+                description = "Keep an in-memory index of the configuration names existing in each configuration "
+                        + "bucket to skip lookups of non-existing configuration resources. "
+                        + "Requires a service user mapping for this bundle with read access to the configurations.")
+        boolean existenceIndexEnabled() default false;
     }
 
     private static final Logger log = LoggerFactory.getLogger(DefaultConfigurationResourceResolvingStrategy.class);
 
+    private static final int MAX_RESOLVE_PLANS = 10000;
+
     private volatile Config config;
 
     @Reference
@@ -113,42 +130,125 @@ public class DefaultConfigurationResourceResolvingStrategy implements Configurat
             fieldOption = FieldOption.REPLACE)
     private volatile List<CollectionInheritanceDecider> collectionInheritanceDeciders;
 
+    @Reference(
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            policyOption = ReferencePolicyOption.GREEDY)
+    private volatile ConfigurationResolutionCache resolutionCache;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policyOption = ReferencePolicyOption.GREEDY)
+    private ResourceResolverFactory resolverFactory;
+
+    private volatile ConfigurationExistenceIndex existenceIndex;
+
+    private volatile Map<ResolvePlanKey, ResolvePlan> resolvePlans = Collections.emptyMap();
+
     @Activate
-    private void activate(final Config config) {
+    private void activate(final BundleContext bundleContext, final Config config) {
         this.config = config;
+        this.resolvePlans = new ConcurrentHashMap<>();
+        if (config.enabled() && config.existenceIndexEnabled()) {
+            if (resolverFactory == null) {
+                log.warn("No resource resolver factory available - configuration existence index is not used.");
+                return;
+            }
+            Set<String> paths = new LinkedHashSet<>();
+            paths.add(config.configPath());
+            if (!ArrayUtils.isEmpty(config.fallbackPaths())) {
+                paths.addAll(List.of(config.fallbackPaths()));
+            }
+            ConfigurationExistenceIndex index = new ConfigurationExistenceIndex(resolverFactory);
+            if (index.start(bundleContext, paths)) {
+                this.existenceIndex = index;
+            }
+        }
     }
 
     @Deactivate
     private void deactivate() {
+        if (existenceIndex != null) {
+            existenceIndex.stop();
+            existenceIndex = null;
+        }
         this.config = null;
     }
 
-    @SuppressWarnings("unchecked")
     Iterator<String> getResolvePaths(final Resource contentResource, final Collection<String> bucketNames) {
-        return new IteratorChain(
-                // add all config references found in resource hierarchy
-                findConfigRefs(contentResource, bucketNames),
-                // finally add the global fallbacks
-                new ArrayIterator(this.config.fallbackPaths()));
+        final ResolveScope scope = ResolveScope.current();
+        if (scope == null) {
+            return getConfigRootChain(contentResource, bucketNames).iterator();
+        }
+        final ResourceResolver resourceResolver = contentResource.getResourceResolver();
+        List<String> configRootChain =
+                scope.getConfigRootChain(resourceResolver, contentResource.getPath(), bucketNames);
+        if (configRootChain == null) {
+            configRootChain = getConfigRootChain(contentResource, bucketNames);
+            scope.putConfigRootChain(resourceResolver, contentResource.getPath(), bucketNames, configRootChain);
+        }
+        return configRootChain.iterator();
+    }
+
+    private List<String> getConfigRootChain(final Resource contentResource, final Collection<String> bucketNames) {
+        final ConfigurationResolutionCache cache = this.resolutionCache;
+        if (cache == null || !cache.isEnabled()) {
+            return getResolvePlan(contentResource, bucketNames).getResolvePaths();
+        }
+        List<String> configRootChain = cache.getConfigRootChain(contentResource.getPath(), bucketNames);
+        if (configRootChain == null) {
+            configRootChain = getResolvePlan(contentResource, bucketNames).getResolvePaths();
+            cache.putConfigRootChain(contentResource.getPath(), bucketNames, configRootChain);
+        }
+        return configRootChain;
+    }
+
+    /**
+     * Get resolve plan for the config references found in the resource hierarchy of the given content resource.
+     * The plan only depends on the config references and bucket names, so it is compiled once and reused.
+     * @param contentResource Content resource
+     * @param bucketNames Bucket names
+     * @return Resolve plan
+     */
+    @SuppressWarnings("unchecked")
+    private ResolvePlan getResolvePlan(final Resource contentResource, final Collection<String> bucketNames) {
+        final List<ContextResource> contextResources =
+                IteratorUtils.toList(contextPathStrategy.findContextResources(contentResource));
+        final List<String> configRefs = new ArrayList<>(contextResources.size());
+        for (ContextResource contextResource : contextResources) {
+            configRefs.add(contextResource.getConfigRef());
+        }
+        final ResolvePlanKey key = new ResolvePlanKey(configRefs, bucketNames);
+        final Map<ResolvePlanKey, ResolvePlan> plans = this.resolvePlans;
+        ResolvePlan plan = plans.get(key);
+        if (plan == null) {
+            plan = new ResolvePlan(
+                    IteratorUtils.toList(findConfigRefs(contextResources.iterator(), bucketNames)),
+                    this.config.fallbackPaths());
+            // coarse size bound - the plans are cheap to recompile
+            if (plans.size() >= MAX_RESOLVE_PLANS) {
+                plans.clear();
+            }
+            plans.put(key, plan);
+        }
+        return plan;
     }
 
     /**
-     * Searches the resource hierarchy upwards for all config references and returns them.
-     * @param startResource Resource to start searching
+     * Resolves the config references of the given context resources to config resource paths.
+     * @param allContextResources Context resources found in the resource hierarchy
      * @param bucketNames Bucket names to search in
      */
     @SuppressWarnings("unchecked")
-    private Iterator<String> findConfigRefs(final Resource startResource, final Collection<String> bucketNames) {
-
-        // collect all context path resources (but filter out those without config reference)
-        final Iterator<ContextResource> contextResources =
-                new FilterIterator(contextPathStrategy.findContextResources(startResource), new Predicate() {
-                    @Override
-                    public boolean evaluate(Object object) {
-                        ContextResource contextResource = (ContextResource) object;
-                        return StringUtils.isNotBlank(contextResource.getConfigRef());
-                    }
-                });
+    private Iterator<String> findConfigRefs(
+            final Iterator<ContextResource> allContextResources, final Collection<String> bucketNames) {
+
+        // filter out context path resources without config reference
+        final Iterator<ContextResource> contextResources = new FilterIterator(allContextResources, new Predicate() {
+            @Override
+            public boolean evaluate(Object object) {
+                ContextResource contextResource = (ContextResource) object;
+                return StringUtils.isNotBlank(contextResource.getConfigRef());
+            }
+        });
 
         // get config resource path for each context resource, filter out items where not reference could be resolved
         final Iterator<String> configPaths = new Iterator<String>() {
@@ -284,6 +384,14 @@ public class DefaultConfigurationResourceResolvingStrategy implements Configurat
         return false;
     }
 
+    /**
+     * @return true if the strategy is active and enabled
+     */
+    public boolean isEnabled() {
+        Config currentConfig = this.config;
+        return currentConfig != null && currentConfig.enabled();
+    }
+
     private boolean isEnabledAndParamsValid(
             final Resource contentResource, final Collection<String> bucketNames, final String configName) {
         return config.enabled()
@@ -296,6 +404,18 @@ public class DefaultConfigurationResourceResolvingStrategy implements Configurat
         return ResourceUtil.normalize(path + "/" + name);
     }
 
+    private boolean mayExist(
+            final ConfigurationExistenceIndex index,
+            final String path,
+            final String bucketName,
+            final String configName) {
+        if (index == null || index.mayExist(path, bucketName, configName)) {
+            return true;
+        }
+        log.trace("- Skip non-existing config resource: {}/{}/{}", path, bucketName, configName);
+        return false;
+    }
+
     @Override
     public Resource getResource(
             @NotNull final Resource contentResource,
@@ -316,11 +436,15 @@ public class DefaultConfigurationResourceResolvingStrategy implements Configurat
             final ResourceResolver resourceResolver) {
 
         // find all matching items among all configured paths
+        final ConfigurationExistenceIndex index = this.existenceIndex;
         Iterator<Resource> matchingResources = IteratorUtils.transformedIterator(paths, new Transformer() {
             @Override
             public Object transform(Object input) {
                 String path = (String) input;
                 for (String bucketName : bucketNames) {
+                    if (!mayExist(index, path, bucketName, configName)) {
+                        continue;
+                    }
                     final String name = bucketName + "/" + configName;
                     final String configPath = buildResourcePath(path, name);
                     Resource resource = resourceResolver.getResource(configPath);
@@ -386,56 +510,72 @@ public class DefaultConfigurationResourceResolvingStrategy implements Configurat
         return result;
     }
 
-    private Collection<Resource> getResourceCollectionInternal(
+    /**
+     * Looks up the collection parent resource for the given resolve path.
+     * @param path Resolve path
+     * @param bucketNames Bucket names
+     * @param configName Configuration name
+     * @param resourceResolver Resource resolver
+     * @param allBuckets If true, the children of the collection parent resources of all buckets are collected.
+     *     Otherwise only the collection parent resource of the first matching bucket is looked up.
+     * @return Collection level or null if no collection parent resource exists for this path
+     */
+    private CollectionLevel getCollectionLevel(
+            final String path,
             final Collection<String> bucketNames,
             final String configName,
-            Iterator<String> paths,
-            ResourceResolver resourceResolver) {
+            final ResourceResolver resourceResolver,
+            final boolean allBuckets) {
+        final ConfigurationExistenceIndex index = this.existenceIndex;
+        CollectionLevel level = null;
+        for (String bucketName : bucketNames) {
+            if (!mayExist(index, path, bucketName, configName)) {
+                continue;
+            }
+            String name = bucketName + "/" + configName;
+            String configPath = buildResourcePath(path, name);
+            Resource item = resourceResolver.getResource(configPath);
+            if (item == null) {
+                log.trace("- No collection parent resource found: {}", configPath);
+            } else if (level == null) {
+                level = new CollectionLevel(item, bucketName);
+                if (!allBuckets) {
+                    break;
+                }
+            } else {
+                level.addChildrenOtherBucket(item);
+            }
+        }
+        return level;
+    }
+
+    private Collection<Resource> getResourceCollectionInternal(final Iterator<CollectionLevel> levels) {
 
         final Map<String, Resource> result = new LinkedHashMap<>();
         final List<CollectionInheritanceDecider> deciders = this.collectionInheritanceDeciders;
         final Set<String> blockedItems = new HashSet<>();
 
         boolean inherit = false;
-        while (paths.hasNext()) {
-            final String path = paths.next();
-
-            Resource item = null;
-            String bucketNameUsed = null;
-            for (String bucketName : bucketNames) {
-                String name = bucketName + "/" + configName;
-                String configPath = buildResourcePath(path, name);
-                item = resourceResolver.getResource(configPath);
-                if (item != null) {
-                    bucketNameUsed = bucketName;
-                    break;
-                } else {
-                    log.trace("- No collection parent resource found: {}", configPath);
+        while (levels.hasNext()) {
+            final CollectionLevel level = levels.next();
+            final Resource item = level.parent;
+
+            log.trace("o Check children of collection parent resource: {}", item.getPath());
+            for (Resource child : level.getChildren()) {
+                if (isValidResourceCollectionItem(child)
+                        && !result.containsKey(child.getName())
+                        && include(deciders, level.bucketName, child, blockedItems)) {
+                    log.trace("+ Found collection resource item {}", child.getPath());
+                    result.put(child.getName(), child);
                 }
             }
 
-            if (item != null) {
-                log.trace("o Check children of collection parent resource: {}", item.getPath());
-                if (item.hasChildren()) {
-                    for (Resource child : item.getChildren()) {
-                        if (isValidResourceCollectionItem(child)
-                                && !result.containsKey(child.getName())
-                                && include(deciders, bucketNameUsed, child, blockedItems)) {
-                            log.trace("+ Found collection resource item {}", child.getPath());
-                            result.put(child.getName(), child);
-                        }
-                    }
-                }
-
-                // check collection inheritance mode on current level - should we check on next-highest level as well?
-                final ValueMap valueMap = item.getValueMap();
-                inherit = PropertyUtil.getBooleanValueAdditionalKeys(
-                        valueMap,
-                        PROPERTY_CONFIG_COLLECTION_INHERIT,
-                        config.configCollectionInheritancePropertyNames());
-                if (!inherit) {
-                    break;
-                }
+            // check collection inheritance mode on current level - should we check on next-highest level as well?
+            final ValueMap valueMap = item.getValueMap();
+            inherit = PropertyUtil.getBooleanValueAdditionalKeys(
+                    valueMap, PROPERTY_CONFIG_COLLECTION_INHERIT, config.configCollectionInheritancePropertyNames());
+            if (!inherit) {
+                break;
             }
         }
 
@@ -450,9 +590,13 @@ public class DefaultConfigurationResourceResolvingStrategy implements Configurat
         if (!isEnabledAndParamsValid(contentResource, bucketNames, configName)) {
             return null;
         }
+        final ResourceResolver resourceResolver = contentResource.getResourceResolver();
         Iterator<String> paths = getResolvePaths(contentResource, bucketNames);
-        Collection<Resource> result =
-                getResourceCollectionInternal(bucketNames, configName, paths, contentResource.getResourceResolver());
+        Iterator<CollectionLevel> levels = IteratorUtils.filteredIterator(
+                IteratorUtils.transformedIterator(
+                        paths, path -> getCollectionLevel(path, bucketNames, configName, resourceResolver, false)),
+                PredicateUtils.notNullPredicate());
+        Collection<Resource> result = getResourceCollectionInternal(levels);
         if (!result.isEmpty()) {
             return result;
         } else {
@@ -460,7 +604,6 @@ public class DefaultConfigurationResourceResolvingStrategy implements Configurat
         }
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public Collection<Iterator<Resource>> getResourceCollectionInheritanceChain(
             @NotNull final Resource contentResource,
@@ -470,28 +613,37 @@ public class DefaultConfigurationResourceResolvingStrategy implements Configurat
             return null;
         }
         final ResourceResolver resourceResolver = contentResource.getResourceResolver();
-        final List<String> paths = IteratorUtils.toList(getResolvePaths(contentResource, bucketNames));
+
+        // list collection parent resources of all levels once
+        final List<CollectionLevel> levels = new ArrayList<>();
+        final Iterator<String> paths = getResolvePaths(contentResource, bucketNames);
+        while (paths.hasNext()) {
+            CollectionLevel level = getCollectionLevel(paths.next(), bucketNames, configName, resourceResolver, true);
+            if (level != null) {
+                levels.add(level);
+            }
+        }
 
         // get resource collection with respect to collection inheritance
-        Collection<Resource> resourceCollection =
-                getResourceCollectionInternal(bucketNames, configName, paths.iterator(), resourceResolver);
-
-        // get inheritance chain for each item found
-        // yes, this resolves the closest item twice, but is the easiest solution to combine both logic aspects
-        Iterator<Iterator<Resource>> result =
-                IteratorUtils.transformedIterator(resourceCollection.iterator(), new Transformer() {
-                    @Override
-                    public Object transform(Object input) {
-                        Resource item = (Resource) input;
-                        return getResourceInheritanceChainInternal(
-                                bucketNames, configName + "/" + item.getName(), paths.iterator(), resourceResolver);
-                    }
-                });
-        if (result.hasNext()) {
-            return IteratorUtils.toList(result);
-        } else {
+        Collection<Resource> resourceCollection = getResourceCollectionInternal(levels.iterator());
+        if (resourceCollection.isEmpty()) {
             return null;
         }
+
+        // assemble inheritance chain for each item found from the children of all levels
+        List<Iterator<Resource>> result = new ArrayList<>(resourceCollection.size());
+        for (Resource item : resourceCollection) {
+            List<Resource> itemChain = new ArrayList<>();
+            for (CollectionLevel level : levels) {
+                Resource itemResource = level.getChild(item.getName());
+                if (itemResource != null) {
+                    log.trace("+ Found matching config resource for inheritance chain: {}", itemResource.getPath());
+                    itemChain.add(itemResource);
+                }
+            }
+            result.add(itemChain.iterator());
+        }
+        return result;
     }
 
     private boolean isValidResourceCollectionItem(Resource resource) {
@@ -507,9 +659,10 @@ public class DefaultConfigurationResourceResolvingStrategy implements Configurat
         }
         String name = bucketName + "/" + configName;
 
-        Iterator<String> configPaths = this.findConfigRefs(contentResource, Collections.singleton(bucketName));
-        if (configPaths.hasNext()) {
-            String configPath = buildResourcePath(configPaths.next(), name);
+        List<String> configPaths = getResolvePlan(contentResource, Collections.singleton(bucketName))
+                .getConfigRefPaths();
+        if (!configPaths.isEmpty()) {
+            String configPath = buildResourcePath(configPaths.get(0), name);
             log.trace(
                     "+ Building configuration path for name '{}' for resource {}: {}",
                     name,
@@ -527,4 +680,102 @@ public class DefaultConfigurationResourceResolvingStrategy implements Configurat
             @NotNull Resource contentResource, @NotNull String bucketName, @NotNull String configName) {
         return getResourcePath(contentResource, bucketName, configName);
     }
+
+    /**
+     * Collection parent resource on one level of the resolve paths, with its children.
+     */
+    private static final class CollectionLevel {
+
+        private final Resource parent;
+        private final String bucketName;
+        private final List<Resource> parentChildren = new ArrayList<>();
+        private final Map<String, Resource> children = new HashMap<>();
+
+        CollectionLevel(Resource parent, String bucketName) {
+            this.parent = parent;
+            this.bucketName = bucketName;
+            for (Resource child : parent.getChildren()) {
+                parentChildren.add(child);
+                children.put(child.getName(), child);
+            }
+        }
+
+        /**
+         * Adds children of the collection parent resource of another bucket, if not already present.
+         */
+        void addChildrenOtherBucket(Resource otherParent) {
+            for (Resource child : otherParent.getChildren()) {
+                children.putIfAbsent(child.getName(), child);
+            }
+        }
+
+        /**
+         * @return Children of the collection parent resource of the first matching bucket
+         */
+        List<Resource> getChildren() {
+            return parentChildren;
+        }
+
+        /**
+         * @param name Child name
+         * @return Child with the given name of the collection parent resource of the first bucket containing it
+         */
+        Resource getChild(String name) {
+            return children.get(name);
+        }
+    }
+
+    /**
+     * Immutable list of config resource paths to check for a given list of config references:
+     * the resolved config references expanded to their parents, followed by the fallback paths.
+     */
+    private static final class ResolvePlan {
+
+        private final List<String> configRefPaths;
+        private final List<String> resolvePaths;
+
+        ResolvePlan(List<String> configRefPaths, String[] fallbackPaths) {
+            this.configRefPaths = List.copyOf(configRefPaths);
+            List<String> paths = new ArrayList<>(configRefPaths);
+            if (fallbackPaths != null) {
+                paths.addAll(List.of(fallbackPaths));
+            }
+            this.resolvePaths = List.copyOf(paths);
+        }
+
+        List<String> getConfigRefPaths() {
+            return configRefPaths;
+        }
+
+        List<String> getResolvePaths() {
+            return resolvePaths;
+        }
+    }
+
+    private static final class ResolvePlanKey {
+
+        private final List<String> configRefs;
+        private final List<String> bucketNames;
+        private final int hashCode;
+
+        ResolvePlanKey(List<String> configRefs, Collection<String> bucketNames) {
+            this.configRefs = configRefs;
+            this.bucketNames = new ArrayList<>(bucketNames);
+            this.hashCode = Objects.hash(this.configRefs, this.bucketNames);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ResolvePlanKey)) {
+                return false;
+            }
+            ResolvePlanKey other = (ResolvePlanKey) obj;
+            return configRefs.equals(other.configRefs) && bucketNames.equals(other.bucketNames);
+        }
+    }
 }
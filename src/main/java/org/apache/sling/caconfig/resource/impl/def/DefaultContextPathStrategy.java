@@ -18,18 +18,30 @@
  */
 package org.apache.sling.caconfig.resource.impl.def;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.ResourceUtil;
 import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.caconfig.resource.impl.util.ResolveScope;
 import org.apache.sling.caconfig.resource.spi.ContextPathStrategy;
 import org.apache.sling.caconfig.resource.spi.ContextResource;
 import org.jetbrains.annotations.NotNull;
+import org.osgi.framework.BundleContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.Designate;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
@@ -67,6 +79,22 @@ public class DefaultContextPathStrategy implements ContextPathStrategy {
                                 + ". Once a property with a value is found, that value is used and the following property names are skipped.")
         String[] configRefPropertyNames();
 
+        @AttributeDefinition(
+                name = "Index enabled",
+                description = "Keep an in-memory index of all context paths instead of walking up the resource "
+                        + "hierarchy on each lookup. The index is built by a query in the background on startup and kept "
+                        + "up-to-date by observation, until it is built the resource hierarchy is walked. "
+                        + "Requires a service user mapping for this bundle with read access to the content.")
+        boolean indexEnabled() default false;
+
+        @AttributeDefinition(
+                name = "Index root paths",
+                description =
+                        "Content root paths covered by the context path index. Lookups for resources outside these paths "
+                                + "walk up the resource hierarchy, context paths above these paths are not considered "
+                                + "for resources inside them.")
+        String[] indexRootPaths() default {"/content"};
+
         @AttributeDefinition(
                 name = "Service Ranking",
                 description = "Priority of persistence strategy (higher = higher priority).")
@@ -75,11 +103,36 @@ public class DefaultContextPathStrategy implements ContextPathStrategy {
 
     private static final Logger log = LoggerFactory.getLogger(DefaultContextPathStrategy.class);
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policyOption = ReferencePolicyOption.GREEDY)
+    private ResourceResolverFactory resolverFactory;
+
     private volatile Config config;
+    private volatile ContextPathIndex index;
 
     @Activate
-    private void activate(Config config) {
+    private void activate(BundleContext bundleContext, Config config) {
         this.config = config;
+        if (config.enabled() && config.indexEnabled()) {
+            if (resolverFactory == null) {
+                log.warn("No resource resolver factory available - context path index is not used.");
+                return;
+            }
+            ContextPathIndex newIndex = new ContextPathIndex(resolverFactory, config);
+            newIndex.start(bundleContext);
+            this.index = newIndex;
+        }
+    }
+
+    @Deactivate
+    private void deactivate() {
+        if (index != null) {
+            index.stop();
+            index = null;
+        }
+    }
+
+    ContextPathIndex getIndex() {
+        return index;
     }
 
     @Override
@@ -87,9 +140,73 @@ public class DefaultContextPathStrategy implements ContextPathStrategy {
         if (!config.enabled()) {
             return Collections.emptyIterator();
         }
+        ContextPathIndex currentIndex = this.index;
+        if (currentIndex != null && currentIndex.isReady() && currentIndex.isIndexed(resource.getPath())) {
+            return findContextResourcesFromIndex(currentIndex, resource);
+        }
+        ResolveScope scope = ResolveScope.current();
+        if (scope != null) {
+            return findContextResourcesInScope(scope, resource).iterator();
+        }
         return new ConfigResourceIterator(resource);
     }
 
+    /**
+     * Gets all context resources for the given resource, deepest first, reusing the context resources
+     * already found for its ancestors in the given scope.
+     */
+    private List<ContextResource> findContextResourcesInScope(ResolveScope scope, Resource resource) {
+        ResourceResolver resourceResolver = resource.getResourceResolver();
+        String path = resource.getPath();
+        List<ContextResource> result = scope.getContextResources(this, resourceResolver, path);
+        if (result != null) {
+            return result;
+        }
+        String parentPath = ResourceUtil.getParent(path);
+        List<ContextResource> parentResult =
+                parentPath != null ? scope.getContextResources(this, resourceResolver, parentPath) : null;
+        if (parentResult == null) {
+            Resource parent = resource.getParent();
+            parentResult = parent != null ? findContextResourcesInScope(scope, parent) : Collections.emptyList();
+        }
+        String configRef = getConfigRef(resource, config);
+        if (configRef != null) {
+            log.trace("+ Found context path {}, configRef {}", path, configRef);
+            result = new ArrayList<>(parentResult.size() + 1);
+            result.add(new ContextResource(resource, configRef, config.service_ranking()));
+            result.addAll(parentResult);
+            result = Collections.unmodifiableList(result);
+        } else {
+            result = parentResult;
+        }
+        scope.putContextResources(this, resourceResolver, path, result);
+        return result;
+    }
+
+    /**
+     * Looks up all context paths for the given resource in the index, deepest first.
+     * Only the matching context resources are read from the repository, so context resources not readable
+     * by the current resource resolver are skipped.
+     */
+    private Iterator<ContextResource> findContextResourcesFromIndex(ContextPathIndex index, Resource resource) {
+        List<Map.Entry<String, String>> contextPaths = index.getContextPaths(resource.getPath());
+        if (contextPaths.isEmpty()) {
+            return Collections.emptyIterator();
+        }
+        ResourceResolver resourceResolver = resource.getResourceResolver();
+        List<ContextResource> result = new ArrayList<>(contextPaths.size());
+        for (int i = contextPaths.size() - 1; i >= 0; i--) {
+            Map.Entry<String, String> entry = contextPaths.get(i);
+            Resource contextResource =
+                    entry.getKey().equals(resource.getPath()) ? resource : resourceResolver.getResource(entry.getKey());
+            if (contextResource != null) {
+                log.trace("+ Found indexed context path {}, configRef {}", entry.getKey(), entry.getValue());
+                result.add(new ContextResource(contextResource, entry.getValue(), config.service_ranking()));
+            }
+        }
+        return result.iterator();
+    }
+
     /**
      * Searches the resource hierarchy upwards for all context and returns the root resource for each of them.
      */
@@ -131,7 +248,7 @@ public class DefaultContextPathStrategy implements ContextPathStrategy {
             Resource resource = startResource;
 
             while (resource != null) {
-                String configRef = getConfigRef(resource);
+                String configRef = getConfigRef(resource, config);
                 if (configRef != null) {
                     log.trace("+ Found context path {}, configRef {}", resource.getPath(), configRef);
                     return new ContextResource(resource, configRef, config.service_ranking());
@@ -143,35 +260,42 @@ public class DefaultContextPathStrategy implements ContextPathStrategy {
             // if hit root and nothing found, return null
             return null;
         }
+    }
 
-        private String getConfigRefValue(final Resource resource) {
-            final ValueMap map = resource.getValueMap();
-            String val = map.get(PROPERTY_CONFIG_REF, String.class);
-            if (val == null && !ArrayUtils.isEmpty(config.configRefPropertyNames())) {
-                for (final String name : config.configRefPropertyNames()) {
-                    val = map.get(name, String.class);
-                    if (val != null) {
-                        break;
-                    }
+    /**
+     * Get configuration reference defined for the given resource, respecting the configured
+     * resource names and property names.
+     * @param resource Context resource candidate
+     * @param config Strategy configuration
+     * @return Configuration reference or null if none defined
+     */
+    static String getConfigRef(final Resource resource, final Config config) {
+        if (ArrayUtils.isEmpty(config.configRefResourceNames())) {
+            return getConfigRefValue(resource, config);
+        }
+        for (final String name : config.configRefResourceNames()) {
+            final Resource lookupResource = resource.getChild(name);
+            if (lookupResource != null) {
+                String configRef = getConfigRefValue(lookupResource, config);
+                if (configRef != null) {
+                    return configRef;
                 }
             }
-            return val;
         }
+        return null;
+    }
 
-        private String getConfigRef(final Resource resource) {
-            if (ArrayUtils.isEmpty(config.configRefResourceNames())) {
-                return getConfigRefValue(resource);
-            }
-            for (final String name : config.configRefResourceNames()) {
-                final Resource lookupResource = resource.getChild(name);
-                if (lookupResource != null) {
-                    String configRef = getConfigRefValue(lookupResource);
-                    if (configRef != null) {
-                        return configRef;
-                    }
+    private static String getConfigRefValue(final Resource resource, final Config config) {
+        final ValueMap map = resource.getValueMap();
+        String val = map.get(PROPERTY_CONFIG_REF, String.class);
+        if (val == null && !ArrayUtils.isEmpty(config.configRefPropertyNames())) {
+            for (final String name : config.configRefPropertyNames()) {
+                val = map.get(name, String.class);
+                if (val != null) {
+                    break;
                 }
             }
-            return null;
         }
+        return val;
     }
 }
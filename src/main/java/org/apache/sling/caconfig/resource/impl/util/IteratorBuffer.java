@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.resource.impl.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Buffers the elements of an iterator as they are consumed, so they can be iterated multiple times with
+ * independent iterators. The source iterator is only advanced on demand. Not thread-safe.
+ * @param <T> Element type
+ */
+public final class IteratorBuffer<T> implements Iterable<T> {
+
+    private final Iterator<T> source;
+    private final List<T> buffer = new ArrayList<>();
+
+    public IteratorBuffer(Iterator<T> source) {
+        this.source = source;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < buffer.size() || source.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (index >= buffer.size()) {
+                    buffer.add(source.next());
+                }
+                return buffer.get(index++);
+            }
+        };
+    }
+}
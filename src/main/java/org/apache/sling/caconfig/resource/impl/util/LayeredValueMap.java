@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.resource.impl.util;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Value map that stacks multiple property maps (e.g. override properties, inheritance levels and default values)
+ * without copying them. Each key is looked up in the layers in order of priority until a non-null value is found.
+ * The merged key set is only built when the whole map is iterated.
+ * <p>
+ * Lower layers can be supplied lazily by an iterator - they are fetched only when a key is not found in
+ * the layers fetched before.
+ * </p>
+ * <p>
+ * The layers are never modified. For compatibility with the merged maps used before, the map can be modified -
+ * on first modification the merged properties are copied and all further access goes to that copy.
+ * </p>
+ */
+public final class LayeredValueMap extends ValueMapDecorator {
+
+    private final LayeredMap layeredMap;
+
+    private LayeredValueMap(LayeredMap layeredMap) {
+        super(layeredMap);
+        this.layeredMap = layeredMap;
+    }
+
+    /**
+     * Stack the given property maps. Layers that are layered value maps themselves are flattened.
+     * @param layers Property maps, ordered from highest to lowest priority
+     * @return Layered value map
+     */
+    public static @NotNull ValueMap of(@NotNull List<? extends Map<String, Object>> layers) {
+        return of(layers, null);
+    }
+
+    /**
+     * Stack the given property maps. Layers that are layered value maps themselves are flattened.
+     * @param layers Property maps, ordered from highest to lowest priority
+     * @param pendingLayers Property maps with lower priority that are fetched on demand, or null
+     * @return Layered value map
+     */
+    public static @NotNull ValueMap of(
+            @NotNull List<? extends Map<String, Object>> layers,
+            @Nullable Iterator<? extends Map<String, Object>> pendingLayers) {
+        List<Map<String, Object>> flattenedLayers = new ArrayList<>(layers.size());
+        for (Map<String, Object> layer : layers) {
+            if (layer instanceof LayeredValueMap && ((LayeredValueMap) layer).layeredMap.isFlattenable()) {
+                flattenedLayers.addAll(((LayeredValueMap) layer).layeredMap.layers);
+            } else if (layer != null && layer != ValueMap.EMPTY) {
+                flattenedLayers.add(layer);
+            }
+        }
+        return new LayeredValueMap(new LayeredMap(flattenedLayers, pendingLayers));
+    }
+
+    private static final class LayeredMap extends AbstractMap<String, Object> {
+
+        private final List<Map<String, Object>> layers;
+        // once set to null no more layers are added
+        private volatile Iterator<? extends Map<String, Object>> pendingLayers;
+        private volatile Map<String, Object> merged;
+        private Map<String, Object> copy;
+
+        LayeredMap(List<Map<String, Object>> layers, Iterator<? extends Map<String, Object>> pendingLayers) {
+            this.layers = layers;
+            this.pendingLayers = pendingLayers;
+        }
+
+        boolean isFlattenable() {
+            return copy == null && pendingLayers == null;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (copy != null) {
+                return copy.get(key);
+            }
+            Map<String, Object> layer;
+            for (int i = 0; (layer = getLayer(i)) != null; i++) {
+                Object value = layer.get(key);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        private Map<String, Object> getLayer(int index) {
+            if (pendingLayers != null) {
+                synchronized (this) {
+                    while (index >= layers.size() && pendingLayers != null) {
+                        if (pendingLayers.hasNext()) {
+                            layers.add(pendingLayers.next());
+                        } else {
+                            pendingLayers = null;
+                        }
+                    }
+                    return index < layers.size() ? layers.get(index) : null;
+                }
+            }
+            return index < layers.size() ? layers.get(index) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if (copy != null) {
+                return copy.containsKey(key);
+            }
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            if (copy != null) {
+                return copy.entrySet();
+            }
+            return getMerged().entrySet();
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            return getCopy().put(key, value);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            return getCopy().remove(key);
+        }
+
+        @Override
+        public void clear() {
+            getCopy().clear();
+        }
+
+        private Map<String, Object> getMerged() {
+            Map<String, Object> result = merged;
+            if (result == null) {
+                // fetch all pending layers
+                getLayer(Integer.MAX_VALUE);
+                result = new HashMap<>();
+                for (int i = layers.size() - 1; i >= 0; i--) {
+                    for (Map.Entry<String, Object> entry : layers.get(i).entrySet()) {
+                        if (entry.getValue() != null) {
+                            result.put(entry.getKey(), entry.getValue());
+                        }
+                    }
+                }
+                result = Collections.unmodifiableMap(result);
+                merged = result;
+            }
+            return result;
+        }
+
+        private Map<String, Object> getCopy() {
+            if (copy == null) {
+                copy = new HashMap<>(getMerged());
+            }
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.resource.impl.util;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Trie of absolute resource paths, split at "/", with an optional value attached to each path.
+ * Lookups are lock-free and can run concurrently to modifications, modifications are serialized.
+ * @param <V> Value type
+ */
+public final class PathTrie<V> {
+
+    private final Node<V> root = new Node<>();
+    private volatile int size;
+
+    /**
+     * Set value for the given path, replacing any existing value.
+     * @param path Absolute path
+     * @param value Value
+     */
+    public synchronized void put(@NotNull String path, @NotNull V value) {
+        Node<V> node = root;
+        int start = 1;
+        while (start < path.length()) {
+            int end = nextSeparator(path, start);
+            node = node.children.computeIfAbsent(path.substring(start, end), key -> new Node<>());
+            start = end + 1;
+        }
+        if (node.value == null) {
+            size++;
+        }
+        node.value = value;
+    }
+
+    /**
+     * Removes the value for the given path. Values of descendant paths are kept.
+     * Nodes left without value and children are pruned.
+     * @param path Absolute path
+     */
+    public synchronized void remove(@NotNull String path) {
+        List<Node<V>> nodes = getNodes(path);
+        if (nodes == null) {
+            return;
+        }
+        Node<V> node = nodes.get(nodes.size() - 1);
+        if (node.value != null) {
+            node.value = null;
+            size--;
+            prune(nodes, path);
+        }
+    }
+
+    /**
+     * Removes the values for the given path and all descendant paths.
+     * Ancestor nodes left without value and children are pruned.
+     * @param path Absolute path
+     */
+    public synchronized void removeTree(@NotNull String path) {
+        if ("/".equals(path)) {
+            clear();
+            return;
+        }
+        List<Node<V>> nodes = getNodes(path);
+        if (nodes == null) {
+            return;
+        }
+        Node<V> node = nodes.get(nodes.size() - 1);
+        size -= node.count();
+        node.value = null;
+        node.children.clear();
+        prune(nodes, path);
+    }
+
+    /**
+     * Detaches all nodes without value and children, from the deepest node upwards.
+     * @param nodes Nodes from the root down to the node of the given path
+     * @param path Absolute path
+     */
+    private static <V> void prune(List<Node<V>> nodes, String path) {
+        int end = path.length();
+        for (int i = nodes.size() - 1; i > 0; i--) {
+            Node<V> node = nodes.get(i);
+            if (node.value != null || !node.children.isEmpty()) {
+                break;
+            }
+            int start = path.lastIndexOf('/', end - 1);
+            nodes.get(i - 1).children.remove(path.substring(start + 1, end));
+            end = start;
+        }
+    }
+
+    /**
+     * Removes all values.
+     */
+    public synchronized void clear() {
+        root.children.clear();
+        root.value = null;
+        size = 0;
+    }
+
+    /**
+     * @return Number of paths with a value.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Number of nodes below the root, including nodes without value.
+     */
+    int nodeCount() {
+        return root.nodeCount() - 1;
+    }
+
+    /**
+     * @param path Absolute path
+     * @return Value stored for exactly this path, or null
+     */
+    public V get(@NotNull String path) {
+        Node<V> node = getNode(path);
+        return node != null ? node.value : null;
+    }
+
+    /**
+     * Get all values stored for the given path or any of its ancestors.
+     * @param path Absolute path
+     * @return Path/value pairs ordered from the root down to the given path
+     */
+    public @NotNull List<Map.Entry<String, V>> getAncestorsOrSelf(@NotNull String path) {
+        List<Map.Entry<String, V>> result = null;
+        Node<V> node = root;
+        int start = 1;
+        while (true) {
+            V value = node.value;
+            if (value != null) {
+                if (result == null) {
+                    result = new ArrayList<>(4);
+                }
+                result.add(
+                        new AbstractMap.SimpleImmutableEntry<>(start <= 1 ? "/" : path.substring(0, start - 1), value));
+            }
+            if (start >= path.length()) {
+                break;
+            }
+            int end = nextSeparator(path, start);
+            node = node.children.get(path.substring(start, end));
+            if (node == null) {
+                break;
+            }
+            start = end + 1;
+        }
+        return result != null ? result : Collections.emptyList();
+    }
+
+    /**
+     * Get the value stored for the given path or its closest ancestor.
+     * @param path Absolute path
+     * @return Value of the deepest path with a value that is the given path or an ancestor of it, or null
+     */
+    public V getClosestAncestorOrSelf(@NotNull String path) {
+        V result = null;
+        Node<V> node = root;
+        int start = 1;
+        while (true) {
+            V value = node.value;
+            if (value != null) {
+                result = value;
+            }
+            if (start >= path.length()) {
+                break;
+            }
+            int end = nextSeparator(path, start);
+            node = node.children.get(path.substring(start, end));
+            if (node == null) {
+                break;
+            }
+            start = end + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Get all values stored for the given path or any of its descendants.
+     * @param path Absolute path
+     * @return Values in no specific order
+     */
+    public @NotNull List<V> getDescendantsOrSelf(@NotNull String path) {
+        Node<V> node = getNode(path);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<V> result = new ArrayList<>();
+        node.collect(result);
+        return result;
+    }
+
+    private Node<V> getNode(String path) {
+        Node<V> node = root;
+        int start = 1;
+        while (node != null && start < path.length()) {
+            int end = nextSeparator(path, start);
+            node = node.children.get(path.substring(start, end));
+            start = end + 1;
+        }
+        return node;
+    }
+
+    private List<Node<V>> getNodes(String path) {
+        List<Node<V>> nodes = new ArrayList<>();
+        Node<V> node = root;
+        nodes.add(node);
+        int start = 1;
+        while (start < path.length()) {
+            int end = nextSeparator(path, start);
+            node = node.children.get(path.substring(start, end));
+            if (node == null) {
+                return null;
+            }
+            nodes.add(node);
+            start = end + 1;
+        }
+        return nodes;
+    }
+
+    private static int nextSeparator(String path, int start) {
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.length() : end;
+    }
+
+    private static final class Node<V> {
+
+        private final Map<String, Node<V>> children = new ConcurrentHashMap<>();
+        private volatile V value;
+
+        int count() {
+            int count = value != null ? 1 : 0;
+            for (Node<V> child : children.values()) {
+                count += child.count();
+            }
+            return count;
+        }
+
+        int nodeCount() {
+            int count = 1;
+            for (Node<V> child : children.values()) {
+                count += child.nodeCount();
+            }
+            return count;
+        }
+
+        void collect(List<V> result) {
+            V current = value;
+            if (current != null) {
+                result.add(current);
+            }
+            for (Node<V> child : children.values()) {
+                child.collect(result);
+            }
+        }
+    }
+}
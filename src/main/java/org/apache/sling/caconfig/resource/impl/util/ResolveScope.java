@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.resource.impl.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.caconfig.resource.spi.ContextResource;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Scope bound to the current thread in which the config-root chain of a content resource is computed only once,
+ * e.g. while a batch of configurations is resolved for the same content resource.
+ * The context resources found for a resource path are kept as well, so resolving configurations for many
+ * content resources in tree order reuses the context resources of the common ancestors.
+ * Both are kept for the most recently used {@value #MAX_ENTRIES} paths.
+ * Scopes are reentrant: opening a scope while another one is active reuses the active scope.
+ * <p>
+ * Usage:
+ * </p>
+ * <pre>
+ * try (ResolveScope scope = ResolveScope.open()) {
+ *     // resolve configurations
+ * }
+ * </pre>
+ */
+public final class ResolveScope implements AutoCloseable {
+
+    static final int MAX_ENTRIES = 1000;
+
+    private static final ThreadLocal<ResolveScope> CURRENT = new ThreadLocal<>();
+
+    private final Map<ScopeKey, List<String>> configRootChains = newLruMap();
+    private final Map<ScopeKey, List<ContextResource>> contextResources = newLruMap();
+    private int depth = 1;
+
+    private ResolveScope() {
+        // use open()
+    }
+
+    /**
+     * Opens a scope for the current thread, or reuses the scope that is already active.
+     * @return Scope, has to be closed
+     */
+    public static @NotNull ResolveScope open() {
+        ResolveScope scope = CURRENT.get();
+        if (scope != null) {
+            scope.depth++;
+            return scope;
+        }
+        scope = new ResolveScope();
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * @return Scope active for the current thread, or null
+     */
+    public static @Nullable ResolveScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @param resourceResolver Resource resolver of the content resource
+     * @param contentPath Content resource path
+     * @param bucketNames Bucket names
+     * @return Config-root chain computed in this scope, or null
+     */
+    public @Nullable List<String> getConfigRootChain(
+            @NotNull ResourceResolver resourceResolver,
+            @NotNull String contentPath,
+            @NotNull Collection<String> bucketNames) {
+        return configRootChains.get(new ScopeKey(null, resourceResolver, contentPath, bucketNames));
+    }
+
+    /**
+     * @param resourceResolver Resource resolver of the content resource
+     * @param contentPath Content resource path
+     * @param bucketNames Bucket names
+     * @param configRootChain Config-root chain
+     */
+    public void putConfigRootChain(
+            @NotNull ResourceResolver resourceResolver,
+            @NotNull String contentPath,
+            @NotNull Collection<String> bucketNames,
+            @NotNull List<String> configRootChain) {
+        configRootChains.put(new ScopeKey(null, resourceResolver, contentPath, bucketNames), configRootChain);
+    }
+
+    /**
+     * @param strategy Context path strategy that found the context resources
+     * @param resourceResolver Resource resolver
+     * @param path Resource path
+     * @return Context resources for the given path and its ancestors computed in this scope, or null
+     */
+    public @Nullable List<ContextResource> getContextResources(
+            @NotNull Object strategy, @NotNull ResourceResolver resourceResolver, @NotNull String path) {
+        return contextResources.get(new ScopeKey(strategy, resourceResolver, path, Collections.emptyList()));
+    }
+
+    /**
+     * @param strategy Context path strategy that found the context resources
+     * @param resourceResolver Resource resolver
+     * @param path Resource path
+     * @param contextResourceList Context resources for the given path and its ancestors
+     */
+    public void putContextResources(
+            @NotNull Object strategy,
+            @NotNull ResourceResolver resourceResolver,
+            @NotNull String path,
+            @NotNull List<ContextResource> contextResourceList) {
+        contextResources.put(
+                new ScopeKey(strategy, resourceResolver, path, Collections.emptyList()), contextResourceList);
+    }
+
+    private static <V> Map<ScopeKey, V> newLruMap() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ScopeKey, V> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        if (--depth == 0) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Config-root chains and context resources depend on the access rights of the resource resolver,
+     * so the resolver is part of the key.
+     */
+    private static final class ScopeKey {
+
+        private final Object owner;
+        private final ResourceResolver resourceResolver;
+        private final String path;
+        private final List<String> bucketNames;
+        private final int hashCode;
+
+        ScopeKey(Object owner, ResourceResolver resourceResolver, String path, Collection<String> bucketNames) {
+            this.owner = owner;
+            this.resourceResolver = resourceResolver;
+            this.path = path;
+            this.bucketNames = new ArrayList<>(bucketNames);
+            this.hashCode = Objects.hash(
+                    System.identityHashCode(owner), System.identityHashCode(resourceResolver), path, this.bucketNames);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ScopeKey)) {
+                return false;
+            }
+            ScopeKey other = (ScopeKey) obj;
+            return owner == other.owner
+                    && resourceResolver == other.resourceResolver
+                    && path.equals(other.path)
+                    && bucketNames.equals(other.bucketNames);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.caconfig.ConfigurationResolveException;
+import org.apache.sling.caconfig.ConfigurationResolver;
+import org.apache.sling.caconfig.example.AllTypesConfig;
+import org.apache.sling.caconfig.example.SimpleConfig;
+import org.apache.sling.caconfig.example.WithoutAnnotationConfig;
+import org.apache.sling.caconfig.impl.resolver.PreparedConfigurationResolver;
+import org.apache.sling.caconfig.resource.spi.ContextPathStrategy;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.apache.sling.caconfig.resource.impl.def.ConfigurationResourceNameConstants.PROPERTY_CONFIG_REF;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test {@link org.apache.sling.caconfig.impl.resolver.BatchConfigurationBuilder}.
+ */
+@SuppressWarnings("null")
+public class BatchConfigurationBuilderTest {
+
+    @Rule
+    public SlingContext context = new SlingContext();
+
+    private ConfigurationResolver configurationResolver;
+    private PreparedConfigurationResolver underTest;
+    private ContextPathStrategy contextPathStrategy;
+
+    private Resource site1Page1;
+
+    @Before
+    public void setUp() {
+        // additional context path strategy to count the context resource lookups
+        contextPathStrategy = mock(ContextPathStrategy.class);
+        when(contextPathStrategy.findContextResources(any())).thenAnswer(invocation -> Collections.emptyIterator());
+        context.registerService(ContextPathStrategy.class, contextPathStrategy);
+        configurationResolver = ConfigurationTestUtils.registerConfigurationResolver(context);
+        underTest = context.getService(PreparedConfigurationResolver.class);
+
+        context.build().resource("/content/site1", PROPERTY_CONFIG_REF, "/conf/content/site1");
+        site1Page1 = context.create().resource("/content/site1/page1");
+
+        context.build()
+                .resource(
+                        "/conf/content/site1/sling:configs/org.apache.sling.caconfig.example.SimpleConfig",
+                        "stringParam",
+                        "value1")
+                .resource(
+                        "/conf/content/site1/sling:configs/org.apache.sling.caconfig.example.AllTypesConfig",
+                        "stringParam",
+                        "value2")
+                .resource("/conf/content/site1/sling:configs/sampleName", "stringParam", "value3");
+    }
+
+    @Test
+    public void testAsAll() {
+        Map<Class<?>, Object> result =
+                underTest.batch(site1Page1).asAll(List.of(SimpleConfig.class, AllTypesConfig.class));
+
+        assertEquals(List.of(SimpleConfig.class, AllTypesConfig.class), List.copyOf(result.keySet()));
+        assertEquals("value1", ((SimpleConfig) result.get(SimpleConfig.class)).stringParam());
+        assertEquals("value2", ((AllTypesConfig) result.get(AllTypesConfig.class)).stringParam());
+        verify(contextPathStrategy, times(1)).findContextResources(any());
+    }
+
+    @Test
+    public void testAsValueMaps() {
+        Map<String, ValueMap> result = underTest
+                .batch(site1Page1)
+                .asValueMaps(List.of("sampleName", "org.apache.sling.caconfig.example.SimpleConfig", "otherName"));
+
+        assertEquals("value3", result.get("sampleName").get("stringParam", String.class));
+        assertEquals(
+                "value1",
+                result.get("org.apache.sling.caconfig.example.SimpleConfig").get("stringParam", String.class));
+        assertNull(result.get("otherName").get("stringParam", String.class));
+        verify(contextPathStrategy, times(1)).findContextResources(any());
+
+        // outside a batch the context resources are looked up again
+        configurationResolver.get(site1Page1).name("sampleName").asValueMap();
+        verify(contextPathStrategy, times(2)).findContextResources(any());
+    }
+
+    @Test(expected = ConfigurationResolveException.class)
+    public void testWithoutAnnotation() {
+        underTest.batch(site1Page1).asAll(List.of(WithoutAnnotationConfig.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidName() {
+        underTest.batch(site1Page1).asValueMaps(List.of("sampleName", "/a/../b"));
+    }
+}
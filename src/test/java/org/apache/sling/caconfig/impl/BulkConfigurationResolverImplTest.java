@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.caconfig.example.SimpleConfig;
+import org.apache.sling.caconfig.impl.resolver.BulkConfigurationResolver;
+import org.apache.sling.caconfig.impl.resolver.PreparedConfiguration;
+import org.apache.sling.caconfig.impl.resolver.PreparedConfigurationResolver;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.apache.sling.caconfig.resource.impl.def.ConfigurationResourceNameConstants.PROPERTY_CONFIG_REF;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@SuppressWarnings("null")
+public class BulkConfigurationResolverImplTest {
+
+    private static final int SITE_PAGES = 20;
+
+    @Rule
+    public SlingContext context = new SlingContext(ResourceResolverType.RESOURCEPROVIDER_MOCK);
+
+    private BulkConfigurationResolver underTest;
+    private PreparedConfiguration<SimpleConfig> configuration;
+
+    @Before
+    public void setUp() throws PersistenceException {
+        ConfigurationTestUtils.registerConfigurationResolver(context);
+        configuration = context.getService(PreparedConfigurationResolver.class).prepare(SimpleConfig.class);
+        underTest = context.registerInjectActivateService(new BulkConfigurationResolverImpl(), "parallelism", 4);
+
+        context.build().resource("/content/site1", PROPERTY_CONFIG_REF, "/conf/content/site1");
+        context.build().resource("/content/site2", PROPERTY_CONFIG_REF, "/conf/content/site2");
+        for (int i = 0; i < SITE_PAGES; i++) {
+            context.create().resource("/content/site1/page" + i + "/child");
+            context.create().resource("/content/site2/page" + i + "/child");
+        }
+        context.build()
+                .resource(
+                        "/conf/content/site1/sling:configs/org.apache.sling.caconfig.example.SimpleConfig",
+                        "stringParam",
+                        "value1")
+                .resource(
+                        "/conf/content/site2/sling:configs/org.apache.sling.caconfig.example.SimpleConfig",
+                        "stringParam",
+                        "value2");
+        context.resourceResolver().commit();
+    }
+
+    @Test
+    public void testResolveTree() {
+        Map<String, String> result = new ConcurrentHashMap<>();
+        underTest.resolveTree(
+                context.resourceResolver().getResource("/content"),
+                configuration,
+                resource -> true,
+                (resource, config) -> result.put(resource.getPath(), config.stringParam() + ""));
+
+        // content, 2 sites, 2 pages and 2 child resources per site page
+        assertEquals(1 + 2 + 4 * SITE_PAGES, result.size());
+        assertEquals("null", result.get("/content"));
+        assertEquals("value1", result.get("/content/site1"));
+        assertEquals("value1", result.get("/content/site1/page5/child"));
+        assertEquals("value2", result.get("/content/site2/page" + (SITE_PAGES - 1)));
+        assertEquals("value2", result.get("/content/site2/page0/child"));
+    }
+
+    @Test
+    public void testFilter() {
+        Map<String, String> result = new ConcurrentHashMap<>();
+        underTest.resolveTree(
+                context.resourceResolver().getResource("/content/site1"),
+                configuration,
+                resource -> !"child".equals(resource.getName()),
+                (resource, config) -> result.put(resource.getPath(), config.stringParam()));
+
+        assertEquals(1 + SITE_PAGES, result.size());
+        assertFalse(result.containsKey("/content/site1/page0/child"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testConsumerException() {
+        underTest.resolveTree(
+                context.resourceResolver().getResource("/content"),
+                configuration,
+                resource -> true,
+                (resource, config) -> {
+                    if (resource.getPath().equals("/content/site2/page3")) {
+                        throw new IllegalStateException("Test");
+                    }
+                });
+    }
+}
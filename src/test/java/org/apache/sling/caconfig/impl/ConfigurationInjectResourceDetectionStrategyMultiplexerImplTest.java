@@ -99,4 +99,23 @@ public class ConfigurationInjectResourceDetectionStrategyMultiplexerImplTest {
         verify(strategy2, times(1)).detectResource(request);
         verifyNoMoreInteractions(strategy3);
     }
+
+    @Test
+    @SuppressWarnings("null")
+    public void testResolverMemo() {
+        ConfigurationInjectResourceDetectionStrategy memoUnderTest = context.registerInjectActivateService(
+                new ConfigurationInjectResourceDetectionStrategyMultiplexerImpl(), "resolverMemo", true);
+        ConfigurationInjectResourceDetectionStrategy strategy =
+                mock(ConfigurationInjectResourceDetectionStrategy.class);
+        when(strategy.detectResource(request)).thenReturn(resource1);
+        context.registerService(ConfigurationInjectResourceDetectionStrategy.class, strategy);
+        Resource requestResource = context.create().resource("/content/page1");
+        when(request.getResource()).thenReturn(requestResource);
+        when(request.getResourceResolver()).thenReturn(context.resourceResolver());
+
+        assertSame(resource1, memoUnderTest.detectResource(request));
+        assertSame(resource1, memoUnderTest.detectResource(request));
+
+        verify(strategy, times(1)).detectResource(request);
+    }
 }
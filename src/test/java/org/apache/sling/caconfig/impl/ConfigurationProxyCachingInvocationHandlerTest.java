@@ -20,8 +20,16 @@ package org.apache.sling.caconfig.impl;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.sling.caconfig.example.SimpleConfig;
 import org.apache.sling.caconfig.impl.ConfigurationProxy.CachingInvocationHandler;
+import org.apache.sling.caconfig.impl.metadata.AnnotationClassMethodTable;
+import org.apache.sling.caconfig.impl.metadata.AnnotationClassMethodTableCache;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -30,6 +38,9 @@ import org.mockito.junit.MockitoJUnitRunner;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -42,6 +53,8 @@ public class ConfigurationProxyCachingInvocationHandlerTest {
     @Mock
     private InvocationHandler invocationHandler;
 
+    private final AnnotationClassMethodTableCache methodTables = new AnnotationClassMethodTableCache();
+
     private Object testObject;
     private Method testMethod;
 
@@ -81,4 +94,74 @@ public class ConfigurationProxyCachingInvocationHandlerTest {
         assertNull(underTest.invoke(testObject, testMethod, null));
         verify(invocationHandler, times(1)).invoke(testObject, testMethod, null);
     }
+
+    @Test
+    public void testCacheHitAnnotationMethod() throws Throwable {
+        underTest = new CachingInvocationHandler(invocationHandler, methodTables.get(SimpleConfig.class));
+        Method stringParam = SimpleConfig.class.getMethod("stringParam");
+        when(invocationHandler.invoke(testObject, stringParam, null)).thenReturn("value1");
+        when(invocationHandler.invoke(testObject, testMethod, null)).thenReturn("value2");
+
+        assertEquals("value1", underTest.invoke(testObject, stringParam, null));
+        assertEquals("value1", underTest.invoke(testObject, stringParam, null));
+        assertEquals("value2", underTest.invoke(testObject, testMethod, null));
+        assertEquals("value2", underTest.invoke(testObject, testMethod, null));
+        verify(invocationHandler, times(1)).invoke(testObject, stringParam, null);
+        verify(invocationHandler, times(1)).invoke(testObject, testMethod, null);
+    }
+
+    @Test
+    public void testObjectMethodSkipsMethodTable() throws Throwable {
+        AnnotationClassMethodTable methodTable = spy(methodTables.get(SimpleConfig.class));
+        underTest = new CachingInvocationHandler(invocationHandler, methodTable);
+        when(invocationHandler.invoke(testObject, testMethod, null)).thenReturn("value1");
+
+        assertEquals("value1", underTest.invoke(testObject, testMethod, null));
+        verify(methodTable, never()).getOrCreateEntry(testMethod);
+    }
+
+    @Test
+    public void testMaterialize() throws Throwable {
+        CachingInvocationHandler handler =
+                new CachingInvocationHandler(invocationHandler, methodTables.get(SimpleConfig.class));
+        Method stringParam = SimpleConfig.class.getMethod("stringParam");
+        when(invocationHandler.invoke(testObject, stringParam, null)).thenReturn("value1");
+
+        handler.materialize(testObject);
+        verify(invocationHandler, times(1)).invoke(testObject, stringParam, null);
+
+        assertEquals("value1", handler.invoke(testObject, stringParam, null));
+        verify(invocationHandler, times(1)).invoke(testObject, stringParam, null);
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Throwable {
+        AtomicInteger counter = new AtomicInteger();
+        CachingInvocationHandler handler = new CachingInvocationHandler(
+                (proxy, method, args) -> new Object[] {counter.incrementAndGet()},
+                methodTables.get(SimpleConfig.class));
+        Method stringParam = SimpleConfig.class.getMethod("stringParam");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] results = new Future<?>[16];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = executor.submit(() -> {
+                    try {
+                        return handler.invoke(testObject, stringParam, null);
+                    } catch (Throwable ex) {
+                        throw new RuntimeException(ex);
+                    }
+                });
+            }
+            // all threads get the same result instance
+            Object expected = results[0].get(10, TimeUnit.SECONDS);
+            for (Future<?> result : results) {
+                assertSame(expected, result.get(10, TimeUnit.SECONDS));
+            }
+            assertSame(expected, handler.invoke(testObject, stringParam, null));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
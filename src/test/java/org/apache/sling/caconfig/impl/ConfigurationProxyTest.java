@@ -33,6 +33,7 @@ import org.apache.sling.caconfig.example.SimpleConfig;
 import org.apache.sling.caconfig.example.SpecialNamesConfig;
 import org.apache.sling.caconfig.example.WithoutAnnotationConfig;
 import org.apache.sling.caconfig.impl.ConfigurationProxy.ChildResolver;
+import org.apache.sling.caconfig.impl.metadata.AnnotationClassMethodTableCache;
 import org.apache.sling.testing.mock.sling.junit.SlingContext;
 import org.junit.Rule;
 import org.junit.Test;
@@ -57,6 +58,8 @@ public class ConfigurationProxyTest {
     @Rule
     public SlingContext context = new SlingContext();
 
+    private final AnnotationClassMethodTableCache methodTables = new AnnotationClassMethodTableCache();
+
     @Test
     public void testNonExistingConfig_AllTypes() {
         AllTypesConfig cfg = get(null, AllTypesConfig.class);
@@ -252,8 +255,25 @@ public class ConfigurationProxyTest {
         cfg.charArray();
     }
 
+    @Test
+    public void testEager() throws Exception {
+        Resource resource = context.create().resource("/conf/test", "stringParam", "value1");
+        SimpleConfig cfg =
+                ConfigurationProxy.get(resource, SimpleConfig.class, childResolver(resource), true, methodTables);
+
+        // values were read at creation time
+        context.resourceResolver().delete(resource);
+        assertEquals("value1", cfg.stringParam());
+        assertEquals(5, cfg.intParam());
+    }
+
+    @Test(expected = ConfigurationResolveException.class)
+    public void testEager_IllegalTypes() {
+        ConfigurationProxy.get(null, IllegalTypesConfig.class, childResolver(null), true, methodTables);
+    }
+
     private <T> T get(Resource resource, Class<T> clazz) {
-        return ConfigurationProxy.get(resource, clazz, childResolver(resource));
+        return ConfigurationProxy.get(resource, clazz, childResolver(resource), methodTables);
     }
 
     // simulate simple child resolver without involving ConfigurationResolver implementation
@@ -262,7 +282,7 @@ public class ConfigurationProxyTest {
             @Override
             public <T> T getChild(String configName, Class<T> clazz) {
                 Resource child = resource != null ? resource.getChild(configName) : null;
-                return ConfigurationProxy.get(child, clazz, childResolver(child));
+                return ConfigurationProxy.get(child, clazz, childResolver(child), methodTables);
             }
 
             @Override
@@ -271,7 +291,7 @@ public class ConfigurationProxyTest {
                 Resource childParent = resource != null ? resource.getChild(configName) : null;
                 if (childParent != null) {
                     for (Resource child : childParent.getChildren()) {
-                        T result = ConfigurationProxy.get(child, clazz, childResolver(child));
+                        T result = ConfigurationProxy.get(child, clazz, childResolver(child), methodTables);
                         if (result != null) {
                             collection.add(result);
                         }
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl;
+
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.observation.ResourceChange.ChangeType;
+import org.apache.sling.caconfig.ConfigurationResolver;
+import org.apache.sling.testing.mock.osgi.MockOsgi;
+import org.apache.sling.testing.mock.osgi.ReferenceViolationException;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+
+import static org.apache.sling.caconfig.resource.impl.def.ConfigurationResourceNameConstants.PROPERTY_CONFIG_REF;
+import static org.apache.sling.caconfig.resource.impl.util.ResourceChangeTestUtil.fireChange;
+import static org.junit.Assert.assertEquals;
+
+@SuppressWarnings("null")
+public class ConfigurationResolutionCacheInvalidatorTest {
+
+    @Rule
+    public SlingContext context = new SlingContext();
+
+    private ConfigurationResolver underTest;
+
+    private Resource tenantAPage;
+    private Resource tenantBPage;
+
+    @Before
+    public void setUp() {
+        context.registerInjectActivateService(new ConfigurationResolutionCache(), "enabled", true);
+        underTest = ConfigurationTestUtils.registerConfigurationResolver(context);
+        context.registerInjectActivateService(new ConfigurationResolutionCacheInvalidator());
+
+        context.build().resource("/content/tenantA", PROPERTY_CONFIG_REF, "/conf/tenantA");
+        context.build().resource("/content/tenantB", PROPERTY_CONFIG_REF, "/conf/tenantB");
+        tenantAPage = context.create().resource("/content/tenantA/page1");
+        tenantBPage = context.create().resource("/content/tenantB/page1");
+
+        context.build().resource("/conf/tenantA/sling:configs/sampleName", "stringParam", "valueA1");
+        context.build().resource("/conf/tenantB/sling:configs/sampleName", "stringParam", "valueB1");
+        context.build().resource("/conf/tenantC/sling:configs/sampleName", "stringParam", "valueC1");
+    }
+
+    @Test
+    public void testConfigurationChange() throws Exception {
+        assertValue(tenantAPage, "valueA1");
+        assertValue(tenantBPage, "valueB1");
+
+        setProperty("/conf/tenantA/sling:configs/sampleName", "stringParam", "valueA2");
+        setProperty("/conf/tenantB/sling:configs/sampleName", "stringParam", "valueB2");
+
+        // only tenantA is notified - tenantB stays cached
+        fireChange(context, ChangeType.CHANGED, "/conf/tenantA/sling:configs/sampleName");
+        assertValue(tenantAPage, "valueA2");
+        assertValue(tenantBPage, "valueB1");
+
+        // unrelated property change on config root does not affect configurations
+        fireChange(context, ChangeType.CHANGED, "/conf/tenantB");
+        assertValue(tenantBPage, "valueB1");
+
+        // removal of config root affects configurations below
+        fireChange(context, ChangeType.REMOVED, "/conf/tenantB");
+        assertValue(tenantBPage, "valueB2");
+    }
+
+    @Test
+    public void testConfigRefChange() throws Exception {
+        assertValue(tenantAPage, "valueA1");
+        assertValue(tenantBPage, "valueB1");
+
+        setProperty("/content/tenantA", PROPERTY_CONFIG_REF, "/conf/tenantC");
+        setProperty("/content/tenantB", PROPERTY_CONFIG_REF, "/conf/tenantC");
+
+        // only content below the changed path is affected
+        fireChange(context, ChangeType.CHANGED, "/content/tenantA");
+        assertValue(tenantAPage, "valueC1");
+        assertValue(tenantBPage, "valueB1");
+    }
+
+    @Test(expected = ReferenceViolationException.class)
+    public void testCacheDisabled() {
+        // invalidator and its resource change listeners are not active while the cache is disabled
+        BundleContext bundleContext = MockOsgi.newBundleContext();
+        try {
+            ConfigurationResolutionCache cache = new ConfigurationResolutionCache();
+            MockOsgi.activate(cache, bundleContext);
+            bundleContext.registerService(ConfigurationResolutionCache.class, cache, null);
+            MockOsgi.injectServices(new ConfigurationResolutionCacheInvalidator(), bundleContext);
+        } finally {
+            MockOsgi.shutdown(bundleContext);
+        }
+    }
+
+    private void assertValue(Resource contentResource, String expected) {
+        assertEquals(
+                expected,
+                underTest.get(contentResource).name("sampleName").asValueMap().get("stringParam", String.class));
+    }
+
+    private void setProperty(String path, String name, Object value) {
+        context.resourceResolver()
+                .getResource(path)
+                .adaptTo(ModifiableValueMap.class)
+                .put(name, value);
+    }
+}
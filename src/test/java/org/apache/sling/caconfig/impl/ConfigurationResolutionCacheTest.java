@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl;
+
+import java.util.List;
+
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.caconfig.ConfigurationResolver;
+import org.apache.sling.caconfig.example.SimpleConfig;
+import org.apache.sling.caconfig.impl.ConfigurationResolutionCache.CachedConfiguration;
+import org.apache.sling.caconfig.impl.override.DummyConfigurationOverrideProvider;
+import org.apache.sling.caconfig.resource.spi.ConfigurationResourceResolvingStrategy;
+import org.apache.sling.caconfig.spi.ConfigurationOverrideProvider;
+import org.apache.sling.testing.mock.osgi.MockOsgi;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.osgi.framework.Constants;
+
+import static org.apache.sling.caconfig.impl.ConfigurationNameConstants.CONFIGS_BUCKET_NAME;
+import static org.apache.sling.caconfig.impl.def.ConfigurationDefNameConstants.PROPERTY_CONFIG_PROPERTY_INHERIT;
+import static org.apache.sling.caconfig.resource.impl.def.ConfigurationResourceNameConstants.PROPERTY_CONFIG_REF;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test {@link ConfigurationResolver} with {@link ConfigurationResolutionCache} enabled.
+ */
+@SuppressWarnings("null")
+public class ConfigurationResolutionCacheTest {
+
+    @Rule
+    public SlingContext context = new SlingContext();
+
+    private static final List<String> INHERIT_PROPERTY_NAMES = List.of(PROPERTY_CONFIG_PROPERTY_INHERIT);
+
+    private ConfigurationResolutionCache cache;
+    private ConfigurationResolver underTest;
+
+    private Resource site1Page1;
+    private Resource site2Page1;
+
+    @Before
+    public void setUp() {
+        cache = context.registerInjectActivateService(new ConfigurationResolutionCache(), "enabled", true);
+        underTest = ConfigurationTestUtils.registerConfigurationResolver(context);
+
+        // two content trees (e.g. language copies) sharing the same configuration root
+        context.build().resource("/content/site1/en", PROPERTY_CONFIG_REF, "/conf/site1");
+        context.build().resource("/content/site1/de", PROPERTY_CONFIG_REF, "/conf/site1");
+        site1Page1 = context.create().resource("/content/site1/en/page1");
+        site2Page1 = context.create().resource("/content/site1/de/page1");
+
+        context.build().resource("/conf/site1/sling:configs/sampleName", "stringParam", "value1", "intParam", 111);
+    }
+
+    @Test
+    public void testConfigRootChainCached() {
+        underTest.get(site1Page1).name("sampleName").asValueMap();
+
+        List<String> chain = cache.getConfigRootChain(site1Page1.getPath(), List.of(CONFIGS_BUCKET_NAME));
+        assertEquals(List.of("/conf/site1", "/conf/global", "/apps/conf", "/libs/conf"), chain);
+    }
+
+    @Test
+    public void testConfigurationSharedAcrossContexts() {
+        ValueMap props = underTest.get(site1Page1).name("sampleName").asValueMap();
+        assertEquals("value1", props.get("stringParam", String.class));
+
+        // change underlying data without invalidating the cache
+        context.resourceResolver()
+                .getResource("/conf/site1/sling:configs/sampleName")
+                .adaptTo(ModifiableValueMap.class)
+                .put("stringParam", "value2");
+
+        // both contexts share the cached entry for the config root chain
+        assertEquals(
+                "value1",
+                underTest.get(site1Page1).name("sampleName").asValueMap().get("stringParam"));
+        assertEquals(
+                "value1",
+                underTest.get(site2Page1).name("sampleName").asValueMap().get("stringParam"));
+        SimpleConfig cfg = underTest.get(site2Page1).name("sampleName").as(SimpleConfig.class);
+        assertEquals("value1", cfg.stringParam());
+        assertEquals(111, cfg.intParam());
+
+        cache.clear();
+        assertEquals(
+                "value2",
+                underTest.get(site1Page1).name("sampleName").asValueMap().get("stringParam"));
+    }
+
+    @Test
+    public void testNonExistingConfigurationCached() {
+        assertNull(underTest.get(site1Page1).name("otherName").asValueMap().get("stringParam"));
+
+        context.build().resource("/conf/site1/sling:configs/otherName", "stringParam", "value1");
+        assertNull(underTest.get(site1Page1).name("otherName").asValueMap().get("stringParam"));
+
+        cache.clear();
+        assertEquals(
+                "value1",
+                underTest.get(site1Page1).name("otherName").asValueMap().get("stringParam"));
+    }
+
+    @Test
+    public void testOverridesAppliedPerContextPath() {
+        context.registerService(
+                ConfigurationOverrideProvider.class,
+                new DummyConfigurationOverrideProvider("[/content/site1/de]sampleName/stringParam=\"override\""));
+
+        assertEquals(
+                "value1",
+                underTest.get(site1Page1).name("sampleName").asValueMap().get("stringParam"));
+        assertEquals(
+                "override",
+                underTest.get(site2Page1).name("sampleName").asValueMap().get("stringParam"));
+    }
+
+    @Test
+    public void testInheritedPropertiesSharedAcrossSiblings() {
+        context.build().resource("/content/brand1", PROPERTY_CONFIG_REF, "/conf/brand1");
+        context.build().resource("/content/brand1/site1", PROPERTY_CONFIG_REF, "/conf/brand1/site1");
+        context.build().resource("/content/brand1/site2", PROPERTY_CONFIG_REF, "/conf/brand1/site2");
+        Resource brandSite1Page = context.create().resource("/content/brand1/site1/page1");
+        Resource brandSite2Page = context.create().resource("/content/brand1/site2/page1");
+
+        context.build().resource("/conf/brand1/sling:configs/test", "param2", "brand");
+        context.build()
+                .resource(
+                        "/conf/brand1/site1/sling:configs/test",
+                        "param1",
+                        "site1",
+                        PROPERTY_CONFIG_PROPERTY_INHERIT,
+                        true);
+        context.build()
+                .resource(
+                        "/conf/brand1/site2/sling:configs/test",
+                        "param1",
+                        "site2",
+                        PROPERTY_CONFIG_PROPERTY_INHERIT,
+                        true);
+
+        ValueMap props = underTest.get(brandSite1Page).name("test").asValueMap();
+        assertEquals("site1", props.get("param1", String.class));
+        assertEquals("brand", props.get("param2", String.class));
+        assertNotNull(cache.getInheritedProperties(
+                context.resourceResolver(), List.of("/conf/brand1/sling:configs/test"), INHERIT_PROPERTY_NAMES));
+
+        // merged tails are not shared with resource resolvers of other users
+        ResourceResolver otherUserResolver = mock(ResourceResolver.class);
+        when(otherUserResolver.getUserID()).thenReturn("other-user");
+        assertNull(cache.getInheritedProperties(
+                otherUserResolver, List.of("/conf/brand1/sling:configs/test"), INHERIT_PROPERTY_NAMES));
+
+        // change shared tail without invalidating the cache - sibling uses the merged tail from the cache
+        context.resourceResolver()
+                .getResource("/conf/brand1/sling:configs/test")
+                .adaptTo(ModifiableValueMap.class)
+                .put("param2", "brand-changed");
+        props = underTest.get(brandSite2Page).name("test").asValueMap();
+        assertEquals("site2", props.get("param1", String.class));
+        assertEquals("brand", props.get("param2", String.class));
+
+        cache.invalidateConfigurationPath("/conf/brand1/sling:configs/test", false);
+        assertNull(cache.getInheritedProperties(
+                context.resourceResolver(), List.of("/conf/brand1/sling:configs/test"), INHERIT_PROPERTY_NAMES));
+    }
+
+    @Test
+    public void testCustomResolvingStrategyNotShared() {
+        // custom strategy answers with a configuration per content path, but only for "customName"
+        context.build()
+                .resource("/conf/custom/en/sling:configs/customName", "stringParam", "en")
+                .resource("/conf/custom/de/sling:configs/customName", "stringParam", "de");
+        ConfigurationResourceResolvingStrategy customStrategy = mock(ConfigurationResourceResolvingStrategy.class);
+        when(customStrategy.getResourceInheritanceChain(any(), any(), eq("customName")))
+                .thenAnswer(invocation -> {
+                    Resource resource = invocation.getArgument(0);
+                    String language = resource.getPath().startsWith("/content/site1/en") ? "en" : "de";
+                    return List.of(context.resourceResolver()
+                                    .getResource("/conf/custom/" + language + "/sling:configs/customName"))
+                            .iterator();
+                });
+        context.registerService(
+                ConfigurationResourceResolvingStrategy.class, customStrategy, Constants.SERVICE_RANKING, 1000);
+
+        // config-root chains of the default strategy are cached for both contexts
+        underTest.get(site1Page1).name("sampleName").asValueMap();
+        underTest.get(site2Page1).name("sampleName").asValueMap();
+        assertNotNull(cache.getConfigRootChain(site2Page1.getPath(), List.of(CONFIGS_BUCKET_NAME)));
+
+        assertEquals(
+                "en", underTest.get(site1Page1).name("customName").asValueMap().get("stringParam"));
+        assertEquals(
+                "de", underTest.get(site2Page1).name("customName").asValueMap().get("stringParam"));
+    }
+
+    @Test
+    public void testInvalidation() {
+        List<String> bucketNames = List.of(CONFIGS_BUCKET_NAME);
+        List<String> chain = List.of("/conf/site1", "/conf/global");
+        CachedConfiguration config = CachedConfiguration.of(null);
+        cache.putConfigRootChain("/content/site1/en/page1", bucketNames, chain);
+        cache.putConfigRootChain("/content/site1/de/page1", bucketNames, chain);
+        cache.putConfiguration(chain, bucketNames, "sampleName", config);
+        cache.putConfiguration(chain, bucketNames, "other/nested", config);
+
+        // content changes affect only the changed path and its descendants
+        cache.invalidateContentPath("/content/site1/en");
+        assertNull(cache.getConfigRootChain("/content/site1/en/page1", bucketNames));
+        assertNotNull(cache.getConfigRootChain("/content/site1/de/page1", bucketNames));
+
+        // property changes affect the configuration resource and its ancestors only
+        cache.invalidateConfigurationPath("/conf/global/sling:configs", false);
+        assertNotNull(cache.getConfiguration(chain, bucketNames, "sampleName"));
+        cache.invalidateConfigurationPath("/conf/global/sling:configs/sampleName/child", false);
+        assertNull(cache.getConfiguration(chain, bucketNames, "sampleName"));
+        assertNotNull(cache.getConfiguration(chain, bucketNames, "other/nested"));
+
+        // structural changes affect descendants as well
+        cache.invalidateConfigurationPath("/conf/site1/sling:configs/other", true);
+        assertNull(cache.getConfiguration(chain, bucketNames, "other/nested"));
+    }
+
+    @Test
+    public void testDisabled() {
+        MockOsgi.modified(cache, context.bundleContext(), "enabled", false);
+
+        underTest.get(site1Page1).name("sampleName").asValueMap();
+        assertNull(cache.getConfigRootChain(site1Page1.getPath(), List.of(CONFIGS_BUCKET_NAME)));
+
+        context.resourceResolver()
+                .getResource("/conf/site1/sling:configs/sampleName")
+                .adaptTo(ModifiableValueMap.class)
+                .put("stringParam", "value2");
+        assertEquals(
+                "value2",
+                underTest.get(site1Page1).name("sampleName").asValueMap().get("stringParam"));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl;
+
+import java.util.Collection;
+
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.caconfig.ConfigurationResolver;
+import org.apache.sling.caconfig.example.ListConfig;
+import org.apache.sling.caconfig.example.SimpleConfig;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.apache.sling.caconfig.resource.impl.def.ConfigurationResourceNameConstants.PROPERTY_CONFIG_REF;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test {@link ConfigurationResolver} with resource resolver memo.
+ */
+@SuppressWarnings("null")
+public class ConfigurationResolverMemoTest {
+
+    @Rule
+    public SlingContext context = new SlingContext();
+
+    private ConfigurationResolver underTest;
+
+    private Resource site1Page1;
+    private Resource site2Page1;
+
+    @Before
+    public void setUp() {
+        underTest = ConfigurationTestUtils.registerConfigurationResolver(context, "resolverMemo", true);
+
+        context.build().resource("/content/site1", PROPERTY_CONFIG_REF, "/conf/content/site1");
+        context.build().resource("/content/site2", PROPERTY_CONFIG_REF, "/conf/content/site2");
+        site1Page1 = context.create().resource("/content/site1/page1");
+        site2Page1 = context.create().resource("/content/site2/page1");
+
+        context.build()
+                .resource("/conf/content/site1/sling:configs/sampleName", "stringParam", "value1")
+                .resource("/conf/content/site2/sling:configs/sampleName", "stringParam", "value2")
+                .resource(
+                        "/conf/content/site1/sling:configs/org.apache.sling.caconfig.example.SimpleConfig",
+                        "stringParam",
+                        "value3")
+                .resource("/conf/content/site1/sling:configs/org.apache.sling.caconfig.example.ListConfig")
+                .siblingsMode()
+                .resource("1", "stringParam", "item1")
+                .resource("2", "stringParam", "item2");
+    }
+
+    @Test
+    public void testValueMap() {
+        ValueMap props = underTest.get(site1Page1).name("sampleName").asValueMap();
+        assertEquals("value1", props.get("stringParam", String.class));
+        assertEquals(
+                "value2",
+                underTest.get(site2Page1).name("sampleName").asValueMap().get("stringParam", String.class));
+
+        // changes are not visible for the lifetime of the resource resolver
+        context.resourceResolver()
+                .getResource("/content/site1")
+                .adaptTo(ModifiableValueMap.class)
+                .put(PROPERTY_CONFIG_REF, "/conf/content/site2");
+        assertEquals(
+                "value1",
+                underTest.get(site1Page1).name("sampleName").asValueMap().get("stringParam", String.class));
+    }
+
+    @Test
+    public void testValueMapModificationNotShared() {
+        ValueMap props = underTest.get(site1Page1).name("sampleName").asValueMap();
+        props.put("stringParam", "modified");
+        props.put("otherParam", "other");
+        assertEquals("modified", props.get("stringParam", String.class));
+
+        ValueMap props2 = underTest.get(site1Page1).name("sampleName").asValueMap();
+        assertNotSame(props, props2);
+        assertEquals("value1", props2.get("stringParam", String.class));
+        assertFalse(props2.containsKey("otherParam"));
+
+        props2.remove("stringParam");
+        assertEquals(
+                "value1",
+                underTest.get(site1Page1).name("sampleName").asValueMap().get("stringParam", String.class));
+    }
+
+    @Test
+    public void testValueMapCollectionModificationNotShared() {
+        Collection<ValueMap> items = underTest
+                .get(site1Page1)
+                .name("org.apache.sling.caconfig.example.ListConfig")
+                .asValueMapCollection();
+        items.iterator().next().put("stringParam", "modified");
+
+        Collection<ValueMap> items2 = underTest
+                .get(site1Page1)
+                .name("org.apache.sling.caconfig.example.ListConfig")
+                .asValueMapCollection();
+        assertEquals("item1", items2.iterator().next().get("stringParam", String.class));
+    }
+
+    @Test
+    public void testAnnotationClass() {
+        SimpleConfig config = underTest.get(site1Page1).as(SimpleConfig.class);
+        assertEquals("value3", config.stringParam());
+        assertSame(config, underTest.get(site1Page1).as(SimpleConfig.class));
+
+        // different target type for same configuration name
+        assertEquals(
+                "value3",
+                underTest
+                        .get(site1Page1)
+                        .name("org.apache.sling.caconfig.example.SimpleConfig")
+                        .asValueMap()
+                        .get("stringParam", String.class));
+    }
+
+    @Test
+    public void testAnnotationClassCollection() {
+        Collection<ListConfig> items = underTest.get(site1Page1).asCollection(ListConfig.class);
+        assertEquals(2, items.size());
+
+        // modifications of the returned collection do not affect the memo
+        items.clear();
+        Collection<ListConfig> items2 = underTest.get(site1Page1).asCollection(ListConfig.class);
+        assertEquals(2, items2.size());
+        assertNotSame(items, items2);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.caconfig.example.ListConfig;
+import org.apache.sling.caconfig.example.SimpleConfig;
+import org.apache.sling.caconfig.example.WithoutAnnotationConfig;
+import org.apache.sling.caconfig.impl.resolver.PreparedConfiguration;
+import org.apache.sling.caconfig.impl.resolver.PreparedConfigurationResolver;
+import org.apache.sling.caconfig.spi.ConfigurationMetadataProvider;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.osgi.framework.Constants;
+
+import static org.apache.sling.caconfig.resource.impl.def.ConfigurationResourceNameConstants.PROPERTY_CONFIG_REF;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test {@link PreparedConfigurationResolver}.
+ */
+@SuppressWarnings("null")
+public class PreparedConfigurationTest {
+
+    @Rule
+    public SlingContext context = new SlingContext();
+
+    private PreparedConfigurationResolver underTest;
+
+    private Resource site1Page1;
+    private Resource site2Page1;
+
+    @Before
+    public void setUp() {
+        ConfigurationTestUtils.registerConfigurationResolver(context);
+        underTest = context.getService(PreparedConfigurationResolver.class);
+
+        context.build().resource("/content/site1", PROPERTY_CONFIG_REF, "/conf/content/site1");
+        context.build().resource("/content/site2", PROPERTY_CONFIG_REF, "/conf/content/site2");
+        site1Page1 = context.create().resource("/content/site1/page1");
+        site2Page1 = context.create().resource("/content/site2/page1");
+
+        context.build()
+                .resource(
+                        "/conf/content/site1/sling:configs/org.apache.sling.caconfig.example.SimpleConfig",
+                        "stringParam",
+                        "value1")
+                .resource(
+                        "/conf/content/site2/sling:configs/org.apache.sling.caconfig.example.SimpleConfig",
+                        "stringParam",
+                        "value2")
+                .resource("/conf/content/site1/sling:configs/org.apache.sling.caconfig.example.ListConfig")
+                .siblingsMode()
+                .resource("1", "stringParam", "item1")
+                .resource("2", "stringParam", "item2");
+    }
+
+    @Test
+    public void testAnnotationClass() {
+        PreparedConfiguration<SimpleConfig> handle = underTest.prepare(SimpleConfig.class);
+        assertEquals(SimpleConfig.class.getName(), handle.getName());
+
+        assertEquals("value1", handle.get(site1Page1).stringParam());
+        assertEquals(5, handle.get(site1Page1).intParam());
+        assertEquals("value2", handle.get(site2Page1).stringParam());
+        assertTrue(handle.has(site1Page1));
+    }
+
+    @Test
+    public void testGetAll() {
+        PreparedConfiguration<SimpleConfig> handle = underTest.prepare(SimpleConfig.class);
+        Resource site1Page2 = context.create().resource("/content/site1/page2");
+        Resource site1Page2Child = context.create().resource("/content/site1/page2/child1");
+
+        Map<String, String> result = new LinkedHashMap<>();
+        handle.getAll(
+                List.of(site1Page1, site1Page2, site1Page2Child, site2Page1).iterator(),
+                (resource, config) -> result.put(resource.getPath(), config.stringParam()));
+
+        assertEquals(
+                List.of(
+                        "/content/site1/page1",
+                        "/content/site1/page2",
+                        "/content/site1/page2/child1",
+                        "/content/site2/page1"),
+                List.copyOf(result.keySet()));
+        assertEquals(List.of("value1", "value1", "value1", "value2"), List.copyOf(result.values()));
+    }
+
+    @Test
+    public void testAnnotationClassCollection() {
+        PreparedConfiguration<ListConfig> handle = underTest.prepare(ListConfig.class);
+
+        Collection<ListConfig> items = handle.getCollection(site1Page1);
+        assertEquals(2, items.size());
+        assertTrue(handle.getCollection(site2Page1).isEmpty());
+        assertFalse(handle.has(site2Page1));
+    }
+
+    @Test
+    public void testValueMap() {
+        PreparedConfiguration<ValueMap> handle =
+                underTest.prepare("org.apache.sling.caconfig.example.SimpleConfig", ValueMap.class);
+
+        assertEquals("value1", handle.get(site1Page1).get("stringParam", String.class));
+        assertEquals("value2", handle.get(site2Page1).get("stringParam", String.class));
+    }
+
+    @Test
+    public void testValueMapWithDefaultValues() {
+        ConfigurationMetadataProvider metadataProvider = spy(new DummyConfigurationMetadataProvider(
+                "org.apache.sling.caconfig.example.SimpleConfig", Map.<String, Object>of("intParam", 999), false));
+        context.registerService(ConfigurationMetadataProvider.class, metadataProvider);
+        PreparedConfiguration<ValueMap> handle =
+                underTest.prepare("org.apache.sling.caconfig.example.SimpleConfig", ValueMap.class);
+
+        assertEquals("value1", handle.get(site1Page1).get("stringParam", String.class));
+        assertEquals(999, (int) handle.get(site1Page1).get("intParam", 0));
+        assertEquals(999, (int) handle.get(site2Page1).get("intParam", 0));
+        // metadata is looked up once for all content resources
+        verify(metadataProvider, times(1)).getConfigurationMetadata("org.apache.sling.caconfig.example.SimpleConfig");
+
+        // a new metadata provider invalidates the lookups
+        context.registerService(
+                ConfigurationMetadataProvider.class,
+                new DummyConfigurationMetadataProvider("otherName", Map.of(), false),
+                Constants.SERVICE_RANKING,
+                100);
+        assertEquals(999, (int) handle.get(site1Page1).get("intParam", 0));
+        verify(metadataProvider, times(2)).getConfigurationMetadata("org.apache.sling.caconfig.example.SimpleConfig");
+    }
+
+    @Test
+    public void testValueMapCollectionWithDefaultValues() {
+        context.registerService(
+                ConfigurationMetadataProvider.class,
+                new DummyConfigurationMetadataProvider(
+                        "org.apache.sling.caconfig.example.ListConfig", Map.<String, Object>of("intParam", 999), true));
+        PreparedConfiguration<ValueMap> handle =
+                underTest.prepare("org.apache.sling.caconfig.example.ListConfig", ValueMap.class);
+
+        List<ValueMap> items = List.copyOf(handle.getCollection(site1Page1));
+        assertEquals(2, items.size());
+        assertEquals("item1", items.get(0).get("stringParam", String.class));
+        assertEquals(999, (int) items.get(0).get("intParam", 0));
+        assertEquals("item2", items.get(1).get("stringParam", String.class));
+        assertEquals(999, (int) items.get(1).get("intParam", 0));
+    }
+
+    @Test
+    public void testNonExistingConfig() {
+        PreparedConfiguration<SimpleConfig> handle = underTest.prepare("otherName", SimpleConfig.class);
+
+        assertNull(handle.get(site1Page1).stringParam());
+        assertEquals(5, handle.get(site1Page1).intParam());
+        assertFalse(handle.has(site1Page1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWithoutAnnotation() {
+        underTest.prepare(WithoutAnnotationConfig.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidName() {
+        underTest.prepare("/a/../b", ValueMap.class);
+    }
+}
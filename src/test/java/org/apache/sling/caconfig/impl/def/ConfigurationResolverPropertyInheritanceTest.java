@@ -18,13 +18,19 @@
  */
 package org.apache.sling.caconfig.impl.def;
 
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
 import org.apache.sling.caconfig.ConfigurationResolver;
 import org.apache.sling.caconfig.impl.ConfigurationTestUtils;
+import org.apache.sling.caconfig.spi.ConfigurationInheritanceStrategy;
 import org.apache.sling.testing.mock.sling.junit.SlingContext;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.osgi.framework.Constants;
 
 import static org.apache.sling.caconfig.impl.def.ConfigurationDefNameConstants.PROPERTY_CONFIG_PROPERTY_INHERIT;
 import static org.apache.sling.caconfig.resource.impl.def.ConfigurationResourceNameConstants.PROPERTY_CONFIG_REF;
@@ -33,6 +39,7 @@ import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
 
 /**
  * Test {@link ConfigurationResolver} with property inheritance and merging.
@@ -291,4 +298,30 @@ public class ConfigurationResolverPropertyInheritanceTest {
                         .next(),
                 allOf(hasEntry("param1", (Object) "value1b"), not(hasKey("param2"))));
     }
+
+    @Test
+    public void testCollectionInheritanceEvaluatedOncePerItem() {
+        AtomicInteger calls = new AtomicInteger();
+        context.registerService(
+                ConfigurationInheritanceStrategy.class,
+                configResources -> {
+                    calls.incrementAndGet();
+                    return null;
+                },
+                Constants.SERVICE_RANKING,
+                2000);
+        context.build()
+                .resource("/conf/global/sling:configs/test")
+                .siblingsMode()
+                .resource("item1", "param1", "value1", "param2", "value2")
+                .resource("item2", "param1", "value3")
+                .resource("/conf/brand1/tenant1/region1/site1/sling:configs/test")
+                .resource("item1", "param1", "value1a", PROPERTY_CONFIG_PROPERTY_INHERIT, true);
+
+        Collection<ValueMap> items = underTest.get(site1Page1).name("test").asValueMapCollection();
+        assertEquals(1, items.size());
+        assertThat(items.iterator().next(), allOf(hasEntry("param1", (Object) "value1a"), hasEntry("param2", (Object)
+                "value2")));
+        assertEquals(1, calls.get());
+    }
 }
@@ -18,13 +18,19 @@
  */
 package org.apache.sling.caconfig.impl.def;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.collections4.IteratorUtils;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceWrapper;
 import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.caconfig.impl.ConfigurationResolutionCache;
 import org.apache.sling.caconfig.spi.ConfigurationInheritanceStrategy;
 import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.jetbrains.annotations.NotNull;
 import org.junit.Rule;
 import org.junit.Test;
 
@@ -125,6 +131,125 @@ public class DefaultConfigurationInheritanceStrategyTest {
         assertNull(props.get("prop4", String.class));
     }
 
+    @Test
+    public void testWithLazyPropertyMerging() {
+        underTest = context.registerInjectActivateService(
+                new DefaultConfigurationInheritanceStrategy(), "lazyPropertyInheritance", true);
+
+        List<Resource> resourceList = List.of(
+                context.create()
+                        .resource(
+                                "/conf/resource1",
+                                "prop1",
+                                "value1a",
+                                "prop2",
+                                "value2a",
+                                PROPERTY_CONFIG_PROPERTY_INHERIT,
+                                true),
+                context.create()
+                        .resource(
+                                "/conf/resource2",
+                                "prop2",
+                                "value2b",
+                                "prop3",
+                                "value3b",
+                                PROPERTY_CONFIG_PROPERTY_INHERIT,
+                                true),
+                context.create().resource("/conf/resource3", "prop4", "value4b"),
+                context.create().resource("/conf/resource4", "prop5", "value5b"));
+        AtomicInteger fetched = new AtomicInteger();
+        Iterator<Resource> resources = IteratorUtils.transformedIterator(resourceList.iterator(), resource -> {
+            fetched.incrementAndGet();
+            return resource;
+        });
+
+        Resource inherited = underTest.getResource(resources);
+        ValueMap props = inherited.getValueMap();
+        assertEquals(1, fetched.get());
+
+        assertEquals("value1a", props.get("prop1", String.class));
+        assertEquals("value2a", props.get("prop2", String.class));
+        assertEquals(1, fetched.get());
+
+        assertEquals("value3b", props.get("prop3", String.class));
+        assertEquals(2, fetched.get());
+
+        assertEquals("value4b", props.get("prop4", String.class));
+        assertNull(props.get("prop5", String.class));
+        assertEquals(3, fetched.get());
+        assertEquals(5, props.size());
+    }
+
+    @Test
+    public void testPropertyMergingNotLazyByDefault() {
+        underTest = context.registerInjectActivateService(new DefaultConfigurationInheritanceStrategy());
+
+        List<Resource> resourceList = List.of(
+                context.create()
+                        .resource("/conf/resource1", "prop1", "value1a", PROPERTY_CONFIG_PROPERTY_INHERIT, true),
+                context.create().resource("/conf/resource2", "prop2", "value2b"));
+        AtomicInteger fetched = new AtomicInteger();
+        Iterator<Resource> resources = IteratorUtils.transformedIterator(resourceList.iterator(), resource -> {
+            fetched.incrementAndGet();
+            return resource;
+        });
+
+        // whole inheritance chain is read before the resource is returned
+        ValueMap props = underTest.getResource(resources).getValueMap();
+        assertEquals(2, fetched.get());
+        assertEquals("value2b", props.get("prop2", String.class));
+    }
+
+    @Test
+    public void testWithPropertyMergingCached() {
+        context.registerInjectActivateService(new ConfigurationResolutionCache(), "enabled", true);
+        underTest = context.registerInjectActivateService(new DefaultConfigurationInheritanceStrategy());
+
+        context.create().resource("/conf/resource1", "prop1", "value1a", PROPERTY_CONFIG_PROPERTY_INHERIT, true);
+        context.create().resource("/conf/resource2", "prop2", "value2b", PROPERTY_CONFIG_PROPERTY_INHERIT, true);
+        context.create().resource("/conf/resource3", "prop3", "value3b");
+        context.create().resource("/conf/resource4", "prop4", "value4b");
+        AtomicInteger valueMapReads = new AtomicInteger();
+
+        ValueMap props = underTest
+                .getResource(countValueMapReads(
+                        valueMapReads, "/conf/resource1", "/conf/resource2", "/conf/resource3", "/conf/resource4"))
+                .getValueMap();
+        assertEquals("value2b", props.get("prop2", String.class));
+        assertEquals("value3b", props.get("prop3", String.class));
+        assertNull(props.get("prop4", String.class));
+        assertEquals(3, valueMapReads.get());
+
+        // second lookup with the same inheritance chain does not walk beyond the first resource not inheriting
+        valueMapReads.set(0);
+        AtomicInteger fetched = new AtomicInteger();
+        Iterator<Resource> resources = IteratorUtils.transformedIterator(
+                countValueMapReads(
+                        valueMapReads, "/conf/resource1", "/conf/resource2", "/conf/resource3", "/conf/resource4"),
+                resource -> {
+                    fetched.incrementAndGet();
+                    return resource;
+                });
+        props = underTest.getResource(resources).getValueMap();
+        assertEquals("value1a", props.get("prop1", String.class));
+        assertEquals("value3b", props.get("prop3", String.class));
+        assertEquals(3, fetched.get());
+        assertEquals(3, valueMapReads.get());
+    }
+
+    private Iterator<Resource> countValueMapReads(AtomicInteger valueMapReads, String... paths) {
+        return Arrays.stream(paths)
+                .map(path -> (Resource)
+                        new ResourceWrapper(context.resourceResolver().getResource(path)) {
+                            @Override
+                            public @NotNull ValueMap getValueMap() {
+                                valueMapReads.incrementAndGet();
+                                return super.getValueMap();
+                            }
+                        })
+                .iterator();
+    }
+
     @Test
     public void testDisabled() {
         underTest =
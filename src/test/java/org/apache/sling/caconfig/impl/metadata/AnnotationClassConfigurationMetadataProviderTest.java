@@ -18,20 +18,27 @@
  */
 package org.apache.sling.caconfig.impl.metadata;
 
+import java.io.File;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.sling.caconfig.annotation.Configuration;
 import org.apache.sling.caconfig.example.AllTypesConfig;
 import org.apache.sling.caconfig.example.MetadataSimpleConfig;
+import org.apache.sling.testing.mock.osgi.MockOsgi;
 import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
 
 public class AnnotationClassConfigurationMetadataProviderTest {
 
@@ -76,6 +83,95 @@ public class AnnotationClassConfigurationMetadataProviderTest {
         assertTrue(underTest.getConfigurationNames().isEmpty());
     }
 
+    @Test
+    public void testConfigurationNameIndex() {
+        Bundle dummyBundle1 = BundleEventUtil.startDummyBundle(context.bundleContext(), MetadataSimpleConfig.class);
+
+        // index is reused until bundle mappings change
+        Set<String> configNames = underTest.getConfigurationNames();
+        assertSame(configNames, underTest.getConfigurationNames());
+        assertEquals(Set.of("simpleConfig"), configNames);
+
+        Bundle dummyBundle2 = BundleEventUtil.startDummyBundle(context.bundleContext(), AllTypesConfig.class);
+        assertEquals(Set.of("simpleConfig", AllTypesConfig.class.getName()), underTest.getConfigurationNames());
+
+        BundleEventUtil.stopDummyBundle(dummyBundle1);
+        assertEquals(Set.of(AllTypesConfig.class.getName()), underTest.getConfigurationNames());
+        assertNull(underTest.getConfigurationMetadata("simpleConfig"));
+
+        BundleEventUtil.stopDummyBundle(dummyBundle2);
+        assertTrue(underTest.getConfigurationNames().isEmpty());
+    }
+
+    @Test
+    public void testChangeListener() {
+        AtomicInteger changes = new AtomicInteger();
+        Runnable listener = changes::incrementAndGet;
+        underTest.addChangeListener(listener);
+
+        Bundle dummyBundle = BundleEventUtil.startDummyBundle(context.bundleContext(), MetadataSimpleConfig.class);
+        assertEquals(1, changes.get());
+        BundleEventUtil.stopDummyBundle(dummyBundle);
+        assertEquals(2, changes.get());
+
+        underTest.removeChangeListener(listener);
+        BundleEventUtil.startDummyBundle(context.bundleContext(), MetadataSimpleConfig.class);
+        assertEquals(2, changes.get());
+    }
+
+    @Test
+    public void testWarmUpPersistMetadata() throws Exception {
+        AnnotationClassConfigurationMetadataProvider provider = context.registerInjectActivateService(
+                new AnnotationClassConfigurationMetadataProvider(), "warmUp", true, "persistMetadata", true);
+
+        Bundle dummyBundle = BundleEventUtil.startDummyBundle(context.bundleContext(), MetadataSimpleConfig.class);
+
+        // metadata is parsed and stored in the background
+        File file = new File(context.bundleContext().getDataFile("metadata"), dummyBundle.getBundleId() + ".metadata");
+        long timeout = System.currentTimeMillis() + 10000;
+        while (!file.exists() && System.currentTimeMillis() < timeout) {
+            Thread.sleep(20);
+        }
+        assertTrue(file.exists());
+        assertEquals(Set.of("simpleConfig"), provider.getConfigurationNames());
+    }
+
+    @Test
+    public void testRestartRestoresPersistedMetadata() throws Exception {
+        AnnotationClassConfigurationMetadataProvider provider = new AnnotationClassConfigurationMetadataProvider();
+        MockOsgi.activate(provider, context.bundleContext(), "warmUp", true, "persistMetadata", true);
+        Bundle dummyBundle = BundleEventUtil.startDummyBundle(context.bundleContext(), MetadataSimpleConfig.class);
+        File file = new File(context.bundleContext().getDataFile("metadata"), dummyBundle.getBundleId() + ".metadata");
+        long timeout = System.currentTimeMillis() + 10000;
+        while (!file.exists() && System.currentTimeMillis() < timeout) {
+            Thread.sleep(20);
+        }
+        assertTrue(file.exists());
+        MockOsgi.deactivate(provider, context.bundleContext());
+
+        // restart provider with the dummy bundle still installed
+        BundleContext bundleContext = spy(context.bundleContext());
+        when(bundleContext.getBundle(dummyBundle.getBundleId())).thenReturn(dummyBundle);
+        AnnotationClassConfigurationMetadataProvider restarted = new AnnotationClassConfigurationMetadataProvider();
+        MockOsgi.activate(restarted, bundleContext, "persistMetadata", true);
+        int loadedClassCount = BundleEventUtil.getLoadedClassCount(dummyBundle);
+        BundleEventUtil.startDummyBundle(dummyBundle);
+
+        // metadata is restored from the stored file without loading the configuration classes
+        assertEquals(Set.of("simpleConfig"), restarted.getConfigurationNames());
+        assertEquals(
+                MetadataSimpleConfig.class.getName(),
+                restarted.getConfigurationMapping("simpleConfig").getConfigClassName());
+        assertEquals(
+                3,
+                restarted
+                        .getConfigurationMetadata("simpleConfig")
+                        .getPropertyMetadata()
+                        .size());
+        assertEquals(loadedClassCount, BundleEventUtil.getLoadedClassCount(dummyBundle));
+        MockOsgi.deactivate(restarted, bundleContext);
+    }
+
     @Test
     public void testUnmappedConfigName() {
         assertNull(underTest.getConfigurationMetadata("unkonwn"));
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl.metadata;
+
+import org.apache.sling.caconfig.example.ListConfig;
+import org.apache.sling.caconfig.example.NestedConfig;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class AnnotationClassMethodTableCacheTest {
+
+    private final AnnotationClassMethodTableCache underTest = new AnnotationClassMethodTableCache();
+
+    @Test
+    public void testBuiltOncePerClass() {
+        AnnotationClassMethodTable table = underTest.get(NestedConfig.class);
+        assertSame(table, underTest.get(NestedConfig.class));
+        assertEquals(4, table.getEntries().size());
+        assertNotSame(table, underTest.get(ListConfig.class));
+    }
+
+    @Test
+    public void testNotSharedBetweenCaches() {
+        assertNotSame(underTest.get(NestedConfig.class), new AnnotationClassMethodTableCache().get(NestedConfig.class));
+    }
+
+    @Test
+    public void testClear() {
+        AnnotationClassMethodTable table = underTest.get(NestedConfig.class);
+        underTest.clear();
+        AnnotationClassMethodTable rebuilt = underTest.get(NestedConfig.class);
+        assertNotSame(table, rebuilt);
+        assertSame(rebuilt, underTest.get(NestedConfig.class));
+    }
+}
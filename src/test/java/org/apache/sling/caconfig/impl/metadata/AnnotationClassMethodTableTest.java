@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl.metadata;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.apache.sling.caconfig.ConfigurationResolveException;
+import org.apache.sling.caconfig.example.AllTypesConfig;
+import org.apache.sling.caconfig.example.IllegalTypesConfig;
+import org.apache.sling.caconfig.example.ListConfig;
+import org.apache.sling.caconfig.example.NestedConfig;
+import org.apache.sling.caconfig.example.SpecialNamesConfig;
+import org.apache.sling.caconfig.impl.metadata.AnnotationClassMethodTable.Entry;
+import org.junit.Test;
+
+import static org.apache.sling.caconfig.example.AllTypesDefaults.INT_DEFAULT;
+import static org.apache.sling.caconfig.example.AllTypesDefaults.STRING_DEFAULT;
+import static org.apache.sling.caconfig.example.AllTypesDefaults.STRING_DEFAULT_2;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AnnotationClassMethodTableTest {
+
+    @Test
+    public void testEntries() {
+        AnnotationClassMethodTable underTest = new AnnotationClassMethodTable(NestedConfig.class);
+        assertEquals(4, underTest.getEntries().size());
+
+        Entry stringParam = underTest.getEntry("stringParam");
+        assertEquals("stringParam", stringParam.getPropertyName());
+        assertEquals(String.class, stringParam.getReturnType());
+        assertFalse(stringParam.isNested());
+        assertNull(stringParam.getDefaultValue());
+
+        Entry subListConfig = underTest.getEntry("subListConfig");
+        assertEquals(ListConfig[].class, subListConfig.getReturnType());
+        assertEquals(ListConfig.class, subListConfig.getComponentType());
+        assertTrue(subListConfig.isArray());
+        assertTrue(subListConfig.isNested());
+
+        for (int i = 0; i < underTest.getEntries().size(); i++) {
+            assertEquals(i, underTest.getEntries().get(i).getIndex());
+        }
+
+        assertNull(underTest.getEntry("toString"));
+    }
+
+    @Test
+    public void testPropertyNameMapping() {
+        AnnotationClassMethodTable underTest = new AnnotationClassMethodTable(SpecialNamesConfig.class);
+        assertEquals("stringParam", underTest.getEntry("$stringParam").getPropertyName());
+        assertEquals("int_Param", underTest.getEntry("int__Param").getPropertyName());
+        assertEquals(5, underTest.getEntry("int__Param").getDefaultValue());
+        assertEquals("bool.Param", underTest.getEntry("bool_Param").getPropertyName());
+    }
+
+    @Test
+    public void testGetOrCreateEntry() throws Exception {
+        AnnotationClassMethodTable underTest = new AnnotationClassMethodTable(NestedConfig.class);
+        assertSame(
+                underTest.getEntry("subConfig"), underTest.getOrCreateEntry(NestedConfig.class.getMethod("subConfig")));
+
+        Entry toString = underTest.getOrCreateEntry(Object.class.getMethod("toString"));
+        assertEquals(-1, toString.getIndex());
+        assertEquals("toString", toString.getPropertyName());
+    }
+
+    @Test
+    public void testGetOrCreateEntryNewMethodInstances() throws Exception {
+        AnnotationClassMethodTable underTest = new AnnotationClassMethodTable(NestedConfig.class);
+        Entry expected = underTest.getEntry("stringParam");
+
+        // each getMethod call returns a new method instance - lookups must stay correct beyond the identity map size
+        for (int i = 0; i < 1000; i++) {
+            assertSame(expected, underTest.getOrCreateEntry(NestedConfig.class.getMethod("stringParam")));
+        }
+
+        // entries for other methods are kept for the same method instance
+        Method hashCode = Object.class.getMethod("hashCode");
+        AnnotationClassMethodTable otherTable = new AnnotationClassMethodTable(ListConfig.class);
+        assertSame(otherTable.getOrCreateEntry(hashCode), otherTable.getOrCreateEntry(hashCode));
+    }
+
+    @Test
+    public void testReadDefaultValues() throws Exception {
+        Class<?> underTest = AllTypesConfig.class;
+
+        assertEquals(0, read(underTest, "intParam", ValueMap.EMPTY));
+        assertEquals(INT_DEFAULT, read(underTest, "intParamWithDefault", ValueMap.EMPTY));
+        assertEquals(STRING_DEFAULT, read(underTest, "stringParamWithDefault", ValueMap.EMPTY));
+        assertArrayEquals(new String[0], (String[]) read(underTest, "stringArrayParam", ValueMap.EMPTY));
+
+        // default arrays are not shared between reads
+        String[] value1 = (String[]) read(underTest, "stringArrayParamWithDefault", ValueMap.EMPTY);
+        String[] value2 = (String[]) read(underTest, "stringArrayParamWithDefault", ValueMap.EMPTY);
+        assertArrayEquals(new String[] {STRING_DEFAULT, STRING_DEFAULT_2}, value1);
+        assertNotSame(value1, value2);
+    }
+
+    @Test
+    public void testReadValues() throws Exception {
+        Class<?> underTest = AllTypesConfig.class;
+        ValueMap props =
+                new ValueMapDecorator(Map.<String, Object>of("intParamWithDefault", 5, "stringArrayParam", "a"));
+
+        assertEquals(5, read(underTest, "intParamWithDefault", props));
+        assertArrayEquals(new String[] {"a"}, (String[]) read(underTest, "stringArrayParam", props));
+    }
+
+    @Test(expected = ConfigurationResolveException.class)
+    public void testReadIllegalType() throws Exception {
+        read(IllegalTypesConfig.class, "byteSingle", ValueMap.EMPTY);
+    }
+
+    private static Object read(Class<?> clazz, String methodName, ValueMap props) {
+        return new AnnotationClassMethodTable(clazz).getEntry(methodName).read(props);
+    }
+}
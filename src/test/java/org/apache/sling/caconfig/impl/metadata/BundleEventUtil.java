@@ -30,6 +30,7 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.sling.testing.mock.osgi.MockOsgi;
@@ -64,6 +65,22 @@ final class BundleEventUtil {
         return bundle;
     }
 
+    /**
+     * Simulate a bundle STARTED event for a dummy bundle that was started before.
+     */
+    public static void startDummyBundle(Bundle bundle) {
+        ((DummyBundle) bundle).setState(Bundle.ACTIVE);
+        BundleEvent event = new BundleEvent(BundleEvent.STARTED, bundle);
+        MockOsgi.sendBundleEvent(bundle.getBundleContext(), event);
+    }
+
+    /**
+     * @return Number of classes loaded via the given dummy bundle
+     */
+    public static int getLoadedClassCount(Bundle bundle) {
+        return ((DummyBundle) bundle).loadedClassCount.get();
+    }
+
     /**
      * Simulate a bundle STARTED event with a given set of classes simulated to be found in the bundle's classpath.
      */
@@ -80,6 +97,7 @@ final class BundleEventUtil {
         private final Long bundleId;
         private int state = Bundle.UNINSTALLED;
         private final String classNames;
+        private final AtomicInteger loadedClassCount = new AtomicInteger();
 
         public DummyBundle(BundleContext bundleContext, Class[] classes) {
             this.bundleContext = bundleContext;
@@ -124,6 +142,7 @@ final class BundleEventUtil {
 
         @Override
         public Class<?> loadClass(String name) throws ClassNotFoundException {
+            loadedClassCount.incrementAndGet();
             return getClass().getClassLoader().loadClass(name);
         }
 
@@ -18,6 +18,7 @@
  */
 package org.apache.sling.caconfig.impl.metadata;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +29,7 @@ import java.util.TreeSet;
 import org.apache.sling.caconfig.impl.def.DefaultConfigurationPersistenceStrategy;
 import org.apache.sling.caconfig.management.impl.ConfigurationManagementSettingsImpl;
 import org.apache.sling.caconfig.management.impl.ConfigurationPersistenceStrategyMultiplexerImpl;
+import org.apache.sling.caconfig.management.multiplexer.ConfigurationMetadataSnapshot;
 import org.apache.sling.caconfig.spi.ConfigurationMetadataProvider;
 import org.apache.sling.caconfig.spi.metadata.ConfigurationMetadata;
 import org.apache.sling.caconfig.spi.metadata.PropertyMetadata;
@@ -38,7 +40,9 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class ConfigurationMetadataProviderMultiplexerImplTest {
@@ -94,6 +98,103 @@ public class ConfigurationMetadataProviderMultiplexerImplTest {
         assertEquals("test2", configMetadata.getName());
     }
 
+    @Test
+    public void testSnapshot() {
+        SortedSet<String> stableConfigNames = new TreeSet<>(Set.of("test1"));
+        context.registerService(ConfigurationMetadataProvider.class, new ConfigurationMetadataProvider() {
+            @Override
+            public @NotNull SortedSet<String> getConfigurationNames() {
+                return stableConfigNames;
+            }
+
+            @Override
+            public ConfigurationMetadata getConfigurationMetadata(String configName) {
+                return new ConfigurationMetadata(configName, List.<PropertyMetadata<?>>of(), false);
+            }
+        });
+
+        // snapshot is reused as long as providers and their configuration names are unchanged
+        ConfigurationMetadataSnapshot snapshot = underTest.getSnapshot();
+        assertSame(snapshot, underTest.getSnapshot());
+        assertEquals(Set.of("test1"), snapshot.getConfigurationNames());
+        // metadata of providers without change notification is not remembered
+        assertNotSame(snapshot.getConfigurationMetadata("test1"), snapshot.getConfigurationMetadata("test1"));
+
+        registerConfigurationMetadataProvider("test2");
+        ConfigurationMetadataSnapshot snapshot2 = underTest.getSnapshot();
+        assertTrue(snapshot2.getGeneration() > snapshot.getGeneration());
+        assertEquals(Set.of("test1", "test2"), snapshot2.getConfigurationNames());
+        assertEquals("test2", snapshot2.getConfigurationMetadata("test2").getName());
+    }
+
+    @Test
+    public void testSnapshotProviderReturningNewSetPerCall() {
+        registerConfigurationMetadataProvider("test1");
+
+        // equal configuration names in a new set instance do not invalidate the snapshot
+        ConfigurationMetadataSnapshot snapshot = underTest.getSnapshot();
+        assertSame(snapshot, underTest.getSnapshot());
+        assertEquals(snapshot.getGeneration(), underTest.getSnapshot().getGeneration());
+    }
+
+    @Test
+    public void testSnapshotChangeNotifier() {
+        NotifyingProvider provider = new NotifyingProvider("test1");
+        context.registerService(ConfigurationMetadataProvider.class, provider);
+
+        ConfigurationMetadataSnapshot snapshot = underTest.getSnapshot();
+        assertEquals(Set.of("test1"), snapshot.getConfigurationNames());
+        assertSame(snapshot.getConfigurationMetadata("test1"), snapshot.getConfigurationMetadata("test1"));
+
+        // configuration names of notifying providers are not polled
+        int calls = provider.configurationNamesCalls;
+        assertSame(snapshot, underTest.getSnapshot());
+        assertEquals(calls, provider.configurationNamesCalls);
+
+        provider.setConfigurationNames("test1", "test2");
+        ConfigurationMetadataSnapshot snapshot2 = underTest.getSnapshot();
+        assertTrue(snapshot2.getGeneration() > snapshot.getGeneration());
+        assertEquals(Set.of("test1", "test2"), snapshot2.getConfigurationNames());
+    }
+
+    private static final class NotifyingProvider
+            implements ConfigurationMetadataProvider, ConfigurationMetadataChangeNotifier {
+
+        private final List<Runnable> listeners = new ArrayList<>();
+        private volatile SortedSet<String> configNames;
+        private volatile int configurationNamesCalls;
+
+        NotifyingProvider(String... names) {
+            configNames = new TreeSet<>(List.of(names));
+        }
+
+        void setConfigurationNames(String... names) {
+            configNames = new TreeSet<>(List.of(names));
+            listeners.forEach(Runnable::run);
+        }
+
+        @Override
+        public @NotNull SortedSet<String> getConfigurationNames() {
+            configurationNamesCalls++;
+            return configNames;
+        }
+
+        @Override
+        public ConfigurationMetadata getConfigurationMetadata(String configName) {
+            return new ConfigurationMetadata(configName, List.<PropertyMetadata<?>>of(), false);
+        }
+
+        @Override
+        public void addChangeListener(@NotNull Runnable listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeChangeListener(@NotNull Runnable listener) {
+            listeners.remove(listener);
+        }
+    }
+
     private void registerConfigurationMetadataProvider(String... names) {
         final Map<String, ConfigurationMetadata> metadata = new HashMap<>();
         for (String name : names) {
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl.metadata;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.sling.caconfig.example.AllTypesConfig;
+import org.apache.sling.caconfig.example.MetadataSimpleConfig;
+import org.apache.sling.caconfig.example.NestedConfig;
+import org.apache.sling.caconfig.spi.metadata.ConfigurationMetadata;
+import org.apache.sling.caconfig.spi.metadata.PropertyMetadata;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ConfigurationMetadataStoreTest {
+
+    private static final String CLASS_NAMES = AllTypesConfig.class.getName() + "," + NestedConfig.class.getName() + ","
+            + MetadataSimpleConfig.class.getName();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+    private Bundle bundle;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = folder.newFolder("metadata");
+        bundle = mock(Bundle.class);
+        when(bundle.getBundleId()).thenReturn(5L);
+        when(bundle.getSymbolicName()).thenReturn("bundle1");
+        when(bundle.getLastModified()).thenReturn(1000L);
+        when(bundle.loadClass(NestedConfig.class.getName())).thenAnswer(invocation -> NestedConfig.class);
+    }
+
+    @Test
+    public void testStoreLoad() {
+        ConfigurationMetadataStore underTest = new ConfigurationMetadataStore(directory, "1.0.0-1");
+        List<ConfigurationMapping> configMappings = List.of(
+                new ConfigurationMapping(AllTypesConfig.class),
+                new ConfigurationMapping(NestedConfig.class),
+                new ConfigurationMapping(MetadataSimpleConfig.class));
+        underTest.store(bundle, CLASS_NAMES, configMappings);
+
+        Map<String, ConfigurationMapping> loaded = underTest.load(bundle, CLASS_NAMES);
+        assertNotNull(loaded);
+        assertEquals(3, loaded.size());
+        for (ConfigurationMapping configMapping : configMappings) {
+            ConfigurationMapping loadedMapping = loaded.get(configMapping.getConfigName());
+            assertEquals(configMapping.getConfigClassName(), loadedMapping.getConfigClassName());
+            assertMetadataEquals(configMapping.getConfigMetadata(), loadedMapping.getConfigMetadata());
+        }
+    }
+
+    @Test
+    public void testOutdated() {
+        ConfigurationMetadataStore underTest = new ConfigurationMetadataStore(directory, "1.0.0-1");
+        underTest.store(bundle, CLASS_NAMES, List.of(new ConfigurationMapping(MetadataSimpleConfig.class)));
+        assertNotNull(underTest.load(bundle, CLASS_NAMES));
+
+        // other class names header
+        assertNull(underTest.load(bundle, MetadataSimpleConfig.class.getName()));
+
+        // other implementation revision
+        assertNull(new ConfigurationMetadataStore(directory, "1.0.0-2").load(bundle, CLASS_NAMES));
+
+        // bundle was updated
+        when(bundle.getLastModified()).thenReturn(2000L);
+        assertNull(underTest.load(bundle, CLASS_NAMES));
+    }
+
+    @Test
+    public void testCleanUp() {
+        ConfigurationMetadataStore underTest = new ConfigurationMetadataStore(directory, "1.0.0-1");
+        underTest.store(bundle, CLASS_NAMES, List.of(new ConfigurationMapping(MetadataSimpleConfig.class)));
+        File file = new File(directory, "5.metadata");
+        assertTrue(file.exists());
+
+        BundleContext bundleContext = mock(BundleContext.class);
+        when(bundleContext.getBundle(5L)).thenReturn(bundle);
+        underTest.cleanUp(bundleContext);
+        assertTrue(file.exists());
+
+        when(bundleContext.getBundle(5L)).thenReturn(null);
+        underTest.cleanUp(bundleContext);
+        assertFalse(file.exists());
+    }
+
+    private static void assertMetadataEquals(ConfigurationMetadata expected, ConfigurationMetadata actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.isCollection(), actual.isCollection());
+        assertEquals(expected.getLabel(), actual.getLabel());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getProperties(), actual.getProperties());
+        assertEquals(
+                new ArrayList<>(expected.getPropertyMetadata().keySet()),
+                new ArrayList<>(actual.getPropertyMetadata().keySet()));
+        for (PropertyMetadata<?> expectedProperty :
+                expected.getPropertyMetadata().values()) {
+            PropertyMetadata<?> actualProperty = actual.getPropertyMetadata().get(expectedProperty.getName());
+            assertEquals(expectedProperty.getType(), actualProperty.getType());
+            assertEquals(expectedProperty.getLabel(), actualProperty.getLabel());
+            assertEquals(expectedProperty.getDescription(), actualProperty.getDescription());
+            assertEquals(expectedProperty.getProperties(), actualProperty.getProperties());
+            assertEquals(expectedProperty.getOrder(), actualProperty.getOrder());
+            assertTrue(
+                    expectedProperty.getName(),
+                    Objects.deepEquals(expectedProperty.getDefaultValue(), actualProperty.getDefaultValue()));
+            if (expectedProperty.getConfigurationMetadata() != null) {
+                assertMetadataEquals(
+                        expectedProperty.getConfigurationMetadata(), actualProperty.getConfigurationMetadata());
+            } else {
+                assertNull(actualProperty.getConfigurationMetadata());
+            }
+        }
+    }
+}
@@ -18,6 +18,9 @@
  */
 package org.apache.sling.caconfig.impl.override;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.sling.caconfig.spi.ConfigurationOverrideProvider;
@@ -26,6 +29,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceRegistration;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
@@ -93,6 +97,92 @@ public class ConfigurationOverrideMultiplexerImplTest {
         assertOverride("/a/b", "test2", Map.<String, Object>of("param1", "initialValue"), null);
     }
 
+    @Test
+    public void testProviderAddedAndRemoved() {
+        context.registerService(
+                ConfigurationOverrideProvider.class,
+                new DummyConfigurationOverrideProvider("test/param1=\"value1\"", "[/a]test2/param1=\"value1\""),
+                Constants.SERVICE_RANKING,
+                200);
+
+        ServiceRegistration<ConfigurationOverrideProvider> registration = context.bundleContext()
+                .registerService(
+                        ConfigurationOverrideProvider.class,
+                        new DummyConfigurationOverrideProvider("test3={\"param1\":\"value2\"}"),
+                        null);
+        assertOverride(
+                "/a",
+                "test3",
+                Map.<String, Object>of("param1", "initialValue"),
+                Map.<String, Object>of("param1", "value2"));
+
+        registration.unregister();
+
+        assertOverride(
+                "/a",
+                "test2",
+                Map.<String, Object>of("param1", "initialValue"),
+                Map.<String, Object>of("param1", "value1"));
+        assertOverride("/a", "test3", Map.<String, Object>of("param1", "initialValue"), null);
+    }
+
+    @Test
+    public void testUpdatedProvider() {
+        List<String> overrideStrings = new ArrayList<>(List.of("test/param1=\"value1\""));
+        ConfigurationOverrideProvider provider = () -> overrideStrings;
+        context.registerService(ConfigurationOverrideProvider.class, provider);
+
+        overrideStrings.set(0, "test2/param1=\"value2\"");
+        underTest.updatedConfigurationOverrideProvider(provider, Map.of());
+
+        assertOverride("/a", "test", Map.<String, Object>of("param1", "initialValue"), null);
+        assertOverride(
+                "/a",
+                "test2",
+                Map.<String, Object>of("param1", "initialValue"),
+                Map.<String, Object>of("param1", "value2"));
+    }
+
+    @Test
+    public void testOverrideItemProvider() {
+        TestOverrideItemProvider provider = new TestOverrideItemProvider(
+                List.copyOf(OverrideStringParser.parse(List.of("test/param1=\"value1\""))));
+        context.registerService(ConfigurationOverrideProvider.class, provider);
+
+        assertOverride(
+                "/a",
+                "test",
+                Map.<String, Object>of("param1", "initialValue"),
+                Map.<String, Object>of("param1", "value1"));
+
+        provider.items = List.copyOf(OverrideStringParser.parse(List.of("test/param1=\"value2\"")));
+        underTest.updatedConfigurationOverrideProvider(provider, Map.of());
+        assertOverride(
+                "/a",
+                "test",
+                Map.<String, Object>of("param1", "initialValue"),
+                Map.<String, Object>of("param1", "value2"));
+    }
+
+    private static final class TestOverrideItemProvider implements ConfigurationOverrideProvider, OverrideItemProvider {
+
+        private volatile List<OverrideItem> items;
+
+        TestOverrideItemProvider(List<OverrideItem> items) {
+            this.items = items;
+        }
+
+        @Override
+        public List<OverrideItem> getOverrideItems() {
+            return items;
+        }
+
+        @Override
+        public Collection<String> getOverrideStrings() {
+            throw new AssertionError("Override strings should not be parsed for override item providers.");
+        }
+    }
+
     private void assertOverride(String path, String configName, Map<String, Object> input, Map<String, Object> output) {
         if (output == null) {
             assertNull(underTest.overrideProperties(path, configName, input));
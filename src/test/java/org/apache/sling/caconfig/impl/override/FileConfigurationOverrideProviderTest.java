@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl.override;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import org.apache.sling.caconfig.spi.ConfigurationOverrideProvider;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.osgi.framework.ServiceReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FileConfigurationOverrideProviderTest {
+
+    @Rule
+    public SlingContext context = new SlingContext();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileConfigurationOverrideProvider underTest;
+
+    @After
+    public void tearDown() {
+        if (underTest != null) {
+            underTest.deactivate();
+        }
+    }
+
+    @Test
+    public void testFile() throws Exception {
+        File file = folder.newFile("overrides.txt");
+        write(file.toPath(), "# comment", "test/param1=\"value1\"", "", "  [/content]test/param2=\"value2\"  ");
+
+        underTest = activate(file, 1000);
+
+        assertEquals(
+                List.of("test/param1=\"value1\"", "[/content]test/param2=\"value2\""), underTest.getOverrideStrings());
+        ServiceReference<ConfigurationOverrideProvider> ref =
+                context.bundleContext().getServiceReference(ConfigurationOverrideProvider.class);
+        assertEquals(200, ref.getProperty("service.ranking"));
+    }
+
+    @Test
+    public void testDirectory() throws Exception {
+        File directory = folder.newFolder("overrides");
+        write(directory.toPath().resolve("b.txt"), "test/param2=\"value2\"");
+        write(directory.toPath().resolve("a.txt"), "test/param1=\"value1\"");
+        write(directory.toPath().resolve(".hidden"), "test/param3=\"value3\"");
+
+        underTest = activate(directory, 1000);
+
+        assertEquals(List.of("test/param1=\"value1\"", "test/param2=\"value2\""), underTest.getOverrideStrings());
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        File file = folder.newFile("overrides.txt");
+        write(file.toPath(), "test/param1=\"value1\"");
+
+        underTest = context.registerInjectActivateService(
+                new FileConfigurationOverrideProvider(), "enabled", false, "path", file.getPath());
+
+        assertTrue(underTest.getOverrideStrings().isEmpty());
+        assertNull(context.bundleContext().getServiceReference(ConfigurationOverrideProvider.class));
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        File directory = folder.newFolder("overrides");
+        write(directory.toPath().resolve("a.txt"), "test/param1=\"value1\"");
+
+        underTest = activate(directory, 50);
+        assertEquals(List.of("test/param1=\"value1\""), underTest.getOverrideStrings());
+        ServiceReference<ConfigurationOverrideProvider> ref =
+                context.bundleContext().getServiceReference(ConfigurationOverrideProvider.class);
+        assertEquals(0L, ref.getProperty(FileConfigurationOverrideProvider.PROPERTY_REVISION));
+
+        write(directory.toPath().resolve("a.txt"), "test/param1=\"value1a\"");
+        write(directory.toPath().resolve("b.txt"), "test/param2=\"value2\"");
+
+        List<String> expected = List.of("test/param1=\"value1a\"", "test/param2=\"value2\"");
+        long timeout = System.currentTimeMillis() + 10000;
+        while (!expected.equals(underTest.getOverrideStrings()) && System.currentTimeMillis() < timeout) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, underTest.getOverrideStrings());
+        assertTrue((Long) ref.getProperty(FileConfigurationOverrideProvider.PROPERTY_REVISION) > 0L);
+    }
+
+    @Test
+    public void testReloadWhileChangingContinuously() throws Exception {
+        File directory = folder.newFolder("overrides");
+        write(directory.toPath().resolve("a.txt"), "test/param1=\"value1\"");
+
+        underTest = activate(directory, 100);
+
+        // keep changing a file more often than the reload delay - reload must happen nevertheless
+        boolean reloaded = false;
+        long timeout = System.currentTimeMillis() + 10000;
+        for (int i = 0; !reloaded && System.currentTimeMillis() < timeout; i++) {
+            write(directory.toPath().resolve("b.txt"), "test/param2=\"value" + i + "\"");
+            Thread.sleep(20);
+            reloaded = underTest.getOverrideStrings().size() == 2;
+        }
+        assertTrue(reloaded);
+    }
+
+    @Test
+    public void testDeactivateStopsWatcher() throws Exception {
+        File file = folder.newFile("overrides.txt");
+        write(file.toPath(), "test/param1=\"value1\"");
+
+        underTest = activate(file, 50);
+        assertTrue(hasWatcherThread());
+
+        underTest.deactivate();
+        underTest = null;
+        assertFalse(hasWatcherThread());
+    }
+
+    private static boolean hasWatcherThread() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(
+                        thread -> thread.isAlive() && thread.getName().startsWith("Sling CA Config Override Watcher"));
+    }
+
+    @Test
+    public void testReparseChangedFilesOnly() throws Exception {
+        File directory = folder.newFolder("overrides");
+        write(directory.toPath().resolve("a.txt"), "test/param1=\"value1\"");
+        write(directory.toPath().resolve("b.txt"), "test/param2=\"value2\"");
+
+        underTest = activate(directory, 1000);
+        List<OverrideItem> items = underTest.getOverrideItems();
+        assertEquals(2, items.size());
+
+        write(directory.toPath().resolve("b.txt"), "test/param2=\"value2-changed\"");
+        underTest.reload();
+
+        List<OverrideItem> reloadedItems = underTest.getOverrideItems();
+        assertEquals(2, reloadedItems.size());
+        assertSame(items.get(0), reloadedItems.get(0));
+        assertNotSame(items.get(1), reloadedItems.get(1));
+        assertEquals("value2-changed", reloadedItems.get(1).getProperties().get("param2"));
+    }
+
+    @Test
+    public void testSymbolicLinkSwap() throws Exception {
+        // layout of a Kubernetes ConfigMap volume: overrides.txt -> ..data/overrides.txt, ..data -> data1
+        Path directory = folder.newFolder("configmap").toPath();
+        write(Files.createDirectory(directory.resolve("data1")).resolve("overrides.txt"), "test/param1=\"value1\"");
+        write(Files.createDirectory(directory.resolve("data2")).resolve("overrides.txt"), "test/param1=\"value2\"");
+        Files.createSymbolicLink(directory.resolve("..data"), Paths.get("data1"));
+        Path file = Files.createSymbolicLink(directory.resolve("overrides.txt"), Paths.get("..data/overrides.txt"));
+
+        underTest = activate(file.toFile(), 50);
+        assertEquals(List.of("test/param1=\"value1\""), underTest.getOverrideStrings());
+
+        // swap ..data link atomically
+        Files.createSymbolicLink(directory.resolve("..data_tmp"), Paths.get("data2"));
+        Files.move(
+                directory.resolve("..data_tmp"),
+                directory.resolve("..data"),
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+
+        List<String> expected = List.of("test/param1=\"value2\"");
+        long timeout = System.currentTimeMillis() + 10000;
+        while (!expected.equals(underTest.getOverrideStrings()) && System.currentTimeMillis() < timeout) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, underTest.getOverrideStrings());
+    }
+
+    private FileConfigurationOverrideProvider activate(File path, long reloadDelay) {
+        return context.registerInjectActivateService(
+                new FileConfigurationOverrideProvider(),
+                "enabled",
+                true,
+                "path",
+                path.getPath(),
+                "reloadDelay",
+                reloadDelay,
+                "service.ranking",
+                200);
+    }
+
+    private static void write(Path file, String... lines) throws Exception {
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.impl.override;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.caconfig.impl.override.OverrideIndex.Overrides;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OverrideIndexTest {
+
+    private static final Map<String, Object> GLOBAL = Map.of("p1", "global");
+    private static final Map<String, Object> PATH_A = Map.of("p1", "a");
+    private static final Map<String, Object> PATH_AB_ALL = Map.of("p2", "ab");
+    private static final Map<String, Object> GLOBAL_LATER = Map.of("p3", "globalLater");
+
+    private final OverrideIndex underTest = new OverrideIndex(List.of(
+            new OverrideItem(null, "test", GLOBAL, false),
+            new OverrideItem("/a", "test", PATH_A, false),
+            new OverrideItem("/a/b", "test", PATH_AB_ALL, true),
+            new OverrideItem(null, "test", GLOBAL_LATER, false),
+            new OverrideItem("/a", "other", PATH_A, false)));
+
+    @Test
+    public void testGlobal() {
+        Overrides overrides = underTest.getOverrides("/x", "test");
+        assertEquals(List.of(GLOBAL_LATER, GLOBAL), overrides.getLayers());
+        assertFalse(overrides.isAllProperties());
+    }
+
+    @Test
+    public void testPath() {
+        Overrides overrides = underTest.getOverrides("/a/c", "test");
+        assertEquals(List.of(GLOBAL_LATER, PATH_A, GLOBAL), overrides.getLayers());
+        assertFalse(overrides.isAllProperties());
+    }
+
+    @Test
+    public void testAllProperties() {
+        // items before the item replacing all properties have no effect
+        Overrides overrides = underTest.getOverrides("/a/b/c", "test");
+        assertEquals(List.of(GLOBAL_LATER, PATH_AB_ALL), overrides.getLayers());
+        assertTrue(overrides.isAllProperties());
+    }
+
+    @Test
+    public void testNoMatch() {
+        assertNull(underTest.getOverrides("/x", "other"));
+        assertNull(underTest.getOverrides("/ab", "other"));
+        assertNull(underTest.getOverrides("/a", "unknown"));
+        assertNull(OverrideIndex.EMPTY.getOverrides("/a", "test"));
+    }
+
+    @Test
+    public void testNonIndexablePath() {
+        OverrideIndex index = new OverrideIndex(
+                List.of(new OverrideItem("/", "test", PATH_A, false), new OverrideItem(null, "test", GLOBAL, false)));
+
+        assertEquals(List.of(GLOBAL, PATH_A), index.getOverrides("/", "test").getLayers());
+        assertEquals(List.of(GLOBAL), index.getOverrides("/a", "test").getLayers());
+    }
+}
@@ -38,6 +38,7 @@ import org.apache.sling.caconfig.spi.ConfigurationCollectionPersistData;
 import org.apache.sling.caconfig.spi.ConfigurationMetadataProvider;
 import org.apache.sling.caconfig.spi.ConfigurationOverrideProvider;
 import org.apache.sling.caconfig.spi.ConfigurationPersistData;
+import org.apache.sling.caconfig.spi.ConfigurationPersistenceStrategy2;
 import org.apache.sling.caconfig.spi.metadata.ConfigurationMetadata;
 import org.apache.sling.caconfig.spi.metadata.PropertyMetadata;
 import org.apache.sling.testing.mock.sling.junit.SlingContext;
@@ -56,6 +57,12 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -933,6 +940,39 @@ public class ConfigurationManagerImplTest {
         assertEquals(CONFIG_NAME, configMetadata.getName());
     }
 
+    @Test
+    public void testGetConfigurationMetadata_Memoized() {
+        String configName =
+                getConfigResolvePath(getConfigResolvePath(CONFIG_NESTED_NAME) + "/propSub") + "/propSubLevel2";
+        assertNotNull(underTest.getConfigurationMetadata(configName));
+        assertNull(underTest.getConfigurationMetadata("unknown/nested"));
+
+        // positive and negative results are looked up only once
+        clearInvocations(configurationMetadataProvider);
+        assertNotNull(underTest.getConfigurationMetadata(configName));
+        assertNull(underTest.getConfigurationMetadata("unknown/nested"));
+        verify(configurationMetadataProvider, never()).getConfigurationMetadata(anyString());
+
+        // change of persistence strategies invalidates lookup results
+        context.registerService(ConfigurationPersistenceStrategy2.class, mock(ConfigurationPersistenceStrategy2.class));
+        assertNotNull(underTest.getConfigurationMetadata(configName));
+        verify(configurationMetadataProvider, atLeastOnce()).getConfigurationMetadata(anyString());
+    }
+
+    @Test
+    public void testGetConfigurationMetadata_MemoizedProviderReturningNewSetPerCall() {
+        when(configurationMetadataProvider.getConfigurationNames())
+                .thenAnswer(invocation -> new TreeSet<>(Set.of(CONFIG_NAME, CONFIG_COL_NAME, CONFIG_NESTED_NAME)));
+        String configName = getConfigResolvePath(CONFIG_NESTED_NAME) + "/propSub";
+        assertNotNull(underTest.getConfigurationMetadata(configName));
+
+        // equal configuration names in a new set instance keep the memoized lookup results
+        clearInvocations(configurationMetadataProvider);
+        assertNotNull(underTest.getConfigurationMetadata(configName));
+        assertNotNull(underTest.getConfigurationMetadata(configName));
+        verify(configurationMetadataProvider, never()).getConfigurationMetadata(anyString());
+    }
+
     @Test
     public void testGetConfigurationMetadata_Nested() {
         ConfigurationMetadata configMetadata = underTest.getConfigurationMetadata(CONFIG_NESTED_NAME);
@@ -22,7 +22,9 @@ import java.util.Collection;
 import java.util.Collections;
 
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.observation.ResourceChange.ChangeType;
 import org.apache.sling.caconfig.management.impl.ContextPathStrategyMultiplexerImpl;
+import org.apache.sling.caconfig.resource.impl.util.ResourceChangeTestUtil;
 import org.apache.sling.caconfig.resource.spi.ConfigurationResourceResolvingStrategy;
 import org.apache.sling.hamcrest.ResourceCollectionMatchers;
 import org.apache.sling.testing.mock.sling.junit.SlingContext;
@@ -32,6 +34,7 @@ import org.junit.Test;
 
 import static org.apache.sling.caconfig.resource.impl.def.ConfigurationResourceNameConstants.PROPERTY_CONFIG_COLLECTION_INHERIT;
 import static org.apache.sling.caconfig.resource.impl.def.ConfigurationResourceNameConstants.PROPERTY_CONFIG_REF;
+import static org.apache.sling.caconfig.resource.impl.util.ResourceChangeTestUtil.fireChange;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
@@ -101,6 +104,42 @@ public class DefaultConfigurationResourceResolvingStrategyTest {
                 underTest.getResource(deepPage, BUCKETS, "test").getPath());
     }
 
+    @Test
+    public void testGetResourceExistenceIndex() throws Exception {
+        ResourceChangeTestUtil.registerServiceResourceResolverFactory(context);
+        ConfigurationResourceResolvingStrategy underTest = context.registerInjectActivateService(
+                new DefaultConfigurationResourceResolvingStrategy(), "existenceIndexEnabled", true);
+
+        // build config resources
+        context.build().resource("/conf/site1/sling:test/test").resource("/libs/conf/sling:test/test");
+
+        assertEquals(
+                "/conf/site1/sling:test/test",
+                underTest.getResource(site1Page1, BUCKETS, "test").getPath());
+        assertEquals(
+                "/libs/conf/sling:test/test",
+                underTest.getResource(site2Page1, BUCKETS, "test").getPath());
+        assertNull(underTest.getResource(site1Page1, BUCKETS, "other"));
+
+        // new config resources are not visible until the change event arrives
+        context.build().resource("/conf/site2/sling:test/test");
+        assertEquals(
+                "/libs/conf/sling:test/test",
+                underTest.getResource(site2Page1, BUCKETS, "test").getPath());
+
+        fireChange(context, ChangeType.ADDED, "/conf/site2/sling:test/test");
+        assertEquals(
+                "/conf/site2/sling:test/test",
+                underTest.getResource(site2Page1, BUCKETS, "test").getPath());
+
+        // removal of bucket resource
+        context.resourceResolver().delete(context.resourceResolver().getResource("/conf/site1/sling:test"));
+        fireChange(context, ChangeType.REMOVED, "/conf/site1/sling:test");
+        assertEquals(
+                "/libs/conf/sling:test/test",
+                underTest.getResource(site1Page1, BUCKETS, "test").getPath());
+    }
+
     /**
      * Default resource inheritance without customizing inheritance.
      * => no resource list merging.
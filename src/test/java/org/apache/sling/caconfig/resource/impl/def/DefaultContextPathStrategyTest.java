@@ -18,11 +18,20 @@
  */
 package org.apache.sling.caconfig.resource.impl.def;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.commons.collections4.IteratorUtils;
+import org.apache.sling.api.resource.ModifiableValueMap;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.observation.ResourceChange.ChangeType;
+import org.apache.sling.caconfig.resource.impl.util.ResolveScope;
+import org.apache.sling.caconfig.resource.impl.util.ResourceChangeTestUtil;
 import org.apache.sling.caconfig.resource.spi.ContextPathStrategy;
+import org.apache.sling.caconfig.resource.spi.ContextResource;
 import org.apache.sling.hamcrest.ResourceIteratorMatchers;
 import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.apache.sling.testing.resourceresolver.MockFindQueryResources;
 import org.hamcrest.Matchers;
 import org.junit.Before;
 import org.junit.Rule;
@@ -31,8 +40,13 @@ import org.junit.Test;
 import static org.apache.sling.caconfig.resource.impl.def.ConfigurationResourceNameConstants.PROPERTY_CONFIG_REF;
 import static org.apache.sling.caconfig.resource.impl.util.ContextResourceTestUtil.toConfigRefIterator;
 import static org.apache.sling.caconfig.resource.impl.util.ContextResourceTestUtil.toResourceIterator;
+import static org.apache.sling.caconfig.resource.impl.util.ResourceChangeTestUtil.fireChange;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class DefaultContextPathStrategyTest {
 
@@ -75,6 +89,36 @@ public class DefaultContextPathStrategyTest {
                 Matchers.contains("/conf/tenant1/region1/site2", "/conf/tenant1/region1", "/conf/tenant1"));
     }
 
+    @Test
+    public void testFindContextPathsInResolveScope() {
+        ContextPathStrategy underTest = context.registerInjectActivateService(new DefaultContextPathStrategy());
+        Resource site1Page2 = context.create().resource("/content/tenant1/region1/site1/page2");
+
+        try (ResolveScope scope = ResolveScope.open()) {
+            List<ContextResource> page1Contexts = IteratorUtils.toList(underTest.findContextResources(site1Page1));
+            assertThat(
+                    toResourceIterator(page1Contexts.iterator()),
+                    ResourceIteratorMatchers.paths(
+                            "/content/tenant1/region1/site1", "/content/tenant1/region1", "/content/tenant1"));
+            assertThat(
+                    IteratorUtils.toList(toConfigRefIterator(page1Contexts.iterator())),
+                    Matchers.contains("/conf/tenant1/region1/site1", "/conf/tenant1/region1", "/conf/tenant1"));
+
+            // context resources of common ancestors are reused for siblings
+            List<ContextResource> page2Contexts = IteratorUtils.toList(underTest.findContextResources(site1Page2));
+            assertEquals(3, page2Contexts.size());
+            for (int i = 0; i < page1Contexts.size(); i++) {
+                assertSame(page1Contexts.get(i), page2Contexts.get(i));
+            }
+
+            assertThat(
+                    toResourceIterator(underTest.findContextResources(site2Page1)),
+                    ResourceIteratorMatchers.paths(
+                            "/content/tenant1/region1/site2", "/content/tenant1/region1", "/content/tenant1"));
+        }
+        assertNull(ResolveScope.current());
+    }
+
     @Test
     public void testDisabled() {
         ContextPathStrategy underTest =
@@ -105,4 +149,149 @@ public class DefaultContextPathStrategyTest {
                 IteratorUtils.toList(toConfigRefIterator(underTest.findContextResources(site2Page1))),
                 Matchers.contains("/conf/tenant1/region1"));
     }
+
+    @Test
+    public void testIndexEnabled() throws Exception {
+        registerServiceResourceResolverFactory();
+        DefaultContextPathStrategy underTest =
+                context.registerInjectActivateService(new DefaultContextPathStrategy(), "indexEnabled", true);
+        awaitIndex(underTest);
+
+        assertThat(
+                toResourceIterator(underTest.findContextResources(site1Page1)),
+                ResourceIteratorMatchers.paths(
+                        "/content/tenant1/region1/site1", "/content/tenant1/region1", "/content/tenant1"));
+        assertThat(
+                IteratorUtils.toList(toConfigRefIterator(underTest.findContextResources(site1Page1))),
+                Matchers.contains("/conf/tenant1/region1/site1", "/conf/tenant1/region1", "/conf/tenant1"));
+
+        // change config ref, add new context, remove context
+        context.resourceResolver()
+                .getResource("/content/tenant1/region1")
+                .adaptTo(ModifiableValueMap.class)
+                .put(PROPERTY_CONFIG_REF, "/conf/tenant1/region1-new");
+        context.create().resource("/content/tenant1/region1/site1/page1/sub1", PROPERTY_CONFIG_REF, "/conf/sub1");
+        context.resourceResolver().delete(context.resourceResolver().getResource("/content/tenant1/region1/site2"));
+
+        // index is not updated before change events arrive
+        assertThat(
+                IteratorUtils.toList(toConfigRefIterator(underTest.findContextResources(site1Page1))),
+                Matchers.contains("/conf/tenant1/region1/site1", "/conf/tenant1/region1", "/conf/tenant1"));
+
+        fireChange(context, ChangeType.CHANGED, "/content/tenant1/region1");
+        fireChange(context, ChangeType.ADDED, "/content/tenant1/region1/site1/page1/sub1");
+        fireChange(context, ChangeType.REMOVED, "/content/tenant1/region1/site2");
+
+        Resource sub1 = context.resourceResolver().getResource("/content/tenant1/region1/site1/page1/sub1");
+        assertThat(
+                IteratorUtils.toList(toConfigRefIterator(underTest.findContextResources(sub1))),
+                Matchers.contains(
+                        "/conf/sub1", "/conf/tenant1/region1/site1", "/conf/tenant1/region1-new", "/conf/tenant1"));
+        assertThat(
+                IteratorUtils.toList(toConfigRefIterator(underTest.findContextResources(site2Page1))),
+                Matchers.contains("/conf/tenant1/region1-new", "/conf/tenant1"));
+    }
+
+    @Test
+    public void testIndexEnabledConfigRefResourceNames() throws Exception {
+        context.build().resource("/content/tenant1/region1/jcr:content", PROPERTY_CONFIG_REF, "/conf/tenant1/region1");
+        registerServiceResourceResolverFactory();
+        DefaultContextPathStrategy underTest = context.registerInjectActivateService(
+                new DefaultContextPathStrategy(), "indexEnabled", true, "configRefResourceNames", new String[] {
+                    "jcr:content"
+                });
+        awaitIndex(underTest);
+
+        assertThat(
+                toResourceIterator(underTest.findContextResources(site1Page1)),
+                ResourceIteratorMatchers.paths("/content/tenant1/region1"));
+        assertThat(
+                IteratorUtils.toList(toConfigRefIterator(underTest.findContextResources(site1Page1))),
+                Matchers.contains("/conf/tenant1/region1"));
+    }
+
+    @Test
+    public void testIndexEnabledAddedConfigRefResourceNames() throws Exception {
+        registerServiceResourceResolverFactory();
+        DefaultContextPathStrategy underTest = context.registerInjectActivateService(
+                new DefaultContextPathStrategy(), "indexEnabled", true, "configRefResourceNames", new String[] {
+                    "jcr:content"
+                });
+        awaitIndex(underTest);
+
+        // added resource already contains its config ref. resource, only the added resource is reported
+        context.build().resource("/content/tenant1/region1/jcr:content", PROPERTY_CONFIG_REF, "/conf/tenant1/region1");
+        fireChange(context, ChangeType.ADDED, "/content/tenant1/region1");
+
+        assertThat(
+                IteratorUtils.toList(toConfigRefIterator(underTest.findContextResources(site1Page1))),
+                Matchers.contains("/conf/tenant1/region1"));
+
+        // removal of config ref. resource
+        context.resourceResolver()
+                .delete(context.resourceResolver().getResource("/content/tenant1/region1/jcr:content"));
+        fireChange(context, ChangeType.REMOVED, "/content/tenant1/region1/jcr:content");
+
+        assertFalse(underTest.findContextResources(site1Page1).hasNext());
+    }
+
+    @Test
+    public void testIndexRootPaths() throws Exception {
+        context.create().resource("/other/site1", PROPERTY_CONFIG_REF, "/conf/other");
+        Resource otherPage = context.create().resource("/other/site1/page1");
+        registerServiceResourceResolverFactory();
+        DefaultContextPathStrategy underTest = context.registerInjectActivateService(
+                new DefaultContextPathStrategy(), "indexEnabled", true, "indexRootPaths", new String[] {
+                    "/content/tenant1/region1"
+                });
+        awaitIndex(underTest);
+
+        // context paths above the index root path are not considered
+        assertThat(
+                IteratorUtils.toList(toConfigRefIterator(underTest.findContextResources(site1Page1))),
+                Matchers.contains("/conf/tenant1/region1/site1", "/conf/tenant1/region1"));
+
+        // resources outside the index root paths walk up the hierarchy
+        assertThat(
+                IteratorUtils.toList(toConfigRefIterator(underTest.findContextResources(otherPage))),
+                Matchers.contains("/conf/other"));
+        assertTrue(underTest.getIndex().getContextPaths("/other/site1/page1").isEmpty());
+
+        // changes outside the index root paths are ignored
+        fireChange(context, ChangeType.CHANGED, "/other/site1");
+        assertTrue(underTest.getIndex().getContextPaths("/other/site1/page1").isEmpty());
+    }
+
+    private static void awaitIndex(DefaultContextPathStrategy strategy) throws InterruptedException {
+        ContextPathIndex index = strategy.getIndex();
+        long timeout = System.currentTimeMillis() + 10000;
+        while (!index.isReady()) {
+            if (System.currentTimeMillis() > timeout) {
+                throw new AssertionError("Context path index not built.");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Registers a service resource resolver factory with a query handler returning all resources
+     * with a configuration reference.
+     */
+    private void registerServiceResourceResolverFactory() {
+        MockFindQueryResources.addFindResourceHandler(context.resourceResolver(), (query, language) -> {
+            List<Resource> result = new ArrayList<>();
+            collectConfigRefResources(context.resourceResolver().getResource("/"), result);
+            return result.iterator();
+        });
+        ResourceChangeTestUtil.registerServiceResourceResolverFactory(context);
+    }
+
+    private static void collectConfigRefResources(Resource resource, List<Resource> result) {
+        if (resource.getValueMap().containsKey(PROPERTY_CONFIG_REF)) {
+            result.add(resource);
+        }
+        for (Resource child : resource.getChildren()) {
+            collectConfigRefResources(child, result);
+        }
+    }
 }
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.resource.impl.util;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.collections4.IteratorUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class IteratorBufferTest {
+
+    @Test
+    public void testIndependentIterators() {
+        AtomicInteger consumed = new AtomicInteger();
+        Iterator<String> source =
+                IteratorUtils.transformedIterator(List.of("a", "b", "c").iterator(), item -> {
+                    consumed.incrementAndGet();
+                    return item;
+                });
+        IteratorBuffer<String> underTest = new IteratorBuffer<>(source);
+
+        Iterator<String> iterator1 = underTest.iterator();
+        assertEquals("a", iterator1.next());
+        assertEquals(1, consumed.get());
+
+        Iterator<String> iterator2 = underTest.iterator();
+        assertEquals("a", iterator2.next());
+        assertEquals("b", iterator2.next());
+        assertEquals(2, consumed.get());
+
+        assertEquals("b", iterator1.next());
+        assertEquals("c", iterator1.next());
+        assertFalse(iterator1.hasNext());
+        assertEquals(3, consumed.get());
+
+        assertEquals(List.of("a", "b", "c"), IteratorUtils.toList(underTest.iterator()));
+        assertEquals(3, consumed.get());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testEmpty() {
+        new IteratorBuffer<>(List.<String>of().iterator()).iterator().next();
+    }
+}
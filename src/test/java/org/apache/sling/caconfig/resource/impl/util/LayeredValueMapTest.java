@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.resource.impl.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LayeredValueMapTest {
+
+    private final Map<String, Object> override = Map.of("prop1", "override1");
+    private final Map<String, Object> level1 = Map.of("prop1", "value1", "prop2", 2);
+    private final Map<String, Object> level2 = Map.of("prop2", 20, "prop3", "value3");
+
+    @Test
+    public void testGet() {
+        ValueMap underTest = LayeredValueMap.of(List.of(override, level1, level2));
+
+        assertEquals("override1", underTest.get("prop1", String.class));
+        assertEquals((Integer) 2, underTest.get("prop2", Integer.class));
+        assertEquals("2", underTest.get("prop2", String.class));
+        assertEquals("value3", underTest.get("prop3"));
+        assertNull(underTest.get("prop4"));
+        assertEquals("def", underTest.get("prop4", "def"));
+
+        assertTrue(underTest.containsKey("prop3"));
+        assertFalse(underTest.containsKey("prop4"));
+    }
+
+    @Test
+    public void testEntries() {
+        ValueMap underTest = LayeredValueMap.of(List.of(override, level1, level2));
+
+        assertEquals(Map.of("prop1", "override1", "prop2", 2, "prop3", "value3"), new HashMap<>(underTest));
+        assertEquals(3, underTest.size());
+    }
+
+    @Test
+    public void testFlatten() {
+        ValueMap inherited = LayeredValueMap.of(List.of(level1, level2));
+        ValueMap underTest = LayeredValueMap.of(List.of(override, inherited, ValueMap.EMPTY));
+
+        assertEquals("override1", underTest.get("prop1", String.class));
+        assertEquals((Integer) 2, underTest.get("prop2", Integer.class));
+        assertEquals("value3", underTest.get("prop3", String.class));
+    }
+
+    @Test
+    public void testModify() {
+        Map<String, Object> layer = new HashMap<>(level1);
+        ValueMap underTest = LayeredValueMap.of(List.of(override, layer));
+
+        underTest.put("prop2", 5);
+        underTest.remove("prop1");
+
+        assertEquals((Integer) 5, underTest.get("prop2", Integer.class));
+        assertNull(underTest.get("prop1"));
+
+        // layers are not modified
+        assertEquals(level1, layer);
+        assertEquals("override1", override.get("prop1"));
+    }
+}
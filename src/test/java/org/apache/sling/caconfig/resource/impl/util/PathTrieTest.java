@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.resource.impl.util;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PathTrieTest {
+
+    private final PathTrie<String> underTest = new PathTrie<>();
+
+    @Test
+    public void testGetAncestorsOrSelf() {
+        underTest.put("/content/a", "a");
+        underTest.put("/content/a/b/c", "c");
+        underTest.put("/content/ab", "ab");
+
+        assertEquals(
+                List.of(
+                        new SimpleImmutableEntry<>("/content/a", "a"),
+                        new SimpleImmutableEntry<>("/content/a/b/c", "c")),
+                underTest.getAncestorsOrSelf("/content/a/b/c/d"));
+        assertEquals(
+                List.of(new SimpleImmutableEntry<>("/content/a", "a")), underTest.getAncestorsOrSelf("/content/a/b"));
+        assertEquals(
+                List.of(new SimpleImmutableEntry<>("/content/ab", "ab")), underTest.getAncestorsOrSelf("/content/ab"));
+        assertTrue(underTest.getAncestorsOrSelf("/content").isEmpty());
+        assertTrue(underTest.getAncestorsOrSelf("/").isEmpty());
+        assertEquals(3, underTest.size());
+    }
+
+    @Test
+    public void testGetClosestAncestorOrSelf() {
+        underTest.put("/content/a", "a");
+        underTest.put("/content/a/b/c", "c");
+
+        assertEquals("c", underTest.getClosestAncestorOrSelf("/content/a/b/c/d"));
+        assertEquals("c", underTest.getClosestAncestorOrSelf("/content/a/b/c"));
+        assertEquals("a", underTest.getClosestAncestorOrSelf("/content/a/b"));
+        assertNull(underTest.getClosestAncestorOrSelf("/content/ab"));
+        assertNull(underTest.getClosestAncestorOrSelf("/content"));
+    }
+
+    @Test
+    public void testGetDescendantsOrSelf() {
+        underTest.put("/content/a", "a");
+        underTest.put("/content/a/b/c", "c");
+        underTest.put("/content/ab", "ab");
+
+        assertEquals(Set.of("a", "c"), Set.copyOf(underTest.getDescendantsOrSelf("/content/a")));
+        assertEquals(List.of("c"), underTest.getDescendantsOrSelf("/content/a/b"));
+        assertEquals(Set.of("a", "c", "ab"), Set.copyOf(underTest.getDescendantsOrSelf("/")));
+        assertTrue(underTest.getDescendantsOrSelf("/content/x").isEmpty());
+    }
+
+    @Test
+    public void testRoot() {
+        underTest.put("/", "root");
+        assertEquals("root", underTest.get("/"));
+        assertEquals(List.of(new SimpleImmutableEntry<>("/", "root")), underTest.getAncestorsOrSelf("/content"));
+    }
+
+    @Test
+    public void testRemove() {
+        underTest.put("/content/a", "a");
+        underTest.put("/content/a/b", "b");
+
+        underTest.remove("/content/a");
+        assertNull(underTest.get("/content/a"));
+        assertEquals("b", underTest.get("/content/a/b"));
+        assertEquals(1, underTest.size());
+
+        underTest.remove("/content/x");
+        assertEquals(1, underTest.size());
+    }
+
+    @Test
+    public void testRemovePrunesEmptyNodes() {
+        underTest.put("/content/a/b/c", "c");
+        underTest.put("/content/d", "d");
+        assertEquals(5, underTest.nodeCount());
+
+        underTest.remove("/content/a/b/c");
+        assertEquals(2, underTest.nodeCount());
+        assertEquals("d", underTest.get("/content/d"));
+
+        underTest.remove("/content/d");
+        assertEquals(0, underTest.nodeCount());
+        assertEquals(0, underTest.size());
+    }
+
+    @Test
+    public void testRemoveKeepsNodesWithChildren() {
+        underTest.put("/content/a", "a");
+        underTest.put("/content/a/b", "b");
+
+        underTest.remove("/content/a");
+        assertEquals(3, underTest.nodeCount());
+        assertEquals(
+                List.of(new SimpleImmutableEntry<>("/content/a/b", "b")), underTest.getAncestorsOrSelf("/content/a/b"));
+    }
+
+    @Test
+    public void testRemoveTree() {
+        underTest.put("/content/a", "a");
+        underTest.put("/content/a/b", "b");
+        underTest.put("/content/c", "c");
+
+        underTest.removeTree("/content/a");
+        assertNull(underTest.get("/content/a"));
+        assertNull(underTest.get("/content/a/b"));
+        assertEquals("c", underTest.get("/content/c"));
+        assertEquals(1, underTest.size());
+        assertEquals(2, underTest.nodeCount());
+
+        underTest.removeTree("/content/c");
+        assertEquals(0, underTest.nodeCount());
+
+        underTest.removeTree("/");
+        assertEquals(0, underTest.size());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.caconfig.resource.impl.util;
+
+import java.util.List;
+
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChange.ChangeType;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.apache.sling.api.wrappers.ResourceResolverWrapper;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceReference;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class ResourceChangeTestUtil {
+
+    private ResourceChangeTestUtil() {
+        // static methods only
+    }
+
+    /**
+     * Registers a resource resolver factory returning the context resource resolver as service resource resolver.
+     * @param context Sling context
+     */
+    public static void registerServiceResourceResolverFactory(SlingContext context) {
+        ResourceResolverFactory resolverFactory = mock(ResourceResolverFactory.class);
+        try {
+            when(resolverFactory.getServiceResourceResolver(any()))
+                    .thenAnswer(invocation -> new ResourceResolverWrapper(context.resourceResolver()) {
+                        @Override
+                        public void close() {
+                            // keep context resource resolver open
+                        }
+                    });
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+        context.registerService(ResourceResolverFactory.class, resolverFactory, Constants.SERVICE_RANKING, 1000);
+    }
+
+    /**
+     * Notifies all registered resource change listeners observing the given path.
+     * @param context Sling context
+     * @param type Change type
+     * @param path Changed path
+     */
+    public static void fireChange(SlingContext context, ChangeType type, String path) throws Exception {
+        ResourceChange change = new ResourceChange(type, path, false);
+        for (ServiceReference<ResourceChangeListener> ref :
+                context.bundleContext().getServiceReferences(ResourceChangeListener.class, null)) {
+            for (String listenerPath : (String[]) ref.getProperty(ResourceChangeListener.PATHS)) {
+                if ("/".equals(listenerPath) || path.equals(listenerPath) || path.startsWith(listenerPath + "/")) {
+                    context.bundleContext().getService(ref).onChange(List.of(change));
+                    break;
+                }
+            }
+        }
+    }
+}